@@ -21,6 +21,7 @@ import org.apache.commons.collections4.MapUtils;
 import com.zee.annotation.Interceptor;
 import com.zee.annotation.ActivityTag;
 
+import com.zee.index.BinaryIndexReader;
 import com.zee.utils.Common;
 import com.zee.utils.Logger;
 import com.zee.utils.RouterInfoMakeUtil;
@@ -45,7 +46,7 @@ import javax.tools.Diagnostic;
 /**
  *
  */
-@SupportedOptions(value = {"eventBusIndex", "verbose"})
+@SupportedOptions(value = {"eventBusIndex", "verbose", "moduleName", "zeeBinaryIndex"})
 @AutoService(Processor.class)
 public class ActivityTagProcessor extends AbstractProcessor {
     private RouterInfoMakeUtil mRouterInfoMakeUtil;
@@ -53,6 +54,7 @@ public class ActivityTagProcessor extends AbstractProcessor {
     //获得模块名称
     private String moduleName;
     public static final String KEY_MODULE_NAME = "moduleName";
+    public static final String KEY_BINARY_INDEX = "zeeBinaryIndex";
     private static final String CLASSNAME = Common.COMMONFILEPR ;
 
     private boolean writerRoundDone;
@@ -108,6 +110,9 @@ public class ActivityTagProcessor extends AbstractProcessor {
 //                createInfoIndexFile(index);
             if (!mRouterInfoMakeUtil.isEmpty()) {
                 mRouterInfoMakeUtil.createInfoIndexFile(index);
+                if (Boolean.parseBoolean(processingEnv.getOptions().get(KEY_BINARY_INDEX))) {
+                    mRouterInfoMakeUtil.createBinaryIndexFile(BinaryIndexReader.getResourceName(moduleName, "route"), indexPackage);
+                }
             } else {
                 messager.printMessage(Diagnostic.Kind.WARNING, "No @Subscribe annotations found");
             }
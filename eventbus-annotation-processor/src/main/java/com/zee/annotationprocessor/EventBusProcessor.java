@@ -16,9 +16,14 @@
 package com.zee.annotationprocessor;
 
 import com.google.auto.service.AutoService;
+import com.zee.index.BinaryIndexReader;
+import com.zee.utils.BinaryIndexWriter;
 import com.zee.utils.Common;
 
 import org.apache.commons.collections4.MapUtils;
+import org.greenrobot.eventbus.CrossProcessEvent;
+import org.greenrobot.eventbus.OverflowPolicy;
+import org.greenrobot.eventbus.PooledEvent;
 import org.greenrobot.eventbus.SubscribeSimple;
 import org.greenrobot.eventbus.Subscribe;
 import org.greenrobot.eventbus.SubscribeMainThread;
@@ -31,12 +36,16 @@ import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Messager;
@@ -46,25 +55,46 @@ import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.type.TypeVariable;
+import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
 
 import de.greenrobot.common.ListMap;
 
 
-@SupportedOptions("moduleName")
+@SupportedOptions({"moduleName", "verbose", "eventBusBatchMainThread", "eventBusCompactIndex", "zeeBinaryIndex", "eventBusPoster",
+        "eventBusMetrics", "eventBusTrace", "eventBusExecutors", "eventBusStreams",
+        "eventBusStickyMaxBytes"})
 @AutoService(Processor.class)
 public class EventBusProcessor extends AbstractProcessor {
     public static final String OPTION_VERBOSE = "verbose";
+    public static final String OPTION_BATCH_MAIN_THREAD = "eventBusBatchMainThread";
+    public static final String OPTION_COMPACT_INDEX = "eventBusCompactIndex";
+    public static final String OPTION_BINARY_INDEX = "zeeBinaryIndex";
+    public static final String OPTION_POSTER = "eventBusPoster";
+    public static final String OPTION_METRICS = "eventBusMetrics";
+    /** android.os.Trace sections around generated subscriber calls; an error where android.os.Trace is missing. */
+    public static final String OPTION_TRACE = "eventBusTrace";
+    /**
+     * Named executors as name:poolSize[:queueCapacity[:overflowPolicy]], e.g. "io:4,cpu:2:256:DROP_OLDEST"; the
+     * work queue holds 1024 tasks and BLOCKs by default.
+     */
+    public static final String OPTION_EXECUTORS = "eventBusExecutors";
+    /** Typed java.util.concurrent.Flow accessors per event type; Java 9+ (the JVM runtime), not Android before API 30. */
+    public static final String OPTION_STREAMS = "eventBusStreams";
+    /** Memory budget of all sticky events in bytes, see Subscribe#stickySizeBytes(); unbounded if not set. */
+    public static final String OPTION_STICKY_MAX_BYTES = "eventBusStickyMaxBytes";
     public static final HashMap<String, String> eventBusHashMap = new HashMap<>();
     public static final String KEY_MODULE_NAME = "moduleName";
     private static final String CLASSNAME = Common.COMMONFILEPR;
@@ -75,11 +105,52 @@ public class EventBusProcessor extends AbstractProcessor {
      */
     private final ListMap<TypeElement, ExecutableElement> methodsByClass = new ListMap<>();
     private final Set<TypeElement> classesToSkip = new HashSet<>();
+    /**
+     * @Subscribe methods with several parameters; SubscriberMethodInfo cannot describe them, so they are only
+     * reachable through the generated multi argument poster.
+     */
+    private final ListMap<TypeElement, ExecutableElement> multiArgMethodsByClass = new ListMap<>();
+    /**
+     * Kotlin suspend @Subscribe methods (trailing Continuation parameter); started as coroutines by the generated
+     * suspend poster.
+     */
+    private final ListMap<TypeElement, ExecutableElement> suspendMethodsByClass = new ListMap<>();
+    /** Constructor call (see joinParts) to the name of its shared SubscriberMethodInfo constant. */
+    private final Map<String, String> sharedMethodInfos = new HashMap<>();
+    /** Id of every indexed method, for {@link #OPTION_METRICS} and {@link #OPTION_TRACE}. */
+    private final Map<ExecutableElement, Integer> methodIds = new HashMap<>();
+    private String indexClassName;
+    /** Named executors of the module, see {@link #collectExecutors}. */
+    private Map<String, String[]> executorSpecs = new TreeMap<>();
 
     private boolean writerRoundDone;
     private int round;
     private boolean verbose;
-
+    private boolean batchMainThread;
+    private boolean compactIndex;
+    private boolean binaryIndex;
+    private boolean poster;
+    private boolean metrics;
+    private boolean trace;
+    private long stickyMaxBytes;
+
+
+    // Record kinds and flags of the compact index encoding
+    private static final char KIND_SUBSCRIBE = 'S';
+    private static final char KIND_MAIN_THREAD = 'M';
+    private static final char KIND_RUN_ONLY_TOP = 'T';
+    private static final char KIND_SIMPLE = 'E';
+    private static final int FLAG_STICKY = 1;
+    private static final int FLAG_FINISH = 2;
+    private static final int FLAG_LIFO = 4;
+    private static final int FLAG_IGNORED_SUBSCRIBER_TAG = 8;
+
+    /** Maximum number of parameters of a @Subscribe method. */
+    private static final int MAX_PARAMETERS = 4;
+    /** Trailing parameter the Kotlin compiler adds to suspend functions; referenced by name only. */
+    private static final String KOTLIN_CONTINUATION = "kotlin.coroutines.Continuation";
+    /** Holds startCoroutine, which the suspend poster calls. */
+    private static final String KOTLIN_CONTINUATION_KT = "kotlin.coroutines.ContinuationKt";
 
     private static final List<Class<? extends Annotation>> LISTENERS = Arrays.asList(
             Subscribe.class,
@@ -88,11 +159,33 @@ public class EventBusProcessor extends AbstractProcessor {
             SubscribeSimple.class
     );
 
+    /**
+     * Delivery order of subscriber methods: higher priority first, lifo before fifo for the same priority, then
+     * grouped by thread mode (priority does not order across thread modes anyway).
+     */
+    private static final Comparator<ExecutableElement> DISPATCH_ORDER = new Comparator<ExecutableElement>() {
+        @Override
+        public int compare(ExecutableElement lhs, ExecutableElement rhs) {
+            int result = compareInt(getPriority(rhs), getPriority(lhs));
+            if (result == 0) {
+                result = compareInt(isLifo(rhs) ? 1 : 0, isLifo(lhs) ? 1 : 0);
+            }
+            if (result == 0) {
+                result = compareInt(getThreadMode(lhs).ordinal(), getThreadMode(rhs).ordinal());
+            }
+            return result;
+        }
+    };
+
     static {
         eventBusHashMap.put("int", "int.class");
         eventBusHashMap.put("boolean", "boolean.class");
         eventBusHashMap.put("float", "float.class");
         eventBusHashMap.put("double", "double.class");
+        eventBusHashMap.put("long", "long.class");
+        eventBusHashMap.put("short", "short.class");
+        eventBusHashMap.put("byte", "byte.class");
+        eventBusHashMap.put("char", "char.class");
     }
 
 
@@ -124,6 +217,21 @@ public class EventBusProcessor extends AbstractProcessor {
             }
 
             verbose = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_VERBOSE));
+            batchMainThread = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_BATCH_MAIN_THREAD));
+            compactIndex = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_COMPACT_INDEX));
+            binaryIndex = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_BINARY_INDEX));
+            poster = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_POSTER));
+            metrics = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_METRICS));
+            trace = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_TRACE));
+            if (trace && processingEnv.getElementUtils().getTypeElement("android.os.Trace") == null) {
+                // The trace sections call android.os.Trace and read Build.VERSION.SDK_INT: Android modules only
+                if (round == 0) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "Option " + OPTION_TRACE
+                            + " needs android.os.Trace on the compile classpath, it is only supported in Android modules");
+                }
+                trace = false;
+            }
+            stickyMaxBytes = parseStickyMaxBytes(processingEnv.getOptions().get(OPTION_STICKY_MAX_BYTES), messager);
             int lastPeriod = index.lastIndexOf('.');
             String indexPackage = lastPeriod != -1 ? index.substring(0, lastPeriod) : null;
 
@@ -149,8 +257,30 @@ public class EventBusProcessor extends AbstractProcessor {
             collectSubscribers(annotations, env, messager);
             checkForSubscribersToSkip(messager, indexPackage);
 
-            if (!methodsByClass.isEmpty()) {
+            if (!methodsByClass.isEmpty() || !multiArgMethodsByClass.isEmpty() || !suspendMethodsByClass.isEmpty()) {
+                indexClassName = index.substring(lastPeriod + 1);
+                computeMethodIds(indexPackage);
+                executorSpecs = collectExecutors(processingEnv.getOptions().get(OPTION_EXECUTORS), messager);
                 createInfoIndexFile(index);
+                if (binaryIndex) {
+                    createBinaryIndexFile(indexPackage);
+                }
+                createEventTypesFile(CLASSNAME + captureName(moduleName) + "$$EventTypes", indexPackage);
+                if (!executorSpecs.isEmpty()) {
+                    createExecutorsFile(CLASSNAME + captureName(moduleName) + "$$Executors", indexPackage, executorSpecs);
+                }
+                if (poster) {
+                    createPosterFile(CLASSNAME + captureName(moduleName) + "$$EventPoster", indexPackage);
+                }
+                if (!multiArgMethodsByClass.isEmpty()) {
+                    createMultiArgPosterFile(CLASSNAME + captureName(moduleName) + "$$MultiArgPoster", indexPackage);
+                }
+                if (Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_STREAMS))) {
+                    createEventStreamsFile(CLASSNAME + captureName(moduleName) + "$$EventStreams", indexPackage);
+                }
+                if (!suspendMethodsByClass.isEmpty()) {
+                    createSuspendPosterFile(CLASSNAME + captureName(moduleName) + "$$SuspendPoster", indexPackage);
+                }
             } else {
                 messager.printMessage(Diagnostic.Kind.WARNING, "No @Subscribe annotations found");
             }
@@ -196,7 +326,13 @@ public class EventBusProcessor extends AbstractProcessor {
                     ExecutableElement method = (ExecutableElement) element;
                     if (checkHasNoErrors(method, messager)) {
                         TypeElement classElement = (TypeElement) method.getEnclosingElement();
-                        methodsByClass.putElement(classElement, method);
+                        if (isSuspend(method)) {
+                            suspendMethodsByClass.putElement(classElement, method);
+                        } else if (method.getParameters().size() > 1) {
+                            multiArgMethodsByClass.putElement(classElement, method);
+                        } else {
+                            methodsByClass.putElement(classElement, method);
+                        }
                     }
                 } else {
                     messager.printMessage(Diagnostic.Kind.ERROR, "@Subscribe is only valid for methods", element);
@@ -223,20 +359,122 @@ public class EventBusProcessor extends AbstractProcessor {
         SubscribeRunOnlyTop subscribeRunOnlyTop = element.getAnnotation(SubscribeRunOnlyTop.class);
         SubscribeSimple subscribeSimple = element.getAnnotation(SubscribeSimple.class);
 
+        Subscribe subscribe = element.getAnnotation(Subscribe.class);
         if (subscribeMainThread != null || subscribeRunOnlyTop != null || subscribeSimple != null) {
             if (parameters.size() > 1) {
-                messager.printMessage(Diagnostic.Kind.ERROR, subscribeMainThread.toString() + " method must have exactly overpressure 1 parameter", element);
+                String annotationName = subscribeMainThread != null ? "@SubscribeMainThread"
+                        : subscribeRunOnlyTop != null ? "@SubscribeRunOnlyTop" : "@SubscribeSimple";
+                messager.printMessage(Diagnostic.Kind.ERROR, annotationName + " method must have at most 1 parameter", element);
+                return false;
+            }
+        } else if (isSuspend(element)) {
+            if (parameters.size() != 2) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Suspend subscriber method must have exactly 1 event parameter", element);
+                return false;
+            }
+            if (subscribe.threadMode() != ThreadMode.POSTING || subscribe.sticky()) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Suspend subscriber methods run on the coroutine context of "
+                        + "the suspend poster, so they must use ThreadMode.POSTING and must not be sticky", element);
                 return false;
             }
         } else {
-            if (parameters.size() != 1) {
-                messager.printMessage(Diagnostic.Kind.ERROR, "Subscriber method must have exactly 1 parameter", element);
+            if (parameters.isEmpty() || parameters.size() > MAX_PARAMETERS) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Subscriber method must have 1 to " + MAX_PARAMETERS + " parameters", element);
+                return false;
+            }
+            if (parameters.size() > 1 && (subscribe.threadMode() != ThreadMode.POSTING || subscribe.sticky())) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "Subscriber methods with several parameters must use ThreadMode.POSTING and must not be sticky", element);
+                return false;
+            }
+        }
+
+        if (subscribe != null && isCoalesce(element) && subscribe.threadMode() == ThreadMode.POSTING) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "coalesce needs a thread mode that queues deliveries, not POSTING", element);
+            return false;
+        }
+        if (!getMerge(element).isEmpty() && getMergeMethod(element) == null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "merge " + getMerge(element) + " must name a public, non static "
+                    + "method of the subscriber class taking the queued and the newer event and returning the event", element);
+            return false;
+        }
+        int queueCapacity = getQueueCapacity(element);
+        if (queueCapacity < 0) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "queueCapacity must not be negative", element);
+            return false;
+        }
+        ThreadMode threadMode = getThreadMode(element);
+        if (queueCapacity > 0 && threadMode != ThreadMode.BACKGROUND && threadMode != ThreadMode.ASYNC) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "queueCapacity is only valid for BACKGROUND and ASYNC subscribers", element);
+            return false;
+        }
+        if (queueCapacity > 0 && (isCoalesce(element)
+                || (subscribe != null && (subscribe.striped() || !subscribe.stripeKey().isEmpty())))) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "queueCapacity cannot be combined with coalesce, merge or "
+                    + "striped: a coalescing method queues one delivery at most, a striped one has a queue per lane", element);
+            return false;
+        }
+        if (!getExecutor(element).isEmpty() && threadMode != ThreadMode.ASYNC) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "executor is only valid for ASYNC subscribers", element);
+            return false;
+        }
+        if (isPooledEvent(parameters) && (threadMode != ThreadMode.POSTING || isSuspend(element)
+                || (subscribe != null && subscribe.sticky()) || (subscribeMainThread != null && subscribeMainThread.sticky()))) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@PooledEvent events go back to their pool when post() returns, "
+                    + "so their subscribers must use ThreadMode.POSTING, must not be sticky and must not suspend", element);
+            return false;
+        }
+        if (subscribe != null && subscribe.persist()) {
+            if (!subscribe.sticky()) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "persist is only valid for sticky subscribers", element);
+                return false;
+            }
+            Element eventElement = processingEnv.getTypeUtils().asElement(parameters.get(0).asType());
+            if (eventElement == null || eventElement.getAnnotation(CrossProcessEvent.class) == null) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "persist needs a @CrossProcessEvent event class, its generated codec writes the event", element);
+                return false;
+            }
+        }
+        if (subscribe != null && (subscribe.stickyMaxAgeMillis() != 0 || subscribe.stickySizeBytes() != 0)) {
+            if (!subscribe.sticky()) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "stickyMaxAgeMillis and stickySizeBytes are only valid for sticky subscribers", element);
+                return false;
+            }
+            if (subscribe.stickyMaxAgeMillis() < 0 || subscribe.stickySizeBytes() < 0) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "stickyMaxAgeMillis and stickySizeBytes must not be negative", element);
+                return false;
+            }
+        }
+        if (subscribe != null && (subscribe.striped() || !subscribe.stripeKey().isEmpty())) {
+            if (threadMode != ThreadMode.BACKGROUND) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "striped is only valid for BACKGROUND subscribers", element);
+                return false;
+            }
+            if (!subscribe.stripeKey().isEmpty() && getStripeKeyAccessor(element) == null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "stripeKey " + subscribe.stripeKey()
+                        + " must name a public, non static method of the event without parameters and with a result", element);
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * @return true if a parameter type is annotated with @PooledEvent
+     */
+    private boolean isPooledEvent(List<? extends VariableElement> parameters) {
+        for (VariableElement parameter : parameters) {
+            Element parameterElement = processingEnv.getTypeUtils().asElement(parameter.asType());
+            if (parameterElement != null && parameterElement.getAnnotation(PooledEvent.class) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Subscriber classes should be skipped if their class or any involved event class are not visible to the index.
      */
@@ -376,78 +614,119 @@ public class EventBusProcessor extends AbstractProcessor {
         for (ExecutableElement method : methods) {
             List<? extends VariableElement> parameters = method.getParameters();
             String methodName = method.getSimpleName().toString();
+            String eventClass = getEventClass(method, myPackage);
+            if (eventClass == null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "method :" + methodName + " parameter type:" + parameters.get(0).asType() + " is nor support", method);
+            }
+            if (verbose && !parameters.isEmpty()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Indexed @Subscribe at " +
+                        method.getEnclosingElement().getSimpleName() + "." + methodName +
+                        "(" + parameters.get(0).asType() + ")");
+            }
 
-            Subscribe subscribe = method.getAnnotation(Subscribe.class);
-            if (subscribe != null) {
-                TypeMirror paramType = getParamTypeMirror(parameters.get(0), null);
-                TypeElement paramElement = (TypeElement) processingEnv.getTypeUtils().asElement(paramType);
-                String eventClass = getClassString(paramElement, myPackage) + ".class";
-                initSubscribe(writer, callPrefix, methodName, eventClass, subscribe);
-                if (verbose) {
-                    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Indexed @Subscribe at " +
-                            method.getEnclosingElement().getSimpleName() + "." + methodName +
-                            "(" + paramElement.getSimpleName() + ")");
-                }
+            List<String> parts = getSubscriberMethodParts(method, callPrefix, eventClass);
+            String sharedName = sharedMethodInfos.get(joinParts(parts));
+            if (sharedName != null) {
+                writeLine(writer, 3, sharedName + ",");
             } else {
-                SubscribeMainThread mainSubscribe = method.getAnnotation(SubscribeMainThread.class);
-                SubscribeRunOnlyTop runOnlyTop = method.getAnnotation(SubscribeRunOnlyTop.class);
-                SubscribeSimple subscribeSimple = method.getAnnotation(SubscribeSimple.class);
-                String paramClassName = "EmptyEventBusType.class";
-
-                if (parameters != null && parameters.size() == 1) {
-                    TypeMirror paramType = getParamTypeMirror(parameters.get(0), null);
-                    TypeElement paramElement = (TypeElement) processingEnv.getTypeUtils().asElement(paramType);
-
-                    if (paramElement != null) {
-                        paramClassName = getClassString(paramElement, myPackage) + ".class";
-                    } else {
-                        paramClassName = eventBusHashMap.get(paramType.toString());
-                        if (paramClassName == null) {
-                            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "method :" + methodName + " parameter type:" + paramType + " is nor support", method);
-                        }
-                    }
+                writeLine(writer, 3, parts.toArray(new String[parts.size()]));
+            }
+        }
+    }
 
-                    if (verbose) {
-                        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Indexed @Subscribe at " +
-                                method.getEnclosingElement().getSimpleName() + "." + methodName +
-                                "(" + paramElement.getSimpleName() + ")");
-                    }
-                }
+    private List<String> getSubscriberMethodParts(ExecutableElement method, String callPrefix, String eventClass) {
+        String methodName = method.getSimpleName().toString();
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        SubscribeMainThread mainSubscribe = method.getAnnotation(SubscribeMainThread.class);
+        SubscribeRunOnlyTop runOnlyTop = method.getAnnotation(SubscribeRunOnlyTop.class);
+        SubscribeSimple subscribeSimple = method.getAnnotation(SubscribeSimple.class);
+        if (subscribe != null) {
+            return initSubscribe(callPrefix, methodName, eventClass, subscribe);
+        } else if (mainSubscribe != null) {
+            return initSubscribeMainThread(callPrefix, methodName, eventClass, mainSubscribe);
+        } else if (runOnlyTop != null) {
+            return initSubscriberunOnlyTop(callPrefix, methodName, eventClass, runOnlyTop);
+        } else {
+            return initSubscribeSimple(callPrefix, methodName, eventClass, subscribeSimple);
+        }
+    }
 
-                if (mainSubscribe != null) {
-                    initSubscribeMainThread(writer, callPrefix, methodName, paramClassName, mainSubscribe);
-                } else if (runOnlyTop != null) {
-                    initSubscriberunOnlyTop(writer, callPrefix, methodName, paramClassName, runOnlyTop);
-                } else if (subscribeSimple != null) {
-                    initSubscribeSimple(writer, callPrefix, methodName, paramClassName, subscribeSimple);
+    private static String joinParts(List<String> parts) {
+        StringBuilder builder = new StringBuilder();
+        for (String part : parts) {
+            builder.append(part).append(' ');
+        }
+        return builder.toString();
+    }
 
+    /**
+     * Many subscribers declare the very same descriptor (e.g. onEvent(LoginEvent) on MAIN with priority 0).
+     * Descriptors used more than once are written as shared constants, so the index holds a single
+     * SubscriberMethodInfo (and its strings) for all of them.
+     */
+    private void writeSharedMethodInfos(BufferedWriter writer, String myPackage) throws IOException {
+        sharedMethodInfos.clear();
+        Map<String, Integer> useCounts = new HashMap<>();
+        List<List<String>> descriptors = new ArrayList<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : methodsByClass.get(subscriberTypeElement)) {
+                String eventClass = getEventClass(method, myPackage);
+                if (eventClass == null) {
+                    continue;
                 }
+                List<String> parts = getSubscriberMethodParts(method, "new SubscriberMethodInfo", eventClass);
+                String key = joinParts(parts);
+                Integer count = useCounts.get(key);
+                if (count == null) {
+                    descriptors.add(parts);
+                    count = 0;
+                }
+                useCounts.put(key, count + 1);
             }
+        }
 
-//            String eventClass = "";
-//
-//
-//            SubscribeMainThread mainSubscribe = method.getAnnotation(SubscribeMainThread.class);
-//            SubscribeRunOnlyTop runOnlyTop = method.getAnnotation(SubscribeRunOnlyTop.class);
-//            if (subscribe != null) {
-//                initSubscribe(writer, callPrefix, methodName, eventClass, subscribe);
-//            } else if (mainSubscribe != null) {
-//                initSubscribeMainThread(writer, callPrefix, methodName, eventClass, mainSubscribe);
-//            } else if (runOnlyTop != null) {
-//                initSubscriberunOnlyTop(writer, callPrefix, methodName, eventClass, runOnlyTop);
-//            }
-//            if (verbose) {
-//                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Indexed @Subscribe at " +
-//                        method.getEnclosingElement().getSimpleName() + "." + methodName +
-//                        "(" + paramElement.getSimpleName() + ")");
-//            }
+        for (List<String> parts : descriptors) {
+            String key = joinParts(parts);
+            if (useCounts.get(key) < 2) {
+                continue;
+            }
+            String sharedName = "SHARED_METHOD_" + sharedMethodInfos.size();
+            sharedMethodInfos.put(key, sharedName);
+            List<String> declaration = new ArrayList<>();
+            declaration.add("private static final SubscriberMethodInfo " + sharedName + " =");
+            declaration.addAll(parts);
+            String lineEnd = declaration.remove(declaration.size() - 1);
+            declaration.add(lineEnd.substring(0, lineEnd.length() - 1) + ";");
+            writeLine(writer, 1, declaration.toArray(new String[declaration.size()]));
+        }
+        if (!sharedMethodInfos.isEmpty()) {
+            writer.write("\n");
+        }
+    }
 
+    /**
+     * @return the class literal used as event type of the method in the index (EmptyEventBusType.class for methods
+     * without parameter), or null if the parameter type is not supported
+     */
+    private String getEventClass(ExecutableElement method, String myPackage) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (parameters.isEmpty()) {
+            return "EmptyEventBusType.class";
+        }
+        TypeMirror paramType = getParamTypeMirror(parameters.get(0), null);
+        TypeElement paramElement = (TypeElement) processingEnv.getTypeUtils().asElement(paramType);
+        if (paramElement != null) {
+            return getClassString(paramElement, myPackage) + ".class";
         }
+        return eventBusHashMap.get(paramType.toString());
     }
 
 
     //SubscribeMainThread专用
-    private void initSubscribeSimple(BufferedWriter writer, String callPrefix, String methodName, String paramClassName, SubscribeSimple subscribeSimple) throws IOException {
+    private List<String> initSubscribeSimple(String callPrefix, String methodName, String paramClassName, SubscribeSimple subscribeSimple) {
         List<String> parts = new ArrayList<>();
         parts.add(callPrefix + "(\"" + methodName + "\",");
 
@@ -465,12 +744,12 @@ public class EventBusProcessor extends AbstractProcessor {
 
 
         parts.add(lineEnd);
-        writeLine(writer, 3, parts.toArray(new String[parts.size()]));
+        return parts;
     }
 
 
     //SubscribeMainThread专用
-    private void initSubscribeMainThread(BufferedWriter writer, String callPrefix, String methodName, String paramClassName, SubscribeMainThread mainsubscribe) throws IOException {
+    private List<String> initSubscribeMainThread(String callPrefix, String methodName, String paramClassName, SubscribeMainThread mainsubscribe) {
         List<String> parts = new ArrayList<>();
         parts.add(callPrefix + "(\"" + methodName + "\",");
 
@@ -503,10 +782,10 @@ public class EventBusProcessor extends AbstractProcessor {
         }
 
         parts.add(lineEnd);
-        writeLine(writer, 3, parts.toArray(new String[parts.size()]));
+        return parts;
     }
 
-    private void initSubscriberunOnlyTop(BufferedWriter writer, String callPrefix, String methodName, String paramClassName, SubscribeRunOnlyTop runOnlyTop) throws IOException {
+    private List<String> initSubscriberunOnlyTop(String callPrefix, String methodName, String paramClassName, SubscribeRunOnlyTop runOnlyTop) {
         List<String> parts = new ArrayList<>();
         parts.add(callPrefix + "(\"" + methodName + "\",");
 
@@ -516,17 +795,17 @@ public class EventBusProcessor extends AbstractProcessor {
         String tag = runOnlyTop.tag();
 
         if (tag.equals("")) {
-            tag = "\"\",";
+            tag = "\"\"";
             parts.add(tag);
         } else {
             String info = "\"" + tag + "\"";
             parts.add(info);
         }
         parts.add(lineEnd);
-        writeLine(writer, 3, parts.toArray(new String[parts.size()]));
+        return parts;
     }
 
-    private void initSubscribe(BufferedWriter writer, String callPrefix, String methodName, String eventClass, Subscribe subscribe) throws IOException {
+    private List<String> initSubscribe(String callPrefix, String methodName, String eventClass, Subscribe subscribe) {
         List<String> parts = new ArrayList<>();
         parts.add(callPrefix + "(\"" + methodName + "\",");
         String lineEnd = "),";
@@ -543,7 +822,7 @@ public class EventBusProcessor extends AbstractProcessor {
             parts.add(subscribe.priority() + ",");
             parts.add(subscribe.sticky() + lineEnd);
         }
-        writeLine(writer, 3, parts.toArray(new String[parts.size()]));
+        return parts;
     }
 
     private void createInfoIndexFile(String index) {
@@ -553,6 +832,7 @@ public class EventBusProcessor extends AbstractProcessor {
             int period = index.lastIndexOf('.');
             String myPackage = period > 0 ? index.substring(0, period) : null;
             String clazz = index.substring(period + 1);
+            List<TypeElement> persistentStickyTypes = collectPersistentStickyTypes(myPackage);
             writer = new BufferedWriter(sourceFile.openWriter());
             if (myPackage != null) {
                 writer.write("package " + myPackage + ";\n\n");
@@ -562,29 +842,67 @@ public class EventBusProcessor extends AbstractProcessor {
             writer.write("import org.greenrobot.eventbus.meta.SubscriberInfo;\n");
             writer.write("import org.greenrobot.eventbus.meta.EmptyEventBusType;\n");
             writer.write("import org.greenrobot.eventbus.interfaces.SubscriberInfoIndex;\n\n");
-            writer.write("import org.greenrobot.eventbus.ThreadMode;\n\n");
+            writer.write("import org.greenrobot.eventbus.ThreadMode;\n");
+            writer.write("import org.greenrobot.eventbus.OverflowPolicy;\n\n");
             writer.write("import org.greenrobot.eventbus.DispenseOrder;\n\n");
+            if (!persistentStickyTypes.isEmpty()) {
+                writer.write("import org.greenrobot.eventbus.crossprocess.EventCodec;\n\n");
+            }
             writer.write("import java.util.HashMap;\n");
-            writer.write("import java.util.Map;\n\n");
+            writer.write("import java.util.IdentityHashMap;\n");
+            writer.write("import java.util.Map;\n");
+            if (metrics) {
+                writer.write("import java.util.concurrent.atomic.AtomicLongArray;\n");
+            }
+            if (compactIndex) {
+                writer.write("import java.util.concurrent.ConcurrentHashMap;\n");
+                writer.write("import java.util.concurrent.atomic.AtomicReferenceArray;\n");
+            }
+            writer.write("\n");
             writer.write("/** This class is generated by EventBus, do not edit. */\n");
             writer.write("public class " + clazz + " implements SubscriberInfoIndex {\n");
-            writer.write("    private static final Map<Class<?>, SubscriberInfo> SUBSCRIBER_INDEX;\n\n");
-            writer.write("    static {\n");
-            writer.write("        SUBSCRIBER_INDEX = new HashMap<Class<?>, SubscriberInfo>();\n\n");
-            writeIndexLines(writer, myPackage);
-            writer.write("    }\n\n");
-            writer.write("    private static void putIndex(SubscriberInfo info) {\n");
-            writer.write("        SUBSCRIBER_INDEX.put(info.getSubscriberClass(), info);\n");
-            writer.write("    }\n\n");
-            writer.write("    @Override\n");
-            writer.write("    public SubscriberInfo getSubscriberInfo(Class<?> subscriberClass) {\n");
-            writer.write("        SubscriberInfo info = SUBSCRIBER_INDEX.get(subscriberClass);\n");
-            writer.write("        if (info != null) {\n");
-            writer.write("            return info;\n");
-            writer.write("        } else {\n");
-            writer.write("            return null;\n");
-            writer.write("        }\n");
-            writer.write("    }\n");
+            if (compactIndex) {
+                writeCompactIndex(writer, myPackage);
+            } else {
+                writer.write("    private static final Map<Class<?>, SubscriberInfo> SUBSCRIBER_INDEX;\n");
+                writer.write("    private static final Map<Class<?>, int[]> DISPATCH_RANKS = new HashMap<Class<?>, int[]>();\n\n");
+                writeSharedMethodInfos(writer, myPackage);
+                writer.write("    static {\n");
+                writer.write("        SUBSCRIBER_INDEX = new HashMap<Class<?>, SubscriberInfo>();\n\n");
+                writeIndexLines(writer, myPackage);
+                writer.write("    }\n\n");
+                writer.write("    private static void putIndex(SubscriberInfo info) {\n");
+                writer.write("        SUBSCRIBER_INDEX.put(info.getSubscriberClass(), info);\n");
+                writer.write("    }\n\n");
+                writer.write("    @Override\n");
+                writer.write("    public SubscriberInfo getSubscriberInfo(Class<?> subscriberClass) {\n");
+                writer.write("        SubscriberInfo info = SUBSCRIBER_INDEX.get(subscriberClass);\n");
+                writer.write("        if (info != null) {\n");
+                writer.write("            return info;\n");
+                writer.write("        } else {\n");
+                writer.write("            return null;\n");
+                writer.write("        }\n");
+                writer.write("    }\n\n");
+                writeDispatchRanksDoc(writer);
+                writer.write("    public static int[] getDispatchRanks(Class<?> subscriberClass) {\n");
+                writer.write("        return DISPATCH_RANKS.get(subscriberClass);\n");
+                writer.write("    }\n");
+            }
+            writeThreadModeBuckets(writer, myPackage);
+            writeStickySlots(writer, myPackage);
+            if (!persistentStickyTypes.isEmpty()) {
+                writePersistentCodecs(writer, persistentStickyTypes);
+            }
+            writeStickyLimits(writer, myPackage);
+            writeDeliveryOptions(writer, myPackage);
+            writeCapacityHints(writer, myPackage);
+            writePrimitiveDispatchers(writer, myPackage);
+            if (metrics) {
+                writeMetrics(writer, myPackage);
+            }
+            if (trace) {
+                writeTraceSections(writer);
+            }
             writer.write("}\n");
         } catch (IOException e) {
             throw new RuntimeException("Could not write source for " + index, e);
@@ -599,81 +917,2236 @@ public class EventBusProcessor extends AbstractProcessor {
         }
     }
 
-    private void writeIndexLines(BufferedWriter writer, String myPackage) throws IOException {
+    private void writeDispatchRanksDoc(BufferedWriter writer) throws IOException {
+        writer.write("    /**\n");
+        writer.write("     * Subscriber methods of each class are already sorted by priority and lifo. The returned ranks are aligned\n");
+        writer.write("     * with the SubscriberMethodInfo array; a lower rank is delivered first among all subscribers of that event\n");
+        writer.write("     * type, equal ranks tie. Registration can merge these runs instead of sorting.\n");
+        writer.write("     */\n");
+    }
+
+    /**
+     * Compact variant of the index: instead of one constructor call per subscriber method, each subscriber class
+     * is described by a single encoded string that is decoded on the first getSubscriberInfo() for that class.
+     * This keeps the constant pool and the static initializer small for indexes with many subscribers. Decoding
+     * takes no lock: the decoded class is published with a compare-and-set, so concurrent register() calls never
+     * wait on each other, and a class decoded twice by a race keeps the first result.
+     * <p>
+     * Encoding per class: the class tag followed by one record per method, records separated by RS (\\36), fields
+     * by US (\\37): kind, method name, event type index, thread mode ordinal, priority, flags, dispatch rank, tag.
+     */
+    private void writeCompactIndex(BufferedWriter writer, String myPackage) throws IOException {
+        Map<ExecutableElement, Integer> dispatchRanks = computeDispatchRanks(myPackage);
+        List<String> subscriberClasses = new ArrayList<>();
+        List<String> encodedClasses = new ArrayList<>();
+        List<String> eventTypes = new ArrayList<>();
         for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
-            if (classesToSkip.contains(subscriberTypeElement)) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
                 continue;
             }
-            String subscriberClass = getClassString(subscriberTypeElement, myPackage);
-            if (isVisible(myPackage, subscriberTypeElement)) {
-                writeLine(writer, 2,
-                        "putIndex(new SimpleSubscriberInfo(" + subscriberClass + ".class,",
-                        "true,", "new SubscriberMethodInfo[] {");
-                List<ExecutableElement> methods = methodsByClass.get(subscriberTypeElement);
-
-                SubscribeTag page = subscriberTypeElement.getAnnotation(SubscribeTag.class);
-                String infor = "";
-                if (page != null) {
-                    infor = page.tag();
+            SubscribeTag page = subscriberTypeElement.getAnnotation(SubscribeTag.class);
+            StringBuilder encoded = new StringBuilder(page != null ? page.tag() : "");
+            for (ExecutableElement method : getSortedMethods(subscriberTypeElement)) {
+                String eventClass = getEventClass(method, myPackage);
+                if (eventClass == null) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "method :" + method.getSimpleName() + " parameter type:" + method.getParameters().get(0).asType() + " is nor support", method);
+                    continue;
                 }
-                writeCreateSubscriberMethods(writer, methods, "new SubscriberMethodInfo", myPackage);
-                writer.write("        },\"" + infor + "\"));\n\n");
-            } else {
-                writer.write("        // Subscriber not visible to index: " + subscriberClass + "\n");
+                int eventTypeIndex = eventTypes.indexOf(eventClass);
+                if (eventTypeIndex < 0) {
+                    eventTypeIndex = eventTypes.size();
+                    eventTypes.add(eventClass);
+                }
+                encoded.append('\36');
+                encodeMethod(encoded, method, eventTypeIndex, dispatchRanks.get(method));
             }
+            subscriberClasses.add(getClassString(subscriberTypeElement, myPackage) + ".class");
+            encodedClasses.add(encoded.toString());
+        }
+
+        writer.write("    private static final char RECORD_SEPARATOR = '\\36';\n");
+        writer.write("    private static final char FIELD_SEPARATOR = '\\37';\n\n");
+        writer.write("    private static final Class<?>[] SUBSCRIBER_CLASSES = new Class<?>[] {\n");
+        for (String subscriberClass : subscriberClasses) {
+            writer.write("            " + subscriberClass + ",\n");
+        }
+        writer.write("    };\n");
+        writer.write("    private static final Class<?>[] EVENT_TYPES = new Class<?>[] {\n");
+        for (String eventClass : eventTypes) {
+            writer.write("            " + eventClass + ",\n");
+        }
+        writer.write("    };\n");
+        writer.write("    private static final String[] ENCODED_SUBSCRIBERS = new String[] {\n");
+        for (String encoded : encodedClasses) {
+            writer.write("            \"" + escapeJavaString(encoded) + "\",\n");
         }
+        writer.write("    };\n\n");
+        writer.write("    private static final AtomicReferenceArray<Decoded> DECODED = new AtomicReferenceArray<Decoded>(SUBSCRIBER_CLASSES.length);\n");
+        writer.write("    // Identical records decode to one shared SubscriberMethodInfo\n");
+        writer.write("    private static final ConcurrentHashMap<String, SubscriberMethodInfo> DECODED_METHODS = new ConcurrentHashMap<String, SubscriberMethodInfo>();\n\n");
+
+        writer.write("    /** Holder class, so the class index is only initialized when first used; read-only afterwards. */\n");
+        writer.write("    private static final class SubscriberClassIndex {\n");
+        writer.write("        static final Map<Class<?>, Integer> INDEX = new HashMap<Class<?>, Integer>(SUBSCRIBER_CLASSES.length * 2);\n\n");
+        writer.write("        static {\n");
+        writer.write("            for (int i = 0; i < SUBSCRIBER_CLASSES.length; i++) {\n");
+        writer.write("                INDEX.put(SUBSCRIBER_CLASSES[i], i);\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
+        writer.write("    }\n\n");
+
+        writer.write("    private static final class Decoded {\n");
+        writer.write("        final SubscriberInfo info;\n");
+        writer.write("        final int[] ranks;\n\n");
+        writer.write("        Decoded(SubscriberInfo info, int[] ranks) {\n");
+        writer.write("            this.info = info;\n");
+        writer.write("            this.ranks = ranks;\n");
+        writer.write("        }\n");
+        writer.write("    }\n\n");
+
+        writer.write("    @Override\n");
+        writer.write("    public SubscriberInfo getSubscriberInfo(Class<?> subscriberClass) {\n");
+        writer.write("        Decoded decoded = decode(subscriberClass);\n");
+        writer.write("        return decoded != null ? decoded.info : null;\n");
+        writer.write("    }\n\n");
+        writeDispatchRanksDoc(writer);
+        writer.write("    public static int[] getDispatchRanks(Class<?> subscriberClass) {\n");
+        writer.write("        Decoded decoded = decode(subscriberClass);\n");
+        writer.write("        return decoded != null ? decoded.ranks : null;\n");
+        writer.write("    }\n\n");
+
+        writer.write("    private static Decoded decode(Class<?> subscriberClass) {\n");
+        writer.write("        Integer index = SubscriberClassIndex.INDEX.get(subscriberClass);\n");
+        writer.write("        if (index == null) {\n");
+        writer.write("            return null;\n");
+        writer.write("        }\n");
+        writer.write("        Decoded decoded = DECODED.get(index);\n");
+        writer.write("        if (decoded == null) {\n");
+        writer.write("            String[] records = split(ENCODED_SUBSCRIBERS[index], RECORD_SEPARATOR);\n");
+        writer.write("            SubscriberMethodInfo[] methods = new SubscriberMethodInfo[records.length - 1];\n");
+        writer.write("            int[] ranks = new int[methods.length];\n");
+        writer.write("            ThreadMode[] threadModes = ThreadMode.values();\n");
+        writer.write("            for (int i = 0; i < methods.length; i++) {\n");
+        writer.write("                String[] fields = split(records[i + 1], FIELD_SEPARATOR);\n");
+        writer.write("                ranks[i] = Integer.parseInt(fields[6]);\n");
+        writer.write("                methods[i] = DECODED_METHODS.get(records[i + 1]);\n");
+        writer.write("                if (methods[i] != null) {\n");
+        writer.write("                    continue;\n");
+        writer.write("                }\n");
+        writer.write("                String methodName = fields[1];\n");
+        writer.write("                Class<?> eventType = EVENT_TYPES[Integer.parseInt(fields[2])];\n");
+        writer.write("                ThreadMode threadMode = threadModes[Integer.parseInt(fields[3])];\n");
+        writer.write("                int priority = Integer.parseInt(fields[4]);\n");
+        writer.write("                int flags = Integer.parseInt(fields[5]);\n");
+        writer.write("                String tag = fields[7];\n");
+        writer.write("                switch (fields[0].charAt(0)) {\n");
+        writer.write("                    case '" + KIND_SUBSCRIBE + "':\n");
+        writer.write("                        methods[i] = new SubscriberMethodInfo(methodName, eventType, threadMode, priority,\n");
+        writer.write("                                (flags & " + FLAG_STICKY + ") != 0);\n");
+        writer.write("                        break;\n");
+        writer.write("                    case '" + KIND_MAIN_THREAD + "':\n");
+        writer.write("                        methods[i] = new SubscriberMethodInfo(methodName, eventType, priority, (flags & " + FLAG_STICKY + ") != 0,\n");
+        writer.write("                                tag, (flags & " + FLAG_FINISH + ") != 0, (flags & " + FLAG_LIFO + ") != 0, (flags & " + FLAG_IGNORED_SUBSCRIBER_TAG + ") != 0);\n");
+        writer.write("                        break;\n");
+        writer.write("                    case '" + KIND_RUN_ONLY_TOP + "':\n");
+        writer.write("                        methods[i] = new SubscriberMethodInfo(methodName, eventType, threadMode, tag);\n");
+        writer.write("                        break;\n");
+        writer.write("                    default:\n");
+        writer.write("                        methods[i] = new SubscriberMethodInfo(methodName, eventType, tag);\n");
+        writer.write("                        break;\n");
+        writer.write("                }\n");
+        writer.write("                SubscriberMethodInfo shared = DECODED_METHODS.putIfAbsent(records[i + 1], methods[i]);\n");
+        writer.write("                if (shared != null) {\n");
+        writer.write("                    methods[i] = shared;\n");
+        writer.write("                }\n");
+        writer.write("            }\n");
+        writer.write("            SubscriberInfo info = new SimpleSubscriberInfo(SUBSCRIBER_CLASSES[index], true, methods, records[0]);\n");
+        writer.write("            // A racing thread may have published its result first; all callers use the published one\n");
+        writer.write("            DECODED.compareAndSet(index, null, new Decoded(info, ranks));\n");
+        writer.write("            decoded = DECODED.get(index);\n");
+        writer.write("        }\n");
+        writer.write("        return decoded;\n");
+        writer.write("    }\n\n");
+
+        writer.write("    private static String[] split(String value, char separator) {\n");
+        writer.write("        int count = 1;\n");
+        writer.write("        for (int i = 0; i < value.length(); i++) {\n");
+        writer.write("            if (value.charAt(i) == separator) {\n");
+        writer.write("                count++;\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
+        writer.write("        String[] parts = new String[count];\n");
+        writer.write("        int start = 0;\n");
+        writer.write("        for (int i = 0; i < count; i++) {\n");
+        writer.write("            int end = value.indexOf(separator, start);\n");
+        writer.write("            if (end < 0) {\n");
+        writer.write("                end = value.length();\n");
+        writer.write("            }\n");
+        writer.write("            parts[i] = value.substring(start, end);\n");
+        writer.write("            start = end + 1;\n");
+        writer.write("        }\n");
+        writer.write("        return parts;\n");
+        writer.write("    }\n");
     }
 
-    private boolean isVisible(String myPackage, TypeElement typeElement) {
-        Set<Modifier> modifiers = typeElement.getModifiers();
-        boolean visible;
-        if (modifiers.contains(Modifier.PUBLIC)) {
-            visible = true;
-        } else if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.PROTECTED)) {
-            visible = false;
-        } else {
-            String subscriberPackage = getPackageElement(typeElement).getQualifiedName().toString();
-            if (myPackage == null) {
-                visible = subscriberPackage.length() == 0;
-            } else {
-                visible = myPackage.equals(subscriberPackage);
+    private void encodeMethod(StringBuilder encoded, ExecutableElement method, int eventTypeIndex, int rank) {
+        encoded.append(getMethodKind(method)).append('\37')
+                .append(method.getSimpleName()).append('\37')
+                .append(eventTypeIndex).append('\37')
+                .append(getThreadMode(method).ordinal()).append('\37')
+                .append(getPriority(method)).append('\37')
+                .append(getMethodFlags(method)).append('\37')
+                .append(rank).append('\37')
+                .append(getMethodTag(method));
+    }
+
+    /**
+     * Writes META-INF/zee/&lt;module&gt;.eventbus.idx. Each entry is keyed by the binary name of the subscriber class;
+     * fields: class tag, method count and per method kind, name, event type name, thread mode ordinal, priority,
+     * flags, dispatch rank and tag (strings as string table indexes).
+     */
+    private void createBinaryIndexFile(String myPackage) {
+        Map<ExecutableElement, Integer> dispatchRanks = computeDispatchRanks(myPackage);
+        BinaryIndexWriter binaryIndex = new BinaryIndexWriter(BinaryIndexReader.KIND_SUBSCRIBERS);
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            SubscribeTag page = subscriberTypeElement.getAnnotation(SubscribeTag.class);
+            List<ExecutableElement> methods = getSortedMethods(subscriberTypeElement);
+            List<Integer> fields = new ArrayList<>();
+            fields.add(binaryIndex.string(page != null ? page.tag() : ""));
+            fields.add(methods.size());
+            for (ExecutableElement method : methods) {
+                fields.add((int) getMethodKind(method));
+                fields.add(binaryIndex.string(method.getSimpleName().toString()));
+                fields.add(binaryIndex.string(getEventTypeName(method)));
+                fields.add(getThreadMode(method).ordinal());
+                fields.add(getPriority(method));
+                fields.add(getMethodFlags(method));
+                fields.add(dispatchRanks.get(method));
+                fields.add(binaryIndex.string(getMethodTag(method)));
             }
+            binaryIndex.addEntry(processingEnv.getElementUtils().getBinaryName(subscriberTypeElement).toString(), fields);
         }
-        return visible;
+        binaryIndex.writeTo(processingEnv.getFiler(), BinaryIndexReader.getResourceName(moduleName, "eventbus"));
     }
 
-    private void writeLine(BufferedWriter writer, int indentLevel, String... parts) throws IOException {
-        writeLine(writer, indentLevel, 2, parts);
+    /**
+     * Writes the event type registry: every event type of an indexed subscriber method gets a dense int id, sorted
+     * by name so ids stay stable between builds. The runtime can keep per event type state in arrays indexed by id
+     * instead of Class keyed maps.
+     */
+    private void createEventTypesFile(String eventTypesClassName, String myPackage) {
+        List<String> eventClasses = new ArrayList<>(collectMethodsByEventType(myPackage).keySet());
+        Collections.sort(eventClasses);
+
+        BufferedWriter writer = null;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(eventTypesClassName);
+            int period = eventTypesClassName.lastIndexOf('.');
+            String clazz = eventTypesClassName.substring(period + 1);
+            writer = new BufferedWriter(sourceFile.openWriter());
+            if (myPackage != null) {
+                writer.write("package " + myPackage + ";\n\n");
+            }
+            writer.write("import org.greenrobot.eventbus.meta.EmptyEventBusType;\n\n");
+            writer.write("import java.util.HashMap;\n");
+            writer.write("import java.util.Map;\n\n");
+            writer.write("/** This class is generated by EventBus, do not edit. */\n");
+            writer.write("public final class " + clazz + " {\n");
+            Set<String> constantNames = new HashSet<>(Arrays.asList("EVENT_TYPES", "EVENT_TYPE_IDS"));
+            for (int i = 0; i < eventClasses.size(); i++) {
+                String eventClass = eventClasses.get(i);
+                String eventName = eventClass.substring(0, eventClass.length() - ".class".length());
+                String constantName = toConstantName(eventName.substring(eventName.lastIndexOf('.') + 1));
+                if (!constantNames.add(constantName)) {
+                    constantName = toConstantName(eventName.replace('.', '_'));
+                    constantNames.add(constantName);
+                }
+                writer.write("    public static final int " + constantName + " = " + i + ";\n");
+            }
+            writer.write("\n");
+            writer.write("    private static final Class<?>[] EVENT_TYPES = new Class<?>[] {\n");
+            for (String eventClass : eventClasses) {
+                writer.write("            " + eventClass + ",\n");
+            }
+            writer.write("    };\n");
+            writer.write("    private static final Map<Class<?>, Integer> EVENT_TYPE_IDS = new HashMap<Class<?>, Integer>(EVENT_TYPES.length * 2);\n\n");
+            writer.write("    static {\n");
+            writer.write("        for (int i = 0; i < EVENT_TYPES.length; i++) {\n");
+            writer.write("            EVENT_TYPE_IDS.put(EVENT_TYPES[i], i);\n");
+            writer.write("        }\n");
+            writer.write("    }\n\n");
+            writer.write("    private " + clazz + "() {\n");
+            writer.write("    }\n\n");
+            writer.write("    /** @return the id of the event type, or -1 if no indexed subscriber receives it */\n");
+            writer.write("    public static int getId(Class<?> eventType) {\n");
+            writer.write("        Integer id = EVENT_TYPE_IDS.get(eventType);\n");
+            writer.write("        return id != null ? id : -1;\n");
+            writer.write("    }\n\n");
+            writer.write("    public static Class<?> getType(int id) {\n");
+            writer.write("        return EVENT_TYPES[id];\n");
+            writer.write("    }\n\n");
+            writer.write("    /** @return the number of ids; ids are 0 until count - 1 */\n");
+            writer.write("    public static int getCount() {\n");
+            writer.write("        return EVENT_TYPES.length;\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write source for " + eventTypesClassName, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Silent
+                }
+            }
+        }
     }
 
-    private void writeLine(BufferedWriter writer, int indentLevel, int indentLevelIncrease, String... parts)
-            throws IOException {
-        writeIndent(writer, indentLevel);
-        int len = indentLevel * 4;
-        for (int i = 0; i < parts.length; i++) {
-            String part = parts[i];
-            if (i != 0) {
-                if (len + part.length() > 118) {
-                    writer.write("\n");
-                    if (indentLevel < 12) {
-                        indentLevel += indentLevelIncrease;
-                    }
-                    writeIndent(writer, indentLevel);
-                    len = indentLevel * 4;
-                } else {
-                    writer.write(" ");
+    /**
+     * Writes one typed accessor per indexed event type, e.g. streamLoginEvent(source), returning a
+     * {@code Flow.Publisher<LoginEvent>} of the EventStreamSource (JvmEventBus). Its subscribers get events only as far
+     * as they request(n) them; the source decides what a full buffer does to the producer.
+     */
+    private void createEventStreamsFile(String streamsClassName, String myPackage) {
+        List<String> eventClasses = new ArrayList<>(collectMethodsByEventType(myPackage).keySet());
+        eventClasses.remove("EmptyEventBusType.class");
+        Collections.sort(eventClasses);
+
+        BufferedWriter writer = null;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(streamsClassName);
+            int period = streamsClassName.lastIndexOf('.');
+            String clazz = streamsClassName.substring(period + 1);
+            writer = new BufferedWriter(sourceFile.openWriter());
+            if (myPackage != null) {
+                writer.write("package " + myPackage + ";\n\n");
+            }
+            writer.write("import org.greenrobot.eventbus.jvm.EventStreamSource;\n\n");
+            writer.write("import java.util.concurrent.Flow;\n\n");
+            writer.write("/** This class is generated by EventBus, do not edit. */\n");
+            writer.write("public final class " + clazz + " {\n");
+            writer.write("    private " + clazz + "() {\n");
+            writer.write("    }\n");
+            Set<String> methodNames = new HashSet<>();
+            for (String eventClass : eventClasses) {
+                String eventName = getBoxedName(eventClass.substring(0, eventClass.length() - ".class".length()));
+                String methodName = "stream" + eventName.substring(eventName.lastIndexOf('.') + 1);
+                if (!methodNames.add(methodName)) {
+                    methodName = "stream" + eventName.replace('.', '_');
+                    methodNames.add(methodName);
+                }
+                writer.write("\n");
+                writer.write("    public static Flow.Publisher<" + eventName + "> " + methodName + "(EventStreamSource source) {\n");
+                writer.write("        return source.publisher(" + eventName + ".class);\n");
+                writer.write("    }\n");
+            }
+            writer.write("}\n");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write source for " + streamsClassName, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Silent
                 }
             }
-            writer.write(part);
-            len += part.length();
         }
-        writer.write("\n");
     }
 
-    private void writeIndent(BufferedWriter writer, int indentLevel) throws IOException {
-        for (int i = 0; i < indentLevel; i++) {
-            writer.write("    ");
+    /**
+     * @return the wrapper class name for primitive type names, other names unchanged
+     */
+    private static String getBoxedName(String typeName) {
+        switch (typeName) {
+            case "int":
+                return "java.lang.Integer";
+            case "long":
+                return "java.lang.Long";
+            case "boolean":
+                return "java.lang.Boolean";
+            case "float":
+                return "java.lang.Float";
+            case "double":
+                return "java.lang.Double";
+            case "short":
+                return "java.lang.Short";
+            case "byte":
+                return "java.lang.Byte";
+            case "char":
+                return "java.lang.Character";
+            default:
+                return typeName;
+        }
+    }
+
+    /**
+     * @return the primitive type name of a wrapper class as written by getClassString (java.lang is not qualified),
+     * null for other names
+     */
+    private static String getPrimitiveName(String className) {
+        switch (className) {
+            case "Integer":
+                return "int";
+            case "Long":
+                return "long";
+            case "Boolean":
+                return "boolean";
+            case "Float":
+                return "float";
+            case "Double":
+                return "double";
+            case "Short":
+                return "short";
+            case "Byte":
+                return "byte";
+            case "Character":
+                return "char";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return e.g. LOGIN_EVENT for LoginEvent
+     */
+    private static String toConstantName(String name) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(name.charAt(i - 1))) {
+                builder.append('_');
+            }
+            builder.append(Character.isJavaIdentifierPart(c) && c != '$' ? Character.toUpperCase(c) : '_');
         }
+        return builder.toString();
+    }
+
+    /**
+     * Writes the opt-in typed poster: one post&lt;Event&gt;(event) per event type with @Subscribe POSTING subscribers.
+     * Subscribers registered with the poster are kept per subscriber method in typed copy-on-write arrays, so a
+     * post calls them directly, without the Class keyed subscription map, the event hierarchy lookup or the per
+     * thread posting queue. Only subscribers of exactly that event type are called.
+     */
+    private void createPosterFile(String posterClassName, String myPackage) {
+        ListMap<String, ExecutableElement> methodsByEventType = new ListMap<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : methodsByClass.get(subscriberTypeElement)) {
+                Subscribe subscribe = method.getAnnotation(Subscribe.class);
+                if (subscribe != null && subscribe.threadMode() == ThreadMode.POSTING) {
+                    methodsByEventType.putElement(getEventClass(method, myPackage), method);
+                }
+            }
+        }
+
+        BufferedWriter writer = null;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(posterClassName);
+            int period = posterClassName.lastIndexOf('.');
+            String clazz = posterClassName.substring(period + 1);
+            writer = new BufferedWriter(sourceFile.openWriter());
+            if (myPackage != null) {
+                writer.write("package " + myPackage + ";\n\n");
+            }
+            writer.write("import java.util.Arrays;\n\n");
+            writer.write("/** This class is generated by EventBus, do not edit. */\n");
+            writer.write("public final class " + clazz + " {\n");
+            writer.write("    private static final Object LOCK = new Object();\n\n");
+
+            // One typed subscriber array per subscriber method
+            Map<ExecutableElement, String> arrayNames = new HashMap<>();
+            List<ExecutableElement> allMethods = new ArrayList<>();
+            for (String eventClass : methodsByEventType.keySet()) {
+                List<ExecutableElement> methods = new ArrayList<>(methodsByEventType.get(eventClass));
+                Collections.sort(methods, DISPATCH_ORDER);
+                for (ExecutableElement method : methods) {
+                    String arrayName = "SUBSCRIBERS_" + allMethods.size();
+                    String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+                    arrayNames.put(method, arrayName);
+                    allMethods.add(method);
+                    writer.write("    // " + subscriberClass + "." + method.getSimpleName() + "(" + eventClass.substring(0, eventClass.length() - ".class".length()) + ")\n");
+                    writer.write("    private static volatile " + subscriberClass + "[] " + arrayName + " = new "
+                            + subscriberClass + "[0];\n");
+                }
+            }
+            writer.write("\n");
+            writer.write("    private " + clazz + "() {\n");
+            writer.write("    }\n\n");
+
+            writeRegisterMethods(writer, allMethods, arrayNames, myPackage);
+
+            Set<String> postMethodNames = new HashSet<>();
+            for (String eventClass : methodsByEventType.keySet()) {
+                String eventName = eventClass.substring(0, eventClass.length() - ".class".length());
+                String postMethodName = "post" + eventName.substring(eventName.lastIndexOf('.') + 1);
+                if (!postMethodNames.add(postMethodName)) {
+                    postMethodName = "post" + eventName.replace('.', '_');
+                    postMethodNames.add(postMethodName);
+                }
+                writer.write("\n");
+                writer.write("    public static void " + postMethodName + "(" + eventName + " event) {\n");
+                List<ExecutableElement> methods = new ArrayList<>(methodsByEventType.get(eventClass));
+                Collections.sort(methods, DISPATCH_ORDER);
+                for (ExecutableElement method : methods) {
+                    String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+                    String arrayName = arrayNames.get(method);
+                    String local = "subscribers" + arrayName.substring(arrayName.lastIndexOf('_') + 1);
+                    writer.write("        " + subscriberClass + "[] " + local + " = " + arrayName + ";\n");
+                    writer.write("        for (int i = 0; i < " + local + ".length; i++) {\n");
+                    writeInvoke(writer, 3, method, indexClassName + ".", local + "[i]." + method.getSimpleName() + "(event);");
+                    writer.write("        }\n");
+                }
+                writer.write("    }\n");
+            }
+
+            writer.write("\n");
+            writeArrayHelpers(writer);
+            writer.write("}\n");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write source for " + posterClassName, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Silent
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes register() and unregister() of a generated poster. Registering a subscriber that is already registered
+     * changes nothing, so a post never calls it twice.
+     */
+    private void writeRegisterMethods(BufferedWriter writer, List<ExecutableElement> allMethods,
+                                      Map<ExecutableElement, String> arrayNames, String myPackage) throws IOException {
+        writer.write("    public static void register(Object subscriber) {\n");
+        writer.write("        synchronized (LOCK) {\n");
+        for (ExecutableElement method : allMethods) {
+            String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+            String arrayName = arrayNames.get(method);
+            writer.write("            if (" + getRegisterCondition(method, allMethods, myPackage) + " && !contains("
+                    + arrayName + ", subscriber)) {\n");
+            writer.write("                " + subscriberClass + "[] subscribers = Arrays.copyOf(" + arrayName + ", " + arrayName + ".length + 1);\n");
+            writer.write("                subscribers[subscribers.length - 1] = (" + subscriberClass + ") subscriber;\n");
+            writer.write("                " + arrayName + " = subscribers;\n");
+            writer.write("            }\n");
+        }
+        writer.write("        }\n");
+        writer.write("    }\n\n");
+
+        writer.write("    public static void unregister(Object subscriber) {\n");
+        writer.write("        synchronized (LOCK) {\n");
+        for (ExecutableElement method : allMethods) {
+            String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+            String arrayName = arrayNames.get(method);
+            writer.write("            if (subscriber instanceof " + subscriberClass + ") {\n");
+            writer.write("                " + arrayName + " = remove(" + arrayName + ", subscriber);\n");
+            writer.write("            }\n");
+        }
+        writer.write("        }\n");
+        writer.write("    }\n");
+    }
+
+    /** Writes the contains() and remove() helpers of a generated poster's subscriber arrays. */
+    private void writeArrayHelpers(BufferedWriter writer) throws IOException {
+        writer.write("    private static boolean contains(Object[] subscribers, Object subscriber) {\n");
+        writer.write("        for (int i = 0; i < subscribers.length; i++) {\n");
+        writer.write("            if (subscribers[i] == subscriber) {\n");
+        writer.write("                return true;\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
+        writer.write("        return false;\n");
+        writer.write("    }\n\n");
+
+        writer.write("    private static <T> T[] remove(T[] subscribers, Object subscriber) {\n");
+        writer.write("        for (int i = 0; i < subscribers.length; i++) {\n");
+        writer.write("            if (subscribers[i] == subscriber) {\n");
+        writer.write("                T[] result = Arrays.copyOf(subscribers, subscribers.length - 1);\n");
+        writer.write("                System.arraycopy(subscribers, i + 1, result, i, subscribers.length - i - 1);\n");
+        writer.write("                return result;\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
+        writer.write("        return subscribers;\n");
+        writer.write("    }\n");
+    }
+
+    /**
+     * @return e.g. "subscriber instanceof Base && !(subscriber instanceof Child)": instances of poster subscriber
+     * classes overriding the method only go to the array of the override, as the poster would call it twice per post
+     * otherwise. Overrides match by name and erased parameter types, like SubscriberMethod.getSignature.
+     */
+    private String getRegisterCondition(ExecutableElement method, List<ExecutableElement> posterMethods, String myPackage) {
+        Types typeUtils = processingEnv.getTypeUtils();
+        Element subscriberClass = method.getEnclosingElement();
+        TypeMirror subscriberType = typeUtils.erasure(subscriberClass.asType());
+        String parameterTypes = getParameterTypes(method);
+        StringBuilder condition = new StringBuilder("subscriber instanceof ")
+                .append(getClassString((TypeElement) subscriberClass, myPackage));
+        for (ExecutableElement other : posterMethods) {
+            Element otherClass = other.getEnclosingElement();
+            if (otherClass != subscriberClass && other.getSimpleName().contentEquals(method.getSimpleName())
+                    && getParameterTypes(other).equals(parameterTypes)
+                    && typeUtils.isSubtype(typeUtils.erasure(otherClass.asType()), subscriberType)) {
+                condition.append(" && !(subscriber instanceof ").append(getClassString((TypeElement) otherClass, myPackage)).append(")");
+            }
+        }
+        return condition.toString();
+    }
+
+    /**
+     * @return the multi argument methods the generated poster can call: public classes with public parameter types
+     */
+    private List<ExecutableElement> getMultiArgMethods(String myPackage) {
+        return getCallableMethods(multiArgMethodsByClass, myPackage);
+    }
+
+    private List<ExecutableElement> getCallableMethods(ListMap<TypeElement, ExecutableElement> methodsByClass, String myPackage) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (!isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : methodsByClass.get(subscriberTypeElement)) {
+                boolean visible = true;
+                for (VariableElement parameter : method.getParameters()) {
+                    TypeMirror type = processingEnv.getTypeUtils().erasure(parameter.asType());
+                    if (type instanceof DeclaredType) {
+                        visible &= isVisible(myPackage, (TypeElement) ((DeclaredType) type).asElement());
+                    } else if (!type.getKind().isPrimitive() && type.getKind() != TypeKind.ARRAY) {
+                        visible = false;
+                    }
+                }
+                if (visible) {
+                    methods.add(method);
+                }
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * @return the parameter list of a multi argument method, e.g. "long, long" (erased, so overloads stay distinct)
+     */
+    private String getParameterTypes(ExecutableElement method) {
+        StringBuilder builder = new StringBuilder();
+        for (VariableElement parameter : method.getParameters()) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(processingEnv.getTypeUtils().erasure(parameter.asType()).toString());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes the poster for @Subscribe methods with several parameters, e.g. onProgress(long done, long total).
+     * The parameter types form the event: post(long, long) calls every registered subscriber method taking
+     * (long, long), directly and in priority order, so no wrapper object is allocated per post. dispatch(subscriber,
+     * methodName, ...) calls one given method the same way.
+     */
+    private void createMultiArgPosterFile(String posterClassName, String myPackage) {
+        List<ExecutableElement> multiArgMethods = getMultiArgMethods(myPackage);
+        for (TypeElement subscriberTypeElement : multiArgMethodsByClass.keySet()) {
+            for (ExecutableElement method : multiArgMethodsByClass.get(subscriberTypeElement)) {
+                if (!multiArgMethods.contains(method)) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Subscriber methods with several parameters need a public class and public parameter types", method);
+                }
+            }
+        }
+        ListMap<String, ExecutableElement> methodsBySignature = new ListMap<>();
+        for (ExecutableElement method : multiArgMethods) {
+            methodsBySignature.putElement(getParameterTypes(method), method);
+        }
+
+        BufferedWriter writer = null;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(posterClassName);
+            int period = posterClassName.lastIndexOf('.');
+            String clazz = posterClassName.substring(period + 1);
+            writer = new BufferedWriter(sourceFile.openWriter());
+            if (myPackage != null) {
+                writer.write("package " + myPackage + ";\n\n");
+            }
+            writer.write("import java.util.Arrays;\n\n");
+            writer.write("/** This class is generated by EventBus, do not edit. */\n");
+            writer.write("public final class " + clazz + " {\n");
+            writer.write("    private static final Object LOCK = new Object();\n\n");
+
+            Map<ExecutableElement, String> arrayNames = new HashMap<>();
+            List<ExecutableElement> allMethods = new ArrayList<>();
+            for (String signature : methodsBySignature.keySet()) {
+                List<ExecutableElement> methods = new ArrayList<>(methodsBySignature.get(signature));
+                Collections.sort(methods, DISPATCH_ORDER);
+                for (ExecutableElement method : methods) {
+                    String arrayName = "SUBSCRIBERS_" + allMethods.size();
+                    String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+                    arrayNames.put(method, arrayName);
+                    allMethods.add(method);
+                    writer.write("    // " + subscriberClass + "." + method.getSimpleName() + "(" + signature + ")\n");
+                    writer.write("    private static volatile " + subscriberClass + "[] " + arrayName + " = new "
+                            + subscriberClass + "[0];\n");
+                }
+            }
+            writer.write("\n");
+            writer.write("    private " + clazz + "() {\n");
+            writer.write("    }\n\n");
+
+            writeRegisterMethods(writer, allMethods, arrayNames, myPackage);
+
+            for (String signature : methodsBySignature.keySet()) {
+                List<ExecutableElement> methods = new ArrayList<>(methodsBySignature.get(signature));
+                Collections.sort(methods, DISPATCH_ORDER);
+                String[] types = signature.split(", ");
+                StringBuilder parameters = new StringBuilder();
+                StringBuilder arguments = new StringBuilder();
+                for (int i = 0; i < types.length; i++) {
+                    parameters.append(i > 0 ? ", " : "").append(types[i]).append(" arg").append(i);
+                    arguments.append(i > 0 ? ", " : "").append("arg").append(i);
+                }
+
+                writer.write("\n");
+                writer.write("    public static void post(" + parameters + ") {\n");
+                for (ExecutableElement method : methods) {
+                    String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+                    String arrayName = arrayNames.get(method);
+                    String local = "subscribers" + arrayName.substring(arrayName.lastIndexOf('_') + 1);
+                    writer.write("        " + subscriberClass + "[] " + local + " = " + arrayName + ";\n");
+                    writer.write("        for (int i = 0; i < " + local + ".length; i++) {\n");
+                    writeInvoke(writer, 3, method, indexClassName + ".", local + "[i]." + method.getSimpleName() + "(" + arguments + ");");
+                    writer.write("        }\n");
+                }
+                writer.write("    }\n");
+
+                writer.write("\n");
+                writer.write("    public static boolean dispatch(Object subscriber, String methodName, " + parameters + ") {\n");
+                for (ExecutableElement method : methods) {
+                    String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+                    String methodName = method.getSimpleName().toString();
+                    writer.write("        if (subscriber instanceof " + subscriberClass + " && \"" + methodName + "\".equals(methodName)) {\n");
+                    writeInvoke(writer, 3, method, indexClassName + ".", "((" + subscriberClass + ") subscriber)." + methodName + "(" + arguments + ");");
+                    writer.write("            return true;\n");
+                    writer.write("        }\n");
+                }
+                writer.write("        return false;\n");
+                writer.write("    }\n");
+            }
+
+            writer.write("\n");
+            writeArrayHelpers(writer);
+            writer.write("}\n");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write source for " + posterClassName, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Silent
+                }
+            }
+        }
+    }
+
+    /**
+     * Kotlin compiles {@code suspend fun onEvent(event: E)} to {@code Object onEvent(E, Continuation)}. The type is
+     * matched by name, so the processor does not depend on the Kotlin standard library.
+     */
+    private boolean isSuspend(ExecutableElement method) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (parameters.isEmpty()) {
+            return false;
+        }
+        TypeMirror type = processingEnv.getTypeUtils().erasure(parameters.get(parameters.size() - 1).asType());
+        return type.toString().equals(KOTLIN_CONTINUATION);
+    }
+
+    /**
+     * Writes the poster for Kotlin suspend subscribers. Each delivery starts the subscriber as a coroutine in the
+     * context set with setContext, usually a CoroutineDispatcher: the dispatcher runs it right away instead of the bus
+     * switching threads first, and no thread blocks while it is suspended. Only the Kotlin standard library is used:
+     * the generated Java calls kotlin.coroutines directly, so kotlin-stdlib must be on the compile classpath of the
+     * module, as it is for any Kotlin module. The processor itself does not depend on it.
+     */
+    private void createSuspendPosterFile(String posterClassName, String myPackage) {
+        if (processingEnv.getElementUtils().getTypeElement(KOTLIN_CONTINUATION_KT) == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Suspend subscriber methods need kotlin-stdlib on the compile classpath for " + posterClassName);
+            return;
+        }
+        List<ExecutableElement> suspendMethods = getCallableMethods(suspendMethodsByClass, myPackage);
+        for (TypeElement subscriberTypeElement : suspendMethodsByClass.keySet()) {
+            for (ExecutableElement method : suspendMethodsByClass.get(subscriberTypeElement)) {
+                if (!suspendMethods.contains(method)) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Suspend subscriber methods need a public class and a public event type", method);
+                }
+            }
+        }
+        ListMap<String, ExecutableElement> methodsByEventType = new ListMap<>();
+        for (ExecutableElement method : suspendMethods) {
+            methodsByEventType.putElement(processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType()).toString(), method);
+        }
+
+        BufferedWriter writer = null;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(posterClassName);
+            int period = posterClassName.lastIndexOf('.');
+            String clazz = posterClassName.substring(period + 1);
+            writer = new BufferedWriter(sourceFile.openWriter());
+            if (myPackage != null) {
+                writer.write("package " + myPackage + ";\n\n");
+            }
+            writer.write("import java.util.Arrays;\n\n");
+            writer.write("import kotlin.ResultKt;\n");
+            writer.write("import kotlin.coroutines.Continuation;\n");
+            writer.write("import kotlin.coroutines.ContinuationKt;\n");
+            writer.write("import kotlin.coroutines.CoroutineContext;\n");
+            writer.write("import kotlin.coroutines.EmptyCoroutineContext;\n");
+            writer.write("import kotlin.jvm.functions.Function1;\n\n");
+            writer.write("/** This class is generated by EventBus, do not edit. */\n");
+            writer.write("public final class " + clazz + " {\n");
+            writer.write("    private static final Object LOCK = new Object();\n");
+            writer.write("    private static volatile Completion completion = new Completion(EmptyCoroutineContext.INSTANCE);\n\n");
+
+            Map<ExecutableElement, String> arrayNames = new HashMap<>();
+            List<ExecutableElement> allMethods = new ArrayList<>();
+            for (String eventName : methodsByEventType.keySet()) {
+                List<ExecutableElement> methods = new ArrayList<>(methodsByEventType.get(eventName));
+                Collections.sort(methods, DISPATCH_ORDER);
+                for (ExecutableElement method : methods) {
+                    String arrayName = "SUBSCRIBERS_" + allMethods.size();
+                    String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+                    arrayNames.put(method, arrayName);
+                    allMethods.add(method);
+                    writer.write("    // " + subscriberClass + "." + method.getSimpleName() + "(" + eventName + ")\n");
+                    writer.write("    private static volatile " + subscriberClass + "[] " + arrayName + " = new "
+                            + subscriberClass + "[0];\n");
+                }
+            }
+            writer.write("\n");
+            writer.write("    private " + clazz + "() {\n");
+            writer.write("    }\n\n");
+
+            writer.write("    /**\n");
+            writer.write("     * Sets the coroutine context, usually a dispatcher, subscribers are started in. By default they start on\n");
+            writer.write("     * the posting thread and resume wherever they were suspended.\n");
+            writer.write("     */\n");
+            writer.write("    public static void setContext(CoroutineContext context) {\n");
+            writer.write("        completion = new Completion(context);\n");
+            writer.write("    }\n\n");
+
+            writeRegisterMethods(writer, allMethods, arrayNames, myPackage);
+
+            Set<String> postMethodNames = new HashSet<>();
+            for (String eventName : methodsByEventType.keySet()) {
+                String postMethodName = "post" + eventName.substring(eventName.lastIndexOf('.') + 1);
+                if (!postMethodNames.add(postMethodName)) {
+                    postMethodName = "post" + eventName.replace('.', '_');
+                    postMethodNames.add(postMethodName);
+                }
+                writer.write("\n");
+                writer.write("    public static void " + postMethodName + "(" + eventName + " event) {\n");
+                writer.write("        Completion completion = " + clazz + ".completion;\n");
+                List<ExecutableElement> methods = new ArrayList<>(methodsByEventType.get(eventName));
+                Collections.sort(methods, DISPATCH_ORDER);
+                for (ExecutableElement method : methods) {
+                    String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+                    String arrayName = arrayNames.get(method);
+                    String id = arrayName.substring(arrayName.lastIndexOf('_') + 1);
+                    writer.write("        " + subscriberClass + "[] subscribers" + id + " = " + arrayName + ";\n");
+                    writer.write("        for (int i = 0; i < subscribers" + id + ".length; i++) {\n");
+                    writer.write("            ContinuationKt.startCoroutine(new Call(" + id + ", subscribers" + id + "[i], event), completion);\n");
+                    writer.write("        }\n");
+                }
+                writer.write("    }\n");
+            }
+
+            writer.write("\n");
+            writer.write("    public static boolean dispatch(Object subscriber, String methodName, Object event) {\n");
+            for (ExecutableElement method : allMethods) {
+                String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+                String arrayName = arrayNames.get(method);
+                writer.write("        if (subscriber instanceof " + subscriberClass + " && \"" + method.getSimpleName()
+                        + "\".equals(methodName) && event instanceof " + getBoxedTypeName(method) + ") {\n");
+                writer.write("            ContinuationKt.startCoroutine(new Call(" + arrayName.substring(arrayName.lastIndexOf('_') + 1)
+                        + ", subscriber, event), completion);\n");
+                writer.write("            return true;\n");
+                writer.write("        }\n");
+            }
+            writer.write("        return false;\n");
+            writer.write("    }\n");
+
+            writer.write("\n");
+            writeArrayHelpers(writer);
+            writer.write("\n");
+
+            writer.write("    /** The suspend function body of one delivery: calls the subscriber method with the continuation. */\n");
+            writer.write("    private static final class Call implements Function1<Continuation<? super Object>, Object> {\n");
+            writer.write("        private final int method;\n");
+            writer.write("        private final Object subscriber;\n");
+            writer.write("        private final Object event;\n\n");
+            writer.write("        Call(int method, Object subscriber, Object event) {\n");
+            writer.write("            this.method = method;\n");
+            writer.write("            this.subscriber = subscriber;\n");
+            writer.write("            this.event = event;\n");
+            writer.write("        }\n\n");
+            writer.write("        @Override\n");
+            writer.write("        public Object invoke(Continuation<? super Object> continuation) {\n");
+            writer.write("            switch (method) {\n");
+            for (ExecutableElement method : allMethods) {
+                String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+                String arrayName = arrayNames.get(method);
+                writer.write("                case " + arrayName.substring(arrayName.lastIndexOf('_') + 1) + ":\n");
+                writer.write("                    return ((" + subscriberClass + ") subscriber)." + method.getSimpleName()
+                        + "((" + getBoxedTypeName(method) + ") event, continuation);\n");
+            }
+            writer.write("                default:\n");
+            writer.write("                    throw new IllegalStateException(\"Unknown method \" + method);\n");
+            writer.write("            }\n");
+            writer.write("        }\n");
+            writer.write("    }\n\n");
+
+            writer.write("    /** Ends every delivery; failures go to the uncaught exception handler, like an unhandled coroutine failure. */\n");
+            writer.write("    private static final class Completion implements Continuation<Object> {\n");
+            writer.write("        private final CoroutineContext context;\n\n");
+            writer.write("        Completion(CoroutineContext context) {\n");
+            writer.write("            this.context = context;\n");
+            writer.write("        }\n\n");
+            writer.write("        @Override\n");
+            writer.write("        public CoroutineContext getContext() {\n");
+            writer.write("            return context;\n");
+            writer.write("        }\n\n");
+            writer.write("        @Override\n");
+            writer.write("        public void resumeWith(Object result) {\n");
+            writer.write("            try {\n");
+            writer.write("                ResultKt.throwOnFailure(result);\n");
+            writer.write("            } catch (Throwable e) {\n");
+            writer.write("                Thread thread = Thread.currentThread();\n");
+            writer.write("                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);\n");
+            writer.write("            }\n");
+            writer.write("        }\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write source for " + posterClassName, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Silent
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the event type of the method, boxed if primitive, e.g. for casts from Object
+     */
+    private String getBoxedTypeName(ExecutableElement method) {
+        TypeMirror type = processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType());
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    /**
+     * @return the binary class name of the event type, as accepted by Class.forName (or the primitive name)
+     */
+    private String getEventTypeName(ExecutableElement method) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (parameters.isEmpty()) {
+            return "org.greenrobot.eventbus.meta.EmptyEventBusType";
+        }
+        TypeMirror paramType = getParamTypeMirror(parameters.get(0), null);
+        TypeElement paramElement = (TypeElement) processingEnv.getTypeUtils().asElement(paramType);
+        if (paramElement != null) {
+            return processingEnv.getElementUtils().getBinaryName(paramElement).toString();
+        }
+        return paramType.toString();
+    }
+
+    /**
+     * @return the event type name, or the parameter types (comma separated) of a multi argument method
+     */
+    private String getSignatureName(ExecutableElement method, boolean simpleNames) {
+        List<String> typeNames = new ArrayList<>();
+        if (method.getParameters().size() <= 1) {
+            typeNames.add(getEventTypeName(method));
+        } else {
+            for (VariableElement parameter : method.getParameters()) {
+                typeNames.add(processingEnv.getTypeUtils().erasure(parameter.asType()).toString());
+            }
+        }
+        StringBuilder builder = new StringBuilder();
+        for (String typeName : typeNames) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(simpleNames ? typeName.substring(typeName.lastIndexOf('.') + 1) : typeName);
+        }
+        return builder.toString();
+    }
+
+    private static char getMethodKind(ExecutableElement method) {
+        if (method.getAnnotation(Subscribe.class) != null) {
+            return KIND_SUBSCRIBE;
+        } else if (method.getAnnotation(SubscribeMainThread.class) != null) {
+            return KIND_MAIN_THREAD;
+        } else if (method.getAnnotation(SubscribeRunOnlyTop.class) != null) {
+            return KIND_RUN_ONLY_TOP;
+        }
+        return KIND_SIMPLE;
+    }
+
+    private static int getMethodFlags(ExecutableElement method) {
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        SubscribeMainThread mainSubscribe = method.getAnnotation(SubscribeMainThread.class);
+        if (subscribe != null) {
+            return subscribe.sticky() ? FLAG_STICKY : 0;
+        } else if (mainSubscribe != null) {
+            return (mainSubscribe.sticky() ? FLAG_STICKY : 0) | (mainSubscribe.finish() ? FLAG_FINISH : 0)
+                    | (mainSubscribe.lifo() ? FLAG_LIFO : 0) | (mainSubscribe.ignoredSubscriberTag() ? FLAG_IGNORED_SUBSCRIBER_TAG : 0);
+        }
+        return 0;
+    }
+
+    private static String getMethodTag(ExecutableElement method) {
+        SubscribeMainThread mainSubscribe = method.getAnnotation(SubscribeMainThread.class);
+        SubscribeRunOnlyTop runOnlyTop = method.getAnnotation(SubscribeRunOnlyTop.class);
+        SubscribeSimple subscribeSimple = method.getAnnotation(SubscribeSimple.class);
+        if (mainSubscribe != null) {
+            return mainSubscribe.tag();
+        } else if (runOnlyTop != null) {
+            return runOnlyTop.tag();
+        } else if (subscribeSimple != null) {
+            return subscribeSimple.value();
+        }
+        return "";
+    }
+
+    private static String escapeJavaString(String value) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c == '\n') {
+                builder.append("\\n");
+            } else if (c == '\r') {
+                builder.append("\\r");
+            } else if (c < 0x20 || c > 0x7e) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private void writeIndexLines(BufferedWriter writer, String myPackage) throws IOException {
+        Map<ExecutableElement, Integer> dispatchRanks = computeDispatchRanks(myPackage);
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement)) {
+                continue;
+            }
+            String subscriberClass = getClassString(subscriberTypeElement, myPackage);
+            if (isVisible(myPackage, subscriberTypeElement)) {
+                writeLine(writer, 2,
+                        "putIndex(new SimpleSubscriberInfo(" + subscriberClass + ".class,",
+                        "true,", "new SubscriberMethodInfo[] {");
+                List<ExecutableElement> methods = getSortedMethods(subscriberTypeElement);
+
+                SubscribeTag page = subscriberTypeElement.getAnnotation(SubscribeTag.class);
+                String infor = "";
+                if (page != null) {
+                    infor = page.tag();
+                }
+                writeCreateSubscriberMethods(writer, methods, "new SubscriberMethodInfo", myPackage);
+                writer.write("        },\"" + infor + "\"));\n");
+
+                StringBuilder ranks = new StringBuilder();
+                for (ExecutableElement method : methods) {
+                    if (ranks.length() > 0) {
+                        ranks.append(", ");
+                    }
+                    ranks.append(dispatchRanks.get(method));
+                }
+                writeLine(writer, 2, "DISPATCH_RANKS.put(" + subscriberClass + ".class,", "new int[] {" + ranks + "});");
+                writer.write("\n");
+            } else {
+                writer.write("        // Subscriber not visible to index: " + subscriberClass + "\n");
+            }
+        }
+    }
+
+    /**
+     * For every event type the subscriber classes are bucketed by ThreadMode (in dispatch order), so the runtime can
+     * deliver a whole bucket at once, e.g. with one main thread task per event instead of one per subscriber.
+     */
+    private void writeThreadModeBuckets(BufferedWriter writer, String myPackage) throws IOException {
+        ListMap<String, ExecutableElement> methodsByEventType = collectMethodsByEventType(myPackage);
+        ThreadMode[] threadModes = ThreadMode.values();
+
+        writer.write("\n");
+        writer.write("    private static final Class<?>[] NO_SUBSCRIBER_CLASSES = new Class<?>[0];\n\n");
+        writer.write("    /** Holder class, so the buckets are only initialized when first used. */\n");
+        writer.write("    private static final class ThreadModeBuckets {\n");
+        writer.write("        static final Map<Class<?>, Class<?>[][]> BUCKETS = new HashMap<Class<?>, Class<?>[][]>();\n\n");
+        writer.write("        static {\n");
+        for (String eventClass : methodsByEventType.keySet()) {
+            List<ExecutableElement> methods = new ArrayList<>(methodsByEventType.get(eventClass));
+            Collections.sort(methods, DISPATCH_ORDER);
+            writer.write("            BUCKETS.put(" + eventClass + ", new Class<?>[][] {\n");
+            for (ThreadMode threadMode : threadModes) {
+                Set<String> bucket = new LinkedHashSet<>();
+                for (ExecutableElement method : methods) {
+                    if (getThreadMode(method) == threadMode) {
+                        bucket.add(getClassString((TypeElement) method.getEnclosingElement(), myPackage) + ".class");
+                    }
+                }
+                List<String> parts = new ArrayList<>();
+                parts.add("{");
+                for (String subscriberClass : bucket) {
+                    parts.add(subscriberClass + ",");
+                }
+                parts.add("}, // " + threadMode.name());
+                writeLine(writer, 4, parts.toArray(new String[parts.size()]));
+            }
+            writer.write("            });\n");
+        }
+        writer.write("        }\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /** @return the subscriber classes receiving the event type in the given thread mode, in dispatch order */\n");
+        writer.write("    public static Class<?>[] getSubscriberClasses(Class<?> eventType, ThreadMode threadMode) {\n");
+        writer.write("        Class<?>[][] buckets = ThreadModeBuckets.BUCKETS.get(eventType);\n");
+        writer.write("        if (buckets == null || threadMode.ordinal() >= buckets.length) {\n");
+        writer.write("            return NO_SUBSCRIBER_CLASSES;\n");
+        writer.write("        }\n");
+        writer.write("        return buckets[threadMode.ordinal()];\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /** If true, all MAIN subscribers of one event are delivered by a single main thread task. */\n");
+        writer.write("    public static boolean isMainThreadBatched() {\n");
+        writer.write("        return " + batchMainThread + ";\n");
+        writer.write("    }\n");
+    }
+
+    private List<ExecutableElement> getSortedMethods(TypeElement subscriberTypeElement) {
+        List<ExecutableElement> methods = new ArrayList<>(methodsByClass.get(subscriberTypeElement));
+        Collections.sort(methods, DISPATCH_ORDER);
+        return methods;
+    }
+
+    /**
+     * Ranks every indexed method within its event type by {@link #DISPATCH_ORDER}. Methods with an equal sort key
+     * share a rank, so the runtime still decides their order by registration (and lifo).
+     */
+    private Map<ExecutableElement, Integer> computeDispatchRanks(String myPackage) {
+        Map<ExecutableElement, Integer> dispatchRanks = new HashMap<>();
+        ListMap<String, ExecutableElement> methodsByEventType = collectMethodsByEventType(myPackage);
+        for (String eventClass : methodsByEventType.keySet()) {
+            List<ExecutableElement> methods = new ArrayList<>(methodsByEventType.get(eventClass));
+            Collections.sort(methods, DISPATCH_ORDER);
+            int rank = 0;
+            for (int i = 0; i < methods.size(); i++) {
+                if (i > 0 && DISPATCH_ORDER.compare(methods.get(i - 1), methods.get(i)) != 0) {
+                    rank++;
+                }
+                dispatchRanks.put(methods.get(i), rank);
+            }
+        }
+        return dispatchRanks;
+    }
+
+    /**
+     * Groups all methods of indexed subscriber classes by the class literal of their event type.
+     */
+    private ListMap<String, ExecutableElement> collectMethodsByEventType(String myPackage) {
+        ListMap<String, ExecutableElement> methodsByEventType = new ListMap<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : methodsByClass.get(subscriberTypeElement)) {
+                String eventClass = getEventClass(method, myPackage);
+                if (eventClass != null) {
+                    methodsByEventType.putElement(eventClass, method);
+                }
+            }
+        }
+        return methodsByEventType;
+    }
+
+    /**
+     * Sticky event types are known at compile time, so each one gets a dense slot id. The slots themselves belong to
+     * the runtime, one table per bus sized by getStickyTypeCount(): postSticky and the sticky replay on register()
+     * are then plain volatile array accesses instead of lookups in a Class keyed map. The slot id comes from an
+     * identity map, so finding it does not depend on the number of sticky types. Primitive event types get the slot
+     * of their wrapper class, which is what a posted event is; the primitive class is accepted as an alias.
+     */
+    private void writeStickySlots(BufferedWriter writer, String myPackage) throws IOException {
+        List<String> stickyEventClasses = collectStickyEventClasses(myPackage);
+
+        writer.write("\n");
+        writer.write("    private static final Class<?>[] STICKY_TYPES = new Class<?>[] {\n");
+        for (String eventClass : stickyEventClasses) {
+            writer.write("            " + eventClass + ",\n");
+        }
+        writer.write("    };\n");
+        writer.write("    private static final Map<Class<?>, Integer> STICKY_TYPE_IDS = new IdentityHashMap<Class<?>, Integer>(STICKY_TYPES.length * 2);\n\n");
+        writer.write("    static {\n");
+        writer.write("        for (int i = 0; i < STICKY_TYPES.length; i++) {\n");
+        writer.write("            STICKY_TYPE_IDS.put(STICKY_TYPES[i], i);\n");
+        writer.write("        }\n");
+        for (int i = 0; i < stickyEventClasses.size(); i++) {
+            String eventClass = stickyEventClasses.get(i);
+            String primitiveName = getPrimitiveName(eventClass.substring(0, eventClass.length() - ".class".length()));
+            if (primitiveName != null) {
+                writer.write("        STICKY_TYPE_IDS.put(" + primitiveName + ".class, " + i + ");\n");
+            }
+        }
+        writer.write("    }\n\n");
+
+        writer.write("    /** @return the sticky slot id of the event type, or -1 if no indexed subscriber receives it sticky */\n");
+        writer.write("    public static int getStickyTypeId(Class<?> eventType) {\n");
+        writer.write("        Integer stickyTypeId = STICKY_TYPE_IDS.get(eventType);\n");
+        writer.write("        return stickyTypeId != null ? stickyTypeId : -1;\n");
+        writer.write("    }\n\n");
+
+        writer.write("    public static int getStickyTypeCount() {\n");
+        writer.write("        return STICKY_TYPES.length;\n");
+        writer.write("    }\n\n");
+
+        writer.write("    public static Class<?> getStickyType(int stickyTypeId) {\n");
+        writer.write("        return STICKY_TYPES[stickyTypeId];\n");
+        writer.write("    }\n");
+    }
+
+    /**
+     * @return the distinct event classes received by @Subscribe(sticky = true) or @SubscribeMainThread(sticky = true)
+     * methods, primitive ones boxed, in a stable order; the position is the sticky slot id
+     */
+    private List<String> collectStickyEventClasses(String myPackage) {
+        Set<String> stickyEventClasses = new LinkedHashSet<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : methodsByClass.get(subscriberTypeElement)) {
+                Subscribe subscribe = method.getAnnotation(Subscribe.class);
+                SubscribeMainThread mainSubscribe = method.getAnnotation(SubscribeMainThread.class);
+                boolean sticky = (subscribe != null && subscribe.sticky()) || (mainSubscribe != null && mainSubscribe.sticky());
+                String eventClass = getEventClass(method, myPackage);
+                if (sticky && eventClass != null) {
+                    TypeMirror type = method.getParameters().isEmpty() ? null : method.getParameters().get(0).asType();
+                    if (type != null && type.getKind().isPrimitive()) {
+                        TypeElement boxedElement = processingEnv.getTypeUtils().boxedClass((PrimitiveType) type);
+                        eventClass = getClassString(boxedElement, myPackage) + ".class";
+                    }
+                    stickyEventClasses.add(eventClass);
+                }
+            }
+        }
+        return new ArrayList<>(stickyEventClasses);
+    }
+
+    /**
+     * @return the event classes of @Subscribe(sticky = true, persist = true) methods
+     */
+    private List<TypeElement> collectPersistentStickyTypes(String myPackage) {
+        Set<TypeElement> persistentStickyTypes = new LinkedHashSet<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : methodsByClass.get(subscriberTypeElement)) {
+                Subscribe subscribe = method.getAnnotation(Subscribe.class);
+                if (subscribe != null && subscribe.persist()) {
+                    persistentStickyTypes.add((TypeElement) processingEnv.getTypeUtils().asElement(method.getParameters().get(0).asType()));
+                }
+            }
+        }
+        return new ArrayList<>(persistentStickyTypes);
+    }
+
+    /**
+     * Writes getPersistentCodec(eventType), telling the runtime which sticky events go to its persistent sticky store
+     * and with which generated codec.
+     */
+    private void writePersistentCodecs(BufferedWriter writer, List<TypeElement> persistentStickyTypes) throws IOException {
+        writer.write("\n");
+        writer.write("    /** @return the codec of a sticky event type subscribed with persist = true, or null */\n");
+        writer.write("    public static EventCodec<?> getPersistentCodec(Class<?> eventType) {\n");
+        for (TypeElement eventType : persistentStickyTypes) {
+            writer.write("        if (eventType == " + eventType.getQualifiedName() + ".class) {\n");
+            writer.write("            return " + processingEnv.getElementUtils().getBinaryName(eventType) + "$$Codec.INSTANCE;\n");
+            writer.write("        }\n");
+        }
+        writer.write("        return null;\n");
+        writer.write("    }\n");
+    }
+
+    /**
+     * Writes the sticky retention limits: getStickyMaxAgeMillis and getStickySizeBytes per event type (smallest age,
+     * largest size among its sticky subscribers) and the getStickyMaxBytes budget. Nothing is written if no limit is
+     * set, so the runtime keeps sticky events unbounded.
+     */
+    private void writeStickyLimits(BufferedWriter writer, String myPackage) throws IOException {
+        Map<String, long[]> limits = new LinkedHashMap<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : methodsByClass.get(subscriberTypeElement)) {
+                Subscribe subscribe = method.getAnnotation(Subscribe.class);
+                String eventClass = getEventClass(method, myPackage);
+                if (subscribe == null || eventClass == null
+                        || (subscribe.stickyMaxAgeMillis() == 0 && subscribe.stickySizeBytes() == 0)) {
+                    continue;
+                }
+                long[] typeLimits = limits.get(eventClass);
+                if (typeLimits == null) {
+                    typeLimits = new long[2];
+                    limits.put(eventClass, typeLimits);
+                }
+                long maxAge = subscribe.stickyMaxAgeMillis();
+                if (maxAge > 0 && (typeLimits[0] == 0 || maxAge < typeLimits[0])) {
+                    typeLimits[0] = maxAge;
+                }
+                typeLimits[1] = Math.max(typeLimits[1], subscribe.stickySizeBytes());
+            }
+        }
+        if (limits.isEmpty() && stickyMaxBytes == 0) {
+            return;
+        }
+        writer.write("\n");
+        writer.write("    /** Holder class, so the sticky limits are only initialized when first used. */\n");
+        writer.write("    private static final class StickyLimits {\n");
+        writer.write("        static final Map<Class<?>, long[]> LIMITS = new HashMap<Class<?>, long[]>(" + limits.size() * 2 + ");\n\n");
+        writer.write("        static {\n");
+        for (Map.Entry<String, long[]> entry : limits.entrySet()) {
+            writer.write("            LIMITS.put(" + entry.getKey() + ", new long[] {" + entry.getValue()[0] + "L, "
+                    + entry.getValue()[1] + "L});\n");
+        }
+        writer.write("        }\n");
+        writer.write("    }\n\n");
+        writer.write("    /** @return the maximum age of sticky events of the type in milliseconds, 0 for no limit */\n");
+        writer.write("    public static long getStickyMaxAgeMillis(Class<?> eventType) {\n");
+        writer.write("        long[] limits = StickyLimits.LIMITS.get(eventType);\n");
+        writer.write("        return limits != null ? limits[0] : 0;\n");
+        writer.write("    }\n\n");
+        writer.write("    /** @return the declared size of one sticky event of the type in bytes, 0 if not declared */\n");
+        writer.write("    public static long getStickySizeBytes(Class<?> eventType) {\n");
+        writer.write("        long[] limits = StickyLimits.LIMITS.get(eventType);\n");
+        writer.write("        return limits != null ? limits[1] : 0;\n");
+        writer.write("    }\n\n");
+        writer.write("    /** @return the memory budget of all sticky events in bytes, 0 for no limit */\n");
+        writer.write("    public static long getStickyMaxBytes() {\n");
+        writer.write("        return " + stickyMaxBytes + "L;\n");
+        writer.write("    }\n");
+    }
+
+    /**
+     * @return the budget of {@link #OPTION_STICKY_MAX_BYTES}, 0 if not set
+     */
+    private static long parseStickyMaxBytes(String option, Messager messager) {
+        if (option == null || option.trim().isEmpty()) {
+            return 0;
+        }
+        try {
+            long maxBytes = Long.parseLong(option.trim());
+            if (maxBytes >= 0) {
+                return maxBytes;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        messager.printMessage(Diagnostic.Kind.ERROR, "Invalid " + OPTION_STICKY_MAX_BYTES + " \"" + option
+                + "\", expected a number of bytes");
+        return 0;
+    }
+
+    /**
+     * Writes per method delivery options that SubscriberMethodInfo has no room for, as arrays aligned with the
+     * SubscriberMethodInfo array of a subscriber class. Only classes using an option are listed, so the common case
+     * costs one map lookup returning null.
+     */
+    private void writeDeliveryOptions(BufferedWriter writer, String myPackage) throws IOException {
+        List<String[]> coalesceLines = new ArrayList<>();
+        List<String[]> mergeLines = new ArrayList<>();
+        List<String[]> queueLines = new ArrayList<>();
+        List<String[]> executorLines = new ArrayList<>();
+        List<String[]> stripeLines = new ArrayList<>();
+        Map<ExecutableElement, Integer> stripeKeyIds = computeStripeKeyIds(myPackage);
+        Map<ExecutableElement, Integer> mergeIds = computeMergeIds(myPackage);
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            List<String> coalesce = new ArrayList<>();
+            List<String> merges = new ArrayList<>();
+            List<String> queueCapacities = new ArrayList<>();
+            List<String> overflowPolicies = new ArrayList<>();
+            List<String> executors = new ArrayList<>();
+            List<String> stripeKeys = new ArrayList<>();
+            boolean anyCoalesce = false;
+            boolean anyMerge = false;
+            boolean anyQueueCapacity = false;
+            boolean anyExecutor = false;
+            boolean anyStriped = false;
+            for (ExecutableElement method : getSortedMethods(subscriberTypeElement)) {
+                coalesce.add(String.valueOf(isCoalesce(method)));
+                queueCapacities.add(String.valueOf(getQueueCapacity(method)));
+                overflowPolicies.add("OverflowPolicy." + getOverflowPolicy(method).name());
+                anyCoalesce |= isCoalesce(method);
+                Integer mergeId = mergeIds.get(method);
+                merges.add(String.valueOf(mergeId != null ? mergeId : 0));
+                anyMerge |= mergeId != null;
+                anyQueueCapacity |= getQueueCapacity(method) > 0;
+                String executor = getExecutor(method);
+                executors.add(executor.isEmpty() ? "null" : "\"" + escapeJavaString(executor) + "\"");
+                anyExecutor |= !executor.isEmpty();
+                Subscribe subscribe = method.getAnnotation(Subscribe.class);
+                boolean striped = subscribe != null && (subscribe.striped() || !subscribe.stripeKey().isEmpty());
+                Integer stripeKeyId = stripeKeyIds.get(method);
+                stripeKeys.add(String.valueOf(stripeKeyId != null ? stripeKeyId : striped ? 0 : -1));
+                anyStriped |= striped;
+            }
+            String subscriberClass = getClassString(subscriberTypeElement, myPackage) + ".class";
+            if (anyCoalesce) {
+                coalesceLines.add(new String[] {"COALESCE.put(" + subscriberClass + ",",
+                        "new boolean[] {" + join(coalesce) + "});"});
+            }
+            if (anyMerge) {
+                mergeLines.add(new String[] {"MERGE_IDS.put(" + subscriberClass + ",",
+                        "new int[] {" + join(merges) + "});"});
+            }
+            if (anyQueueCapacity) {
+                queueLines.add(new String[] {"QUEUE_CAPACITIES.put(" + subscriberClass + ",",
+                        "new int[] {" + join(queueCapacities) + "});"});
+                queueLines.add(new String[] {"OVERFLOW_POLICIES.put(" + subscriberClass + ",",
+                        "new OverflowPolicy[] {" + join(overflowPolicies) + "});"});
+            }
+            if (anyExecutor) {
+                executorLines.add(new String[] {"EXECUTORS.put(" + subscriberClass + ",",
+                        "new String[] {" + join(executors) + "});"});
+            }
+            if (anyStriped) {
+                stripeLines.add(new String[] {"STRIPE_KEYS.put(" + subscriberClass + ",",
+                        "new int[] {" + join(stripeKeys) + "});"});
+            }
+        }
+
+        writer.write("\n");
+        writer.write("    /** Holder class, so the delivery options are only initialized when first used. */\n");
+        writer.write("    private static final class DeliveryOptions {\n");
+        writer.write("        static final Map<Class<?>, boolean[]> COALESCE = new HashMap<Class<?>, boolean[]>();\n");
+        writer.write("        static final Map<Class<?>, int[]> MERGE_IDS = new HashMap<Class<?>, int[]>();\n");
+        writer.write("        static final Map<Class<?>, int[]> QUEUE_CAPACITIES = new HashMap<Class<?>, int[]>();\n");
+        writer.write("        static final Map<Class<?>, OverflowPolicy[]> OVERFLOW_POLICIES = new HashMap<Class<?>, OverflowPolicy[]>();\n");
+        writer.write("        static final Map<Class<?>, String[]> EXECUTORS = new HashMap<Class<?>, String[]>();\n");
+        writer.write("        static final Map<Class<?>, int[]> STRIPE_KEYS = new HashMap<Class<?>, int[]>();\n\n");
+        writer.write("        static {\n");
+        for (String[] line : coalesceLines) {
+            writeLine(writer, 3, line);
+        }
+        for (String[] line : mergeLines) {
+            writeLine(writer, 3, line);
+        }
+        for (String[] line : queueLines) {
+            writeLine(writer, 3, line);
+        }
+        for (String[] line : executorLines) {
+            writeLine(writer, 3, line);
+        }
+        for (String[] line : stripeLines) {
+            writeLine(writer, 3, line);
+        }
+        writer.write("        }\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /**\n");
+        writer.write("     * @return per method whether pending deliveries are coalesced to the newest event, aligned with the\n");
+        writer.write("     * SubscriberMethodInfo array; null if no method of the class coalesces\n");
+        writer.write("     */\n");
+        writer.write("    public static boolean[] getCoalesce(Class<?> subscriberClass) {\n");
+        writer.write("        return DeliveryOptions.COALESCE.get(subscriberClass);\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /**\n");
+        writer.write("     * @return per method the merge id for {@link #merge} of a coalescing method with a merge method, otherwise\n");
+        writer.write("     * 0, aligned with the SubscriberMethodInfo array; null if no method of the class merges\n");
+        writer.write("     */\n");
+        writer.write("    public static int[] getMergeIds(Class<?> subscriberClass) {\n");
+        writer.write("        return DeliveryOptions.MERGE_IDS.get(subscriberClass);\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /** @return the event to deliver instead of the queued one, combined by the subscriber's merge method */\n");
+        writer.write("    public static Object merge(int mergeId, Object subscriber, Object queued, Object newer) {\n");
+        writer.write("        switch (mergeId) {\n");
+        for (Map.Entry<ExecutableElement, Integer> entry : mergeIds.entrySet()) {
+            ExecutableElement method = entry.getKey();
+            String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+            String eventType = getBoxedTypeName(method);
+            writer.write("            case " + entry.getValue() + ":\n");
+            writer.write("                return ((" + subscriberClass + ") subscriber)." + getMerge(method) + "((" + eventType
+                    + ") queued, (" + eventType + ") newer);\n");
+        }
+        writer.write("            default:\n");
+        writer.write("                throw new IllegalArgumentException(\"Unknown merge id \" + mergeId);\n");
+        writer.write("        }\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /**\n");
+        writer.write("     * @return per method the capacity of its delivery queue (0 for unbounded), aligned with the\n");
+        writer.write("     * SubscriberMethodInfo array; null if all queues of the class are unbounded\n");
+        writer.write("     */\n");
+        writer.write("    public static int[] getQueueCapacities(Class<?> subscriberClass) {\n");
+        writer.write("        return DeliveryOptions.QUEUE_CAPACITIES.get(subscriberClass);\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /** @return per method what a post does when its queue is full; null like {@link #getQueueCapacities} */\n");
+        writer.write("    public static OverflowPolicy[] getOverflowPolicies(Class<?> subscriberClass) {\n");
+        writer.write("        return DeliveryOptions.OVERFLOW_POLICIES.get(subscriberClass);\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /**\n");
+        writer.write("     * @return per method the name of its executor (see the generated $$Executors registry) or null for the\n");
+        writer.write("     * shared one; null if no method of the class names an executor\n");
+        writer.write("     */\n");
+        writer.write("    public static String[] getExecutors(Class<?> subscriberClass) {\n");
+        writer.write("        return DeliveryOptions.EXECUTORS.get(subscriberClass);\n");
+        writer.write("    }\n\n");
+        if (!executorSpecs.isEmpty()) {
+            String executorsClassName = CLASSNAME + captureName(moduleName) + "$$Executors";
+            String executorsClass = executorsClassName.substring(executorsClassName.lastIndexOf('.') + 1);
+            writer.write("    /** @return the shared pool of a named executor of this module, see " + executorsClass + " */\n");
+            writer.write("    public static java.util.concurrent.ExecutorService getExecutor(String name) {\n");
+            writer.write("        return " + executorsClass + ".getExecutor(name);\n");
+            writer.write("    }\n\n");
+        }
+
+        writer.write("    /**\n");
+        writer.write("     * @return per method how BACKGROUND deliveries are striped over lanes, aligned with the SubscriberMethodInfo\n");
+        writer.write("     * array: -1 not striped, 0 keyed by subscriber instance, otherwise the stripe key id for {@link #stripeHash};\n");
+        writer.write("     * null if no method of the class is striped\n");
+        writer.write("     */\n");
+        writer.write("    public static int[] getStripeKeys(Class<?> subscriberClass) {\n");
+        writer.write("        return DeliveryOptions.STRIPE_KEYS.get(subscriberClass);\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /** @return the hash of the event's ordering key, read by a direct accessor call */\n");
+        writer.write("    public static int stripeHash(int stripeKeyId, Object event) {\n");
+        writer.write("        switch (stripeKeyId) {\n");
+        for (Map.Entry<ExecutableElement, Integer> entry : stripeKeyIds.entrySet()) {
+            ExecutableElement method = entry.getKey();
+            String eventClass = getEventClass(method, myPackage);
+            writer.write("            case " + entry.getValue() + ":\n");
+            writer.write("                return hash(((" + eventClass.substring(0, eventClass.length() - ".class".length()) + ") event)."
+                    + getStripeKeyAccessor(method).getSimpleName() + "());\n");
+        }
+        writer.write("            default:\n");
+        writer.write("                throw new IllegalArgumentException(\"Unknown stripe key \" + stripeKeyId);\n");
+        writer.write("        }\n");
+        writer.write("    }\n\n");
+        writer.write("    private static int hash(Object key) {\n");
+        writer.write("        return key != null ? key.hashCode() : 0;\n");
+        writer.write("    }\n\n");
+        writer.write("    private static int hash(int key) {\n");
+        writer.write("        return key;\n");
+        writer.write("    }\n\n");
+        writer.write("    private static int hash(long key) {\n");
+        writer.write("        return (int) (key ^ (key >>> 32));\n");
+        writer.write("    }\n\n");
+        writer.write("    private static int hash(double key) {\n");
+        writer.write("        return hash(Double.doubleToLongBits(key));\n");
+        writer.write("    }\n\n");
+        writer.write("    private static int hash(boolean key) {\n");
+        writer.write("        return key ? 1 : 0;\n");
+        writer.write("    }\n");
+    }
+
+    /**
+     * Writes the sizes the runtime can pre-size its registry with: subscriber methods per class and per event type,
+     * and the number of classes and event types in this index.
+     */
+    private void writeCapacityHints(BufferedWriter writer, String myPackage) throws IOException {
+        ListMap<String, ExecutableElement> methodsByEventType = collectMethodsByEventType(myPackage);
+        List<String> subscriberClasses = new ArrayList<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (!classesToSkip.contains(subscriberTypeElement) && isVisible(myPackage, subscriberTypeElement)) {
+                subscriberClasses.add(getClassString(subscriberTypeElement, myPackage) + ".class");
+            }
+        }
+
+        writer.write("\n");
+        writer.write("    /** Holder class, so the counts are only initialized when first used. */\n");
+        writer.write("    private static final class CapacityHints {\n");
+        writer.write("        static final Map<Class<?>, Integer> SUBSCRIBER_COUNTS = new HashMap<Class<?>, Integer>("
+                + subscriberClasses.size() * 2 + ");\n");
+        writer.write("        static final Map<Class<?>, Integer> EXPECTED_SUBSCRIBERS = new HashMap<Class<?>, Integer>("
+                + methodsByEventType.keySet().size() * 2 + ");\n\n");
+        writer.write("        static {\n");
+        int i = 0;
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (!classesToSkip.contains(subscriberTypeElement) && isVisible(myPackage, subscriberTypeElement)) {
+                writeLine(writer, 3, "SUBSCRIBER_COUNTS.put(" + subscriberClasses.get(i++) + ",",
+                        methodsByClass.get(subscriberTypeElement).size() + ");");
+            }
+        }
+        for (String eventClass : methodsByEventType.keySet()) {
+            writeLine(writer, 3, "EXPECTED_SUBSCRIBERS.put(" + eventClass + ",", methodsByEventType.get(eventClass).size() + ");");
+        }
+        writer.write("        }\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /** @return the number of subscriber methods the class declares, 0 if it is not indexed */\n");
+        writer.write("    public static int getSubscriberCount(Class<?> subscriberClass) {\n");
+        writer.write("        Integer count = CapacityHints.SUBSCRIBER_COUNTS.get(subscriberClass);\n");
+        writer.write("        return count != null ? count : 0;\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /**\n");
+        writer.write("     * @return the number of indexed subscriber methods receiving exactly this event type (primitive types as\n");
+        writer.write("     * e.g. int.class); each may be registered any number of times, so this is a hint, not a limit\n");
+        writer.write("     */\n");
+        writer.write("    public static int getExpectedSubscribers(Class<?> eventType) {\n");
+        writer.write("        Integer count = CapacityHints.EXPECTED_SUBSCRIBERS.get(eventType);\n");
+        writer.write("        return count != null ? count : 0;\n");
+        writer.write("    }\n\n");
+
+        writer.write("    public static int getSubscriberClassCount() {\n");
+        writer.write("        return " + subscriberClasses.size() + ";\n");
+        writer.write("    }\n\n");
+
+        writer.write("    public static int getEventTypeCount() {\n");
+        writer.write("        return " + methodsByEventType.keySet().size() + ";\n");
+        writer.write("    }\n");
+    }
+
+    /**
+     * Numbers the indexed methods with a stripe key accessor from 1, in index order.
+     */
+    private Map<ExecutableElement, Integer> computeStripeKeyIds(String myPackage) {
+        Map<ExecutableElement, Integer> stripeKeyIds = new LinkedHashMap<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : getSortedMethods(subscriberTypeElement)) {
+                Subscribe subscribe = method.getAnnotation(Subscribe.class);
+                if (subscribe != null && !subscribe.stripeKey().isEmpty()) {
+                    stripeKeyIds.put(method, stripeKeyIds.size() + 1);
+                }
+            }
+        }
+        return stripeKeyIds;
+    }
+
+    /**
+     * @return the event method named by stripeKey of the subscriber method, or null if there is no suitable one
+     */
+    private ExecutableElement getStripeKeyAccessor(ExecutableElement method) {
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        if (subscribe == null || subscribe.stripeKey().isEmpty() || method.getParameters().size() != 1) {
+            return null;
+        }
+        TypeMirror eventType = method.getParameters().get(0).asType();
+        if (!(eventType instanceof DeclaredType)) {
+            return null;
+        }
+        TypeElement eventElement = (TypeElement) ((DeclaredType) eventType).asElement();
+        for (Element member : processingEnv.getElementUtils().getAllMembers(eventElement)) {
+            if (!(member instanceof ExecutableElement) || !member.getSimpleName().contentEquals(subscribe.stripeKey())) {
+                continue;
+            }
+            ExecutableElement accessor = (ExecutableElement) member;
+            Set<Modifier> modifiers = accessor.getModifiers();
+            if (accessor.getKind() == ElementKind.METHOD && accessor.getParameters().isEmpty()
+                    && modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC)
+                    && accessor.getReturnType().getKind() != TypeKind.VOID) {
+                return accessor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the {poolSize, queueCapacity, overflowPolicy} of every executor named by an indexed subscriber or by
+     * {@link #OPTION_EXECUTORS}; "0" for a size or capacity the option does not set, null for the policy
+     */
+    private Map<String, String[]> collectExecutors(String option, Messager messager) {
+        Map<String, String[]> executorSpecs = new TreeMap<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : methodsByClass.get(subscriberTypeElement)) {
+                String executor = getExecutor(method);
+                if (!executor.isEmpty()) {
+                    executorSpecs.put(executor, new String[]{"0", "0", null});
+                }
+            }
+        }
+        if (option == null || option.trim().isEmpty()) {
+            return executorSpecs;
+        }
+        for (String entry : option.split(",")) {
+            String[] parts = entry.split(":");
+            String name = parts[0].trim();
+            int size = -1;
+            int queueCapacity = 0;
+            String overflowPolicy = null;
+            try {
+                size = parts.length > 1 && parts.length <= 4 ? Integer.parseInt(parts[1].trim()) : -1;
+                queueCapacity = parts.length > 2 ? Integer.parseInt(parts[2].trim()) : 0;
+                overflowPolicy = parts.length > 3 ? OverflowPolicy.valueOf(parts[3].trim()).name() : null;
+            } catch (IllegalArgumentException e) {
+                // Reported below; NumberFormatException is an IllegalArgumentException too
+                size = -1;
+            }
+            if (name.isEmpty() || size <= 0 || queueCapacity < 0) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Invalid " + OPTION_EXECUTORS + " entry \"" + entry
+                        + "\", expected name:poolSize[:queueCapacity[:overflowPolicy]]");
+                continue;
+            }
+            if (OverflowPolicy.COALESCE.name().equals(overflowPolicy)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Invalid " + OPTION_EXECUTORS + " entry \"" + entry
+                        + "\": COALESCE needs events to compare, executors only queue tasks");
+                continue;
+            }
+            if (!executorSpecs.containsKey(name)) {
+                messager.printMessage(Diagnostic.Kind.WARNING, "Executor " + name + " is not used by any subscriber");
+            }
+            executorSpecs.put(name, new String[]{String.valueOf(size), String.valueOf(queueCapacity), overflowPolicy});
+        }
+        return executorSpecs;
+    }
+
+    /**
+     * Writes the registry of named executors of the module. The pools themselves are kept by name in NamedExecutors,
+     * so modules naming the same executor share one; the registry only passes the configuration of this module,
+     * which the first use of a pool decides. Pools not sized by {@link #OPTION_EXECUTORS} default to the number of
+     * CPUs, queues to NamedExecutors.DEFAULT_QUEUE_CAPACITY and the overflow policy to BLOCK.
+     */
+    private void createExecutorsFile(String executorsClassName, String myPackage, Map<String, String[]> executorSpecs) {
+        BufferedWriter writer = null;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(executorsClassName);
+            int period = executorsClassName.lastIndexOf('.');
+            String clazz = executorsClassName.substring(period + 1);
+            writer = new BufferedWriter(sourceFile.openWriter());
+            if (myPackage != null) {
+                writer.write("package " + myPackage + ";\n\n");
+            }
+            writer.write("import org.greenrobot.eventbus.OverflowPolicy;\n");
+            writer.write("import org.greenrobot.eventbus.executor.NamedExecutors;\n\n");
+            writer.write("import java.util.concurrent.ExecutorService;\n\n");
+            writer.write("/** This class is generated by EventBus, do not edit. */\n");
+            writer.write("public final class " + clazz + " {\n");
+            writer.write("    private static final String[] NAMES = new String[] {\n");
+            for (String name : executorSpecs.keySet()) {
+                writer.write("            \"" + escapeJavaString(name) + "\",\n");
+            }
+            writer.write("    };\n");
+            writer.write("    private static final int[] POOL_SIZES = new int[] {\n");
+            for (String[] spec : executorSpecs.values()) {
+                writer.write("            " + (!spec[0].equals("0") ? spec[0] : "Runtime.getRuntime().availableProcessors()") + ",\n");
+            }
+            writer.write("    };\n");
+            writer.write("    /** 0 for NamedExecutors.DEFAULT_QUEUE_CAPACITY. */\n");
+            writer.write("    private static final int[] QUEUE_CAPACITIES = new int[] {\n");
+            for (String[] spec : executorSpecs.values()) {
+                writer.write("            " + spec[1] + ",\n");
+            }
+            writer.write("    };\n");
+            writer.write("    private static final OverflowPolicy[] OVERFLOW_POLICIES = new OverflowPolicy[] {\n");
+            for (String[] spec : executorSpecs.values()) {
+                writer.write("            OverflowPolicy." + (spec[2] != null ? spec[2] : "BLOCK") + ",\n");
+            }
+            writer.write("    };\n\n");
+            writer.write("    private " + clazz + "() {\n");
+            writer.write("    }\n\n");
+
+            writer.write("    /**\n");
+            writer.write("     * @return the shared pool of the named executor, created with the configuration of this module if it is the\n");
+            writer.write("     * first to use it; null if no subscriber of this module uses that name\n");
+            writer.write("     */\n");
+            writer.write("    public static ExecutorService getExecutor(String name) {\n");
+            writer.write("        int index = indexOf(name);\n");
+            writer.write("        if (index < 0) {\n");
+            writer.write("            return null;\n");
+            writer.write("        }\n");
+            writer.write("        return NamedExecutors.getExecutor(name, POOL_SIZES[index], QUEUE_CAPACITIES[index], OVERFLOW_POLICIES[index]);\n");
+            writer.write("    }\n\n");
+
+            writer.write("    /** Overrides the pool size of the named executor; only possible before its first use. */\n");
+            writer.write("    public static void setPoolSize(String name, int poolSize) {\n");
+            writer.write("        int index = indexOf(name);\n");
+            writer.write("        if (index < 0) {\n");
+            writer.write("            throw new IllegalArgumentException(\"Unknown executor \" + name);\n");
+            writer.write("        }\n");
+            writer.write("        NamedExecutors.configure(name, poolSize, QUEUE_CAPACITIES[index], OVERFLOW_POLICIES[index]);\n");
+            writer.write("    }\n\n");
+
+            writer.write("    public static String[] getNames() {\n");
+            writer.write("        return NAMES.clone();\n");
+            writer.write("    }\n\n");
+
+            writer.write("    private static int indexOf(String name) {\n");
+            writer.write("        for (int i = 0; i < NAMES.length; i++) {\n");
+            writer.write("            if (NAMES[i].equals(name)) {\n");
+            writer.write("                return i;\n");
+            writer.write("            }\n");
+            writer.write("        }\n");
+            writer.write("        return -1;\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write source for " + executorsClassName, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Silent
+                }
+            }
+        }
+    }
+
+    private static String join(List<String> values) {
+        StringBuilder builder = new StringBuilder();
+        for (String value : values) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    private static int getQueueCapacity(ExecutableElement method) {
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        SubscribeRunOnlyTop runOnlyTop = method.getAnnotation(SubscribeRunOnlyTop.class);
+        if (subscribe != null) {
+            return subscribe.queueCapacity();
+        } else if (runOnlyTop != null) {
+            return runOnlyTop.queueCapacity();
+        }
+        return 0;
+    }
+
+    private static OverflowPolicy getOverflowPolicy(ExecutableElement method) {
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        SubscribeRunOnlyTop runOnlyTop = method.getAnnotation(SubscribeRunOnlyTop.class);
+        if (subscribe != null) {
+            return subscribe.overflowPolicy();
+        } else if (runOnlyTop != null) {
+            return runOnlyTop.overflowPolicy();
+        }
+        return OverflowPolicy.DROP_OLDEST;
+    }
+
+    private static String getExecutor(ExecutableElement method) {
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        SubscribeRunOnlyTop runOnlyTop = method.getAnnotation(SubscribeRunOnlyTop.class);
+        if (subscribe != null) {
+            return subscribe.executor();
+        } else if (runOnlyTop != null) {
+            return runOnlyTop.executor();
+        }
+        return "";
+    }
+
+    private static boolean isCoalesce(ExecutableElement method) {
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        SubscribeMainThread mainSubscribe = method.getAnnotation(SubscribeMainThread.class);
+        return (subscribe != null && subscribe.coalesce()) || (mainSubscribe != null && mainSubscribe.coalesce())
+                || !getMerge(method).isEmpty();
+    }
+
+    private static String getMerge(ExecutableElement method) {
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        SubscribeMainThread mainSubscribe = method.getAnnotation(SubscribeMainThread.class);
+        if (subscribe != null) {
+            return subscribe.merge();
+        } else if (mainSubscribe != null) {
+            return mainSubscribe.merge();
+        }
+        return "";
+    }
+
+    /**
+     * @return the subscriber class method named by merge of the subscriber method, E merge(E queued, E newer), or
+     * null if there is no suitable one
+     */
+    private ExecutableElement getMergeMethod(ExecutableElement method) {
+        String merge = getMerge(method);
+        if (merge.isEmpty() || method.getParameters().size() != 1) {
+            return null;
+        }
+        Types typeUtils = processingEnv.getTypeUtils();
+        TypeMirror eventType = typeUtils.erasure(method.getParameters().get(0).asType());
+        TypeElement subscriberClass = (TypeElement) method.getEnclosingElement();
+        for (Element member : processingEnv.getElementUtils().getAllMembers(subscriberClass)) {
+            if (member.getKind() != ElementKind.METHOD || !member.getSimpleName().contentEquals(merge)) {
+                continue;
+            }
+            ExecutableElement candidate = (ExecutableElement) member;
+            Set<Modifier> modifiers = candidate.getModifiers();
+            List<? extends VariableElement> parameters = candidate.getParameters();
+            if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC) && parameters.size() == 2
+                    && typeUtils.isSameType(typeUtils.erasure(parameters.get(0).asType()), eventType)
+                    && typeUtils.isSameType(typeUtils.erasure(parameters.get(1).asType()), eventType)
+                    && typeUtils.isAssignable(typeUtils.erasure(candidate.getReturnType()), eventType)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Numbers the indexed methods with a merge method from 1, in index order.
+     */
+    private Map<ExecutableElement, Integer> computeMergeIds(String myPackage) {
+        Map<ExecutableElement, Integer> mergeIds = new LinkedHashMap<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : getSortedMethods(subscriberTypeElement)) {
+                if (!getMerge(method).isEmpty()) {
+                    mergeIds.put(method, mergeIds.size() + 1);
+                }
+            }
+        }
+        return mergeIds;
+    }
+
+    /**
+     * Writes one dispatch method per primitive event type (e.g. dispatchLong), so the runtime can deliver hot
+     * primitive events straight to the subscriber without boxing them.
+     */
+    private void writePrimitiveDispatchers(BufferedWriter writer, String myPackage) throws IOException {
+        ListMap<String, ExecutableElement> methodsByPrimitive = new ListMap<>();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : methodsByClass.get(subscriberTypeElement)) {
+                String primitive = getPrimitiveParamName(method);
+                if (primitive != null) {
+                    methodsByPrimitive.putElement(primitive, method);
+                }
+            }
+        }
+
+        for (String primitive : methodsByPrimitive.keySet()) {
+            writer.write("\n");
+            writer.write("    public static boolean dispatch" + captureName(primitive) + "(Object subscriber, String methodName, "
+                    + primitive + " event) {\n");
+            for (ExecutableElement method : methodsByPrimitive.get(primitive)) {
+                String subscriberClass = getClassString((TypeElement) method.getEnclosingElement(), myPackage);
+                String methodName = method.getSimpleName().toString();
+                writer.write("        if (subscriber instanceof " + subscriberClass + " && \"" + methodName + "\".equals(methodName)) {\n");
+                writeInvoke(writer, 3, method, "", "((" + subscriberClass + ") subscriber)." + methodName + "(event);");
+                writer.write("            return true;\n");
+                writer.write("        }\n");
+            }
+            writer.write("        return false;\n");
+            writer.write("    }\n");
+        }
+    }
+
+    /**
+     * Writes a direct subscriber call; with {@link #OPTION_METRICS} it is timed and recorded for the method, with
+     * {@link #OPTION_TRACE} it runs inside a trace section named after the method.
+     *
+     * @param indexPrefix how the calling class reaches the index, empty inside the index itself
+     */
+    private void writeInvoke(BufferedWriter writer, int indentLevel, ExecutableElement method, String indexPrefix,
+                             String call) throws IOException {
+        int methodId = methodIds.get(method);
+        if (metrics) {
+            writeLine(writer, indentLevel, "long start = System.nanoTime();");
+        }
+        if (trace) {
+            writeLine(writer, indentLevel, "if (" + indexPrefix + "TRACE_ENABLED) {");
+            writeLine(writer, indentLevel + 1, "android.os.Trace.beginSection(" + indexPrefix + "TRACE_SECTION_" + methodId + ");");
+            writeLine(writer, indentLevel, "}");
+            writeLine(writer, indentLevel, "try {");
+            writeLine(writer, indentLevel + 1, call);
+            writeLine(writer, indentLevel, "} finally {");
+            writeLine(writer, indentLevel + 1, "if (" + indexPrefix + "TRACE_ENABLED) {");
+            writeLine(writer, indentLevel + 2, "android.os.Trace.endSection();");
+            writeLine(writer, indentLevel + 1, "}");
+            writeLine(writer, indentLevel, "}");
+        } else {
+            writeLine(writer, indentLevel, call);
+        }
+        if (metrics) {
+            writeLine(writer, indentLevel, indexPrefix + "recordDelivery(" + methodId + ", System.nanoTime() - start);");
+        }
+    }
+
+    /**
+     * Writes one constant trace section name per indexed method, e.g. "EventBus:MainActivity.onLogin(LoginEvent)".
+     * Constants are interned, so tracing a delivery builds no strings. android.os.Trace exists since API 18.
+     */
+    private void writeTraceSections(BufferedWriter writer) throws IOException {
+        String[] sectionNames = new String[methodIds.size()];
+        for (Map.Entry<ExecutableElement, Integer> entry : methodIds.entrySet()) {
+            ExecutableElement method = entry.getKey();
+            String sectionName = "EventBus:" + method.getEnclosingElement().getSimpleName() + "." + method.getSimpleName()
+                    + "(" + getSignatureName(method, true) + ")";
+            // Trace section names are limited to 127 characters
+            sectionNames[entry.getValue()] = sectionName.length() > 127 ? sectionName.substring(0, 127) : sectionName;
+        }
+
+        writer.write("\n");
+        writer.write("    static final boolean TRACE_ENABLED = android.os.Build.VERSION.SDK_INT >= 18;\n");
+        for (int i = 0; i < sectionNames.length; i++) {
+            writer.write("    static final String TRACE_SECTION_" + i + " = \"" + escapeJavaString(sectionNames[i]) + "\";\n");
+        }
+    }
+
+    /**
+     * Assigns method ids in index order: subscriber classes as written, methods in dispatch order.
+     */
+    private void computeMethodIds(String myPackage) {
+        methodIds.clear();
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            for (ExecutableElement method : getSortedMethods(subscriberTypeElement)) {
+                methodIds.put(method, methodIds.size());
+            }
+        }
+        // Not part of the SubscriberMethodInfo arrays, so they come last
+        for (ExecutableElement method : getMultiArgMethods(myPackage)) {
+            methodIds.put(method, methodIds.size());
+        }
+    }
+
+    /**
+     * Writes the opt-in delivery metrics: per subscriber method a delivery count, the total time and a fixed bucket
+     * latency histogram. Counters are striped by thread (Android has no LongAdder), so concurrent deliveries rarely
+     * contend on the same slot; a snapshot sums the stripes.
+     */
+    private void writeMetrics(BufferedWriter writer, String myPackage) throws IOException {
+        String[] methodNames = new String[methodIds.size()];
+        for (Map.Entry<ExecutableElement, Integer> entry : methodIds.entrySet()) {
+            ExecutableElement method = entry.getKey();
+            methodNames[entry.getValue()] = ((TypeElement) method.getEnclosingElement()).getQualifiedName() + "."
+                    + method.getSimpleName() + "(" + getSignatureName(method, false) + ")";
+        }
+
+        writer.write("\n");
+        writer.write("    private static final int METRIC_STRIPES = 4;\n");
+        writer.write("    /** Upper bounds of the latency buckets; the last bucket takes everything slower. */\n");
+        writer.write("    private static final long[] LATENCY_BUCKET_BOUNDS_NANOS = new long[] {\n");
+        writer.write("            100000L, 500000L, 1000000L, 4000000L, 8000000L, 16000000L, 32000000L,\n");
+        writer.write("    };\n");
+        writer.write("    private static final int LATENCY_BUCKET_COUNT = LATENCY_BUCKET_BOUNDS_NANOS.length + 1;\n");
+        writer.write("    private static final String[] METRIC_METHODS = new String[] {\n");
+        for (String methodName : methodNames) {
+            writer.write("            \"" + methodName + "\",\n");
+        }
+        writer.write("    };\n");
+        writer.write("    private static final AtomicLongArray DELIVERIES = new AtomicLongArray(METRIC_STRIPES * METRIC_METHODS.length);\n");
+        writer.write("    private static final AtomicLongArray DELIVERY_NANOS = new AtomicLongArray(METRIC_STRIPES * METRIC_METHODS.length);\n");
+        writer.write("    private static final AtomicLongArray LATENCY_HISTOGRAM =\n");
+        writer.write("            new AtomicLongArray(METRIC_STRIPES * METRIC_METHODS.length * LATENCY_BUCKET_COUNT);\n\n");
+
+        writer.write("    /** Holder class, so the id table is only initialized when first used. */\n");
+        writer.write("    private static final class MetricIds {\n");
+        writer.write("        static final Map<Class<?>, int[]> IDS = new HashMap<Class<?>, int[]>();\n\n");
+        writer.write("        static {\n");
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            StringBuilder ids = new StringBuilder();
+            for (ExecutableElement method : getSortedMethods(subscriberTypeElement)) {
+                if (ids.length() > 0) {
+                    ids.append(", ");
+                }
+                ids.append(methodIds.get(method));
+            }
+            writeLine(writer, 3, "IDS.put(" + getClassString(subscriberTypeElement, myPackage) + ".class,",
+                    "new int[] {" + ids + "});");
+        }
+        writer.write("        }\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /**\n");
+        writer.write("     * @return the metric ids of the subscriber class, aligned with its SubscriberMethodInfo array, so deliveries\n");
+        writer.write("     * made by the runtime itself can be recorded too\n");
+        writer.write("     */\n");
+        writer.write("    public static int[] getMetricIds(Class<?> subscriberClass) {\n");
+        writer.write("        return MetricIds.IDS.get(subscriberClass);\n");
+        writer.write("    }\n\n");
+
+        writer.write("    public static void recordDelivery(int metricId, long nanos) {\n");
+        writer.write("        int stripe = (int) Thread.currentThread().getId() & (METRIC_STRIPES - 1);\n");
+        writer.write("        int slot = stripe * METRIC_METHODS.length + metricId;\n");
+        writer.write("        int bucket = 0;\n");
+        writer.write("        while (bucket < LATENCY_BUCKET_BOUNDS_NANOS.length && nanos >= LATENCY_BUCKET_BOUNDS_NANOS[bucket]) {\n");
+        writer.write("            bucket++;\n");
+        writer.write("        }\n");
+        writer.write("        DELIVERIES.incrementAndGet(slot);\n");
+        writer.write("        DELIVERY_NANOS.addAndGet(slot, nanos);\n");
+        writer.write("        LATENCY_HISTOGRAM.incrementAndGet(slot * LATENCY_BUCKET_COUNT + bucket);\n");
+        writer.write("    }\n\n");
+
+        writer.write("    public static int getMetricCount() {\n");
+        writer.write("        return METRIC_METHODS.length;\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /** @return e.g. com.example.MainActivity.onLogin(com.example.LoginEvent) */\n");
+        writer.write("    public static String getMetricName(int metricId) {\n");
+        writer.write("        return METRIC_METHODS[metricId];\n");
+        writer.write("    }\n\n");
+
+        writer.write("    public static long[] getLatencyBucketBoundsNanos() {\n");
+        writer.write("        return LATENCY_BUCKET_BOUNDS_NANOS.clone();\n");
+        writer.write("    }\n\n");
+
+        writer.write("    /**\n");
+        writer.write("     * @return delivery count, total nanos, then one count per latency bucket; concurrent deliveries may be only\n");
+        writer.write("     * partly included\n");
+        writer.write("     */\n");
+        writer.write("    public static long[] getMetricsSnapshot(int metricId) {\n");
+        writer.write("        long[] snapshot = new long[2 + LATENCY_BUCKET_COUNT];\n");
+        writer.write("        for (int stripe = 0; stripe < METRIC_STRIPES; stripe++) {\n");
+        writer.write("            int slot = stripe * METRIC_METHODS.length + metricId;\n");
+        writer.write("            snapshot[0] += DELIVERIES.get(slot);\n");
+        writer.write("            snapshot[1] += DELIVERY_NANOS.get(slot);\n");
+        writer.write("            for (int bucket = 0; bucket < LATENCY_BUCKET_COUNT; bucket++) {\n");
+        writer.write("                snapshot[2 + bucket] += LATENCY_HISTOGRAM.get(slot * LATENCY_BUCKET_COUNT + bucket);\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
+        writer.write("        return snapshot;\n");
+        writer.write("    }\n");
+    }
+
+    /**
+     * @return the primitive parameter type of a @SubscribeMainThread, @SubscribeRunOnlyTop or @SubscribeSimple
+     * method, or null if the method does not take exactly one primitive
+     */
+    private String getPrimitiveParamName(ExecutableElement method) {
+        if (method.getAnnotation(Subscribe.class) != null) {
+            return null;
+        }
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (parameters.size() != 1) {
+            return null;
+        }
+        TypeMirror paramType = parameters.get(0).asType();
+        if (!paramType.getKind().isPrimitive()) {
+            return null;
+        }
+        return paramType.toString();
+    }
+
+    private boolean isVisible(String myPackage, TypeElement typeElement) {
+        Set<Modifier> modifiers = typeElement.getModifiers();
+        boolean visible;
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            visible = true;
+        } else if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.PROTECTED)) {
+            visible = false;
+        } else {
+            String subscriberPackage = getPackageElement(typeElement).getQualifiedName().toString();
+            if (myPackage == null) {
+                visible = subscriberPackage.length() == 0;
+            } else {
+                visible = myPackage.equals(subscriberPackage);
+            }
+        }
+        return visible;
+    }
+
+    private void writeLine(BufferedWriter writer, int indentLevel, String... parts) throws IOException {
+        writeLine(writer, indentLevel, 2, parts);
+    }
+
+    private void writeLine(BufferedWriter writer, int indentLevel, int indentLevelIncrease, String... parts)
+            throws IOException {
+        writeIndent(writer, indentLevel);
+        int len = indentLevel * 4;
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            if (i != 0) {
+                if (len + part.length() > 118) {
+                    writer.write("\n");
+                    if (indentLevel < 12) {
+                        indentLevel += indentLevelIncrease;
+                    }
+                    writeIndent(writer, indentLevel);
+                    len = indentLevel * 4;
+                } else {
+                    writer.write(" ");
+                }
+            }
+            writer.write(part);
+            len += part.length();
+        }
+        writer.write("\n");
+    }
+
+    private void writeIndent(BufferedWriter writer, int indentLevel) throws IOException {
+        for (int i = 0; i < indentLevel; i++) {
+            writer.write("    ");
+        }
+    }
+
+    private static ThreadMode getThreadMode(ExecutableElement method) {
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        SubscribeRunOnlyTop runOnlyTop = method.getAnnotation(SubscribeRunOnlyTop.class);
+        if (subscribe != null) {
+            return subscribe.threadMode();
+        } else if (runOnlyTop != null) {
+            return runOnlyTop.threadMode();
+        } else if (method.getAnnotation(SubscribeMainThread.class) != null) {
+            return ThreadMode.MAIN;
+        }
+        return ThreadMode.POSTING;
+    }
+
+    private static int getPriority(ExecutableElement method) {
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        SubscribeMainThread mainSubscribe = method.getAnnotation(SubscribeMainThread.class);
+        if (subscribe != null) {
+            return subscribe.priority();
+        } else if (mainSubscribe != null) {
+            return mainSubscribe.priority();
+        }
+        return 0;
+    }
+
+    private static boolean isLifo(ExecutableElement method) {
+        SubscribeMainThread mainSubscribe = method.getAnnotation(SubscribeMainThread.class);
+        return mainSubscribe != null && mainSubscribe.lifo();
+    }
+
+    private static int compareInt(int lhs, int rhs) {
+        return lhs < rhs ? -1 : (lhs == rhs ? 0 : 1);
     }
 
     public static String captureName(String name) {
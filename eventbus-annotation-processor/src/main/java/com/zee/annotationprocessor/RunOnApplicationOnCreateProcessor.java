@@ -24,6 +24,7 @@ import org.greenrobot.eventbus.SubscribeMainThread;
 import org.greenrobot.eventbus.SubscribeRunOnlyTop;
 import org.greenrobot.eventbus.SubscribeSimple;
 
+import com.zee.index.BinaryIndexReader;
 import com.zee.utils.Common;
 import com.zee.utils.Logger;
 import com.zee.utils.RunOnApplicationOnCreateUtil;
@@ -48,7 +49,7 @@ import javax.tools.Diagnostic;
 /**
  *
  */
-@SupportedOptions("moduleName")
+@SupportedOptions({"moduleName", "zeeBinaryIndex"})
 @AutoService(Processor.class)
 public class RunOnApplicationOnCreateProcessor extends AbstractProcessor {
     private RunOnApplicationOnCreateUtil mRouterInfoMakeUtil;
@@ -56,6 +57,7 @@ public class RunOnApplicationOnCreateProcessor extends AbstractProcessor {
     //获得模块名称
     private String moduleName;
     public static final String KEY_MODULE_NAME = "moduleName";
+    public static final String KEY_BINARY_INDEX = "zeeBinaryIndex";
     private static final String CLASSNAME = Common.COMMONFILEPR;
 
     private boolean writerRoundDone;
@@ -112,6 +114,9 @@ public class RunOnApplicationOnCreateProcessor extends AbstractProcessor {
 //                createInfoIndexFile(index);
             if (!mRouterInfoMakeUtil.isEmpty()) {
                 mRouterInfoMakeUtil.createInfoIndexFile(index);
+                if (Boolean.parseBoolean(processingEnv.getOptions().get(KEY_BINARY_INDEX))) {
+                    mRouterInfoMakeUtil.createBinaryIndexFile(BinaryIndexReader.getResourceName(moduleName, "init"), indexPackage);
+                }
             } else {
                 messager.printMessage(Diagnostic.Kind.WARNING, "No @RunApplicationOnCreate annotations found");
             }
@@ -0,0 +1,148 @@
+package com.zee.utils;
+
+import com.zee.index.BinaryIndexReader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.Filer;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Builds a binary index resource in the format read by {@link BinaryIndexReader}. Entries are sorted by key,
+ * so the reader can binary search without decoding entries it does not need.
+ */
+public class BinaryIndexWriter {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final byte kind;
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+
+    public BinaryIndexWriter(byte kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * @return the string table index of the value, to be used as entry field
+     */
+    public int string(String value) {
+        Integer index = stringIndex.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            stringIndex.put(value, index);
+        }
+        return index;
+    }
+
+    public void addEntry(String key, List<Integer> fields) {
+        int[] values = new int[fields.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = fields.get(i);
+        }
+        entries.add(new Entry(key, string(key), values));
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public byte[] toByteArray() {
+        List<Entry> sortedEntries = new ArrayList<>(entries);
+        Collections.sort(sortedEntries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry lhs, Entry rhs) {
+                return BinaryIndexReader.compareUtf8(lhs.keyBytes, rhs.keyBytes);
+            }
+        });
+
+        List<byte[]> encodedStrings = new ArrayList<>();
+        int size = BinaryIndexReader.HEADER_SIZE + 4 * strings.size() + 4 * sortedEntries.size();
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(UTF_8);
+            if (bytes.length > 0xffff) {
+                throw new IllegalArgumentException("String too long for binary index: " + value);
+            }
+            encodedStrings.add(bytes);
+            size += 2 + bytes.length;
+        }
+        for (Entry entry : sortedEntries) {
+            size += 6 + 4 * entry.fields.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(BinaryIndexReader.MAGIC);
+        buffer.putShort(BinaryIndexReader.VERSION);
+        buffer.put(kind);
+        buffer.put((byte) 0);
+        buffer.putInt(strings.size());
+        buffer.putInt(sortedEntries.size());
+
+        int offset = BinaryIndexReader.HEADER_SIZE + 4 * strings.size() + 4 * sortedEntries.size();
+        for (byte[] bytes : encodedStrings) {
+            buffer.putInt(offset);
+            offset += 2 + bytes.length;
+        }
+        for (Entry entry : sortedEntries) {
+            buffer.putInt(offset);
+            offset += 6 + 4 * entry.fields.length;
+        }
+        for (byte[] bytes : encodedStrings) {
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+        for (Entry entry : sortedEntries) {
+            buffer.putInt(entry.keyIndex);
+            buffer.putShort((short) entry.fields.length);
+            for (int field : entry.fields) {
+                buffer.putInt(field);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Writes the index as class output resource, e.g. META-INF/zee/app.eventbus.idx.
+     */
+    public void writeTo(Filer filer, String resourceName) {
+        OutputStream outputStream = null;
+        try {
+            FileObject resource = filer.createResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+            outputStream = resource.openOutputStream();
+            outputStream.write(toByteArray());
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write binary index " + resourceName, e);
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (IOException e) {
+                    //Silent
+                }
+            }
+        }
+    }
+
+    private static class Entry {
+        final int keyIndex;
+        final byte[] keyBytes;
+        final int[] fields;
+
+        Entry(String key, int keyIndex, int[] fields) {
+            this.keyIndex = keyIndex;
+            this.keyBytes = key.getBytes(UTF_8);
+            this.fields = fields;
+        }
+    }
+}
@@ -0,0 +1,585 @@
+package com.zee.utils;
+
+import org.greenrobot.eventbus.CrossProcessEvent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+public class CrossProcessEventMakeUtil {
+    private final List<TypeElement> crossProcessEvents = new ArrayList<>();
+    /** Fields of every event class in encoding order. */
+    private final Map<TypeElement, List<CodecField>> fieldsByEvent = new HashMap<>();
+    private final Map<Integer, TypeElement> eventsByTypeId = new HashMap<>();
+
+    private Elements elements;
+    private Types types;
+    ProcessingEnvironment processingEnv;
+
+    Logger logger;
+
+    public CrossProcessEventMakeUtil(ProcessingEnvironment processingEnv, Logger logger) {
+        this.processingEnv = processingEnv;
+        this.logger = logger;
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+    }
+
+    public void collectCrossProcessEvents(Set<? extends TypeElement> annotations, RoundEnvironment env, Messager messager) {
+        for (TypeElement annotation : annotations) {
+            Set<? extends Element> annotatedElements = env.getElementsAnnotatedWith(annotation);
+            for (Element element : annotatedElements) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "@CrossProcessEvent is only valid for classes", element);
+                } else if (checkHasNoErrors((TypeElement) element, messager)) {
+                    crossProcessEvents.add((TypeElement) element);
+                }
+            }
+        }
+    }
+
+    private boolean checkHasNoErrors(TypeElement eventClass, Messager messager) {
+        Set<Modifier> modifiers = eventClass.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cross process event class must be public and not abstract", eventClass);
+            return false;
+        }
+        if (eventClass.getEnclosingElement().getKind() != ElementKind.PACKAGE && !modifiers.contains(Modifier.STATIC)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cross process event class must not be an inner class", eventClass);
+            return false;
+        }
+
+        PackageElement codecPackage = elements.getPackageOf(eventClass);
+        boolean hasNoArgConstructor = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(eventClass.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && isAccessible(constructor, codecPackage)) {
+                hasNoArgConstructor = true;
+            }
+        }
+        if (!hasNoArgConstructor) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cross process event class must have a no-arg constructor", eventClass);
+            return false;
+        }
+
+        int typeId = getTypeId(eventClass);
+        TypeElement other = eventsByTypeId.get(typeId);
+        if (other != null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cross process event type id " + typeId + " is also used by "
+                    + other.getQualifiedName() + ", set a unique id", eventClass);
+            return false;
+        }
+
+        List<CodecField> fields = new ArrayList<>();
+        for (TypeElement type : getClassHierarchy(eventClass)) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                Set<Modifier> fieldModifiers = field.getModifiers();
+                if (fieldModifiers.contains(Modifier.STATIC) || fieldModifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                CodecField codecField = createCodecField(eventClass, field, codecPackage, messager);
+                if (codecField == null) {
+                    return false;
+                }
+                fields.add(codecField);
+            }
+        }
+        eventsByTypeId.put(typeId, eventClass);
+        fieldsByEvent.put(eventClass, fields);
+        return true;
+    }
+
+    /**
+     * @return the field with its kind and access expressions, or null after reporting why it cannot be encoded
+     */
+    private CodecField createCodecField(TypeElement eventClass, VariableElement field, PackageElement codecPackage,
+                                        Messager messager) {
+        String name = field.getSimpleName().toString();
+        if (field.getModifiers().contains(Modifier.FINAL)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cross process event field " + name + " must not be final", field);
+            return null;
+        }
+        TypeMirror type = field.asType();
+        CodecField codecField = new CodecField();
+        codecField.typeName = types.erasure(type).toString();
+        codecField.kind = getKind(type);
+        if (codecField.kind == null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cross process event field " + name + " has the unsupported type "
+                    + type + "; use primitives, their wrappers, String, enums, primitive arrays or @CrossProcessEvent classes", field);
+            return null;
+        }
+
+        if (isAccessible(field, codecPackage)) {
+            codecField.getter = "event." + name;
+            codecField.setterPrefix = "event." + name + " = ";
+            codecField.setterSuffix = ";";
+            return codecField;
+        }
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        ExecutableElement getter = null;
+        ExecutableElement setter = null;
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(eventClass))) {
+            if (method.getModifiers().contains(Modifier.STATIC) || !isAccessible(method, codecPackage)) {
+                continue;
+            }
+            String methodName = method.getSimpleName().toString();
+            List<? extends VariableElement> parameters = method.getParameters();
+            if (parameters.isEmpty() && types.isSameType(method.getReturnType(), type) && (methodName.equals("get" + capitalized)
+                    || (type.getKind() == TypeKind.BOOLEAN && methodName.equals("is" + capitalized)))) {
+                getter = method;
+            } else if (parameters.size() == 1 && methodName.equals("set" + capitalized)
+                    && types.isSameType(parameters.get(0).asType(), type)) {
+                setter = method;
+            }
+        }
+        if (getter == null || setter == null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cross process event field " + name
+                    + " must be accessible from its package, or have a getter and a setter", field);
+            return null;
+        }
+        codecField.getter = "event." + getter.getSimpleName() + "()";
+        codecField.setterPrefix = "event." + setter.getSimpleName() + "(";
+        codecField.setterSuffix = ");";
+        return codecField;
+    }
+
+    private Kind getKind(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return Kind.PRIMITIVE;
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            TypeMirror componentType = ((ArrayType) type).getComponentType();
+            return componentType.getKind().isPrimitive() && componentType.getKind() != TypeKind.BOOLEAN ? Kind.ARRAY : null;
+        }
+        if (type.getKind() != TypeKind.DECLARED || !((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return null;
+        }
+        TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+        if (typeElement.getQualifiedName().contentEquals("java.lang.String")) {
+            return Kind.STRING;
+        }
+        if (typeElement.getKind() == ElementKind.ENUM) {
+            return Kind.ENUM;
+        }
+        if (typeElement.getAnnotation(CrossProcessEvent.class) != null) {
+            return Kind.EVENT;
+        }
+        try {
+            types.unboxedType(type);
+            return Kind.BOXED;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the class and its super classes up to Object, top most first
+     */
+    private List<TypeElement> getClassHierarchy(TypeElement eventClass) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        TypeElement type = eventClass;
+        while (type != null && !type.getQualifiedName().contentEquals("java.lang.Object")) {
+            hierarchy.add(type);
+            TypeMirror superclass = type.getSuperclass();
+            type = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+        }
+        Collections.reverse(hierarchy);
+        return hierarchy;
+    }
+
+    private boolean isAccessible(Element member, PackageElement codecPackage) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !modifiers.contains(Modifier.PRIVATE) && elements.getPackageOf(member).equals(codecPackage);
+    }
+
+    private int getTypeId(TypeElement eventClass) {
+        int id = eventClass.getAnnotation(CrossProcessEvent.class).id();
+        return id != 0 ? id : eventClass.getQualifiedName().toString().hashCode();
+    }
+
+    public boolean isEmpty() {
+        return crossProcessEvents.isEmpty();
+    }
+
+    /**
+     * Writes one codec per event class next to the event, and the module wide codec registry.
+     */
+    public void createCodecFiles(String index) {
+        for (TypeElement eventClass : crossProcessEvents) {
+            createCodecFile(eventClass);
+        }
+        createRegistryFile(index);
+    }
+
+    private void createCodecFile(TypeElement eventClass) {
+        String codecClass = getCodecClassName(eventClass);
+        String eventName = eventClass.getQualifiedName().toString();
+        List<CodecField> fields = fieldsByEvent.get(eventClass);
+        BufferedWriter writer = null;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(codecClass, eventClass);
+            int period = codecClass.lastIndexOf('.');
+            String myPackage = period > 0 ? codecClass.substring(0, period) : null;
+            String clazz = codecClass.substring(period + 1);
+            writer = new BufferedWriter(sourceFile.openWriter());
+            if (myPackage != null) {
+                writer.write("package " + myPackage + ";\n\n");
+            }
+            writer.write("import org.greenrobot.eventbus.crossprocess.CodecBuffers;\n");
+            writer.write("import org.greenrobot.eventbus.crossprocess.CorruptFrameException;\n");
+            writer.write("import org.greenrobot.eventbus.crossprocess.EventCodec;\n\n");
+            writer.write("import java.nio.BufferUnderflowException;\n");
+            writer.write("import java.nio.ByteBuffer;\n\n");
+            writer.write("/** This class is generated by EventBus, do not edit. */\n");
+            writer.write("public final class " + clazz + " implements EventCodec<" + eventName + "> {\n");
+            writer.write("    public static final int TYPE_ID = " + getTypeId(eventClass) + ";\n");
+            writer.write("    public static final " + clazz + " INSTANCE = new " + clazz + "();\n");
+            for (int i = 0; i < fields.size(); i++) {
+                CodecField field = fields.get(i);
+                if (field.kind == Kind.ENUM) {
+                    // values() copies the array on every call
+                    writer.write("    private static final " + field.typeName + "[] VALUES_" + i + " = " + field.typeName + ".values();\n");
+                }
+            }
+            writer.write("\n");
+            writer.write("    private " + clazz + "() {\n");
+            writer.write("    }\n\n");
+
+            writer.write("    @Override\n");
+            writer.write("    public int getTypeId() {\n");
+            writer.write("        return TYPE_ID;\n");
+            writer.write("    }\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public Class<" + eventName + "> getEventType() {\n");
+            writer.write("        return " + eventName + ".class;\n");
+            writer.write("    }\n\n");
+
+            writer.write("    @Override\n");
+            writer.write("    public int sizeOf(" + eventName + " event) {\n");
+            int fixedSize = 0;
+            for (CodecField field : fields) {
+                if (field.kind == Kind.PRIMITIVE) {
+                    fixedSize += getWidth(field.typeName);
+                } else if (field.kind == Kind.ENUM) {
+                    fixedSize += 4;
+                }
+            }
+            writer.write("        int size = " + fixedSize + ";\n");
+            for (CodecField field : fields) {
+                switch (field.kind) {
+                    case BOXED:
+                        writer.write("        size += " + field.getter + " != null ? " + (1 + getWidth(getPrimitiveName(field.typeName))) + " : 1;\n");
+                        break;
+                    case STRING:
+                    case ARRAY:
+                        writer.write("        size += CodecBuffers.sizeOf(" + field.getter + ");\n");
+                        break;
+                    case EVENT:
+                        writer.write("        size += " + field.getter + " != null ? 1 + " + getCodecReference(field.typeName)
+                                + ".sizeOf(" + field.getter + ") : 1;\n");
+                        break;
+                    default:
+                        break;
+                }
+            }
+            writer.write("        return size;\n");
+            writer.write("    }\n\n");
+
+            writer.write("    @Override\n");
+            writer.write("    public void encode(" + eventName + " event, ByteBuffer buffer) {\n");
+            for (int i = 0; i < fields.size(); i++) {
+                writeEncode(writer, fields.get(i), i);
+            }
+            writer.write("    }\n\n");
+
+            writer.write("    @Override\n");
+            writer.write("    public " + eventName + " decode(ByteBuffer buffer) {\n");
+            writer.write("        " + eventName + " event = new " + eventName + "();\n");
+            // Lengths and ordinals are checked by CodecBuffers, a frame cut short shows as underflow
+            writer.write("        try {\n");
+            for (int i = 0; i < fields.size(); i++) {
+                writeDecode(writer, fields.get(i), i);
+            }
+            writer.write("        } catch (BufferUnderflowException e) {\n");
+            writer.write("            throw new CorruptFrameException(\"Frame of " + eventName + " ends early\", e);\n");
+            writer.write("        }\n");
+            writer.write("        return event;\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write source for " + codecClass, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Silent
+                }
+            }
+        }
+    }
+
+    private void writeEncode(BufferedWriter writer, CodecField field, int index) throws IOException {
+        String value = "value" + index;
+        switch (field.kind) {
+            case PRIMITIVE:
+                writer.write("        " + getPut(field.typeName, field.getter) + ";\n");
+                break;
+            case BOXED:
+                writer.write("        " + field.typeName + " " + value + " = " + field.getter + ";\n");
+                writer.write("        if (" + value + " == null) {\n");
+                writer.write("            buffer.put((byte) 0);\n");
+                writer.write("        } else {\n");
+                writer.write("            buffer.put((byte) 1);\n");
+                writer.write("            " + getPut(getPrimitiveName(field.typeName), value) + ";\n");
+                writer.write("        }\n");
+                break;
+            case STRING:
+                writer.write("        CodecBuffers.putString(buffer, " + field.getter + ");\n");
+                break;
+            case ARRAY:
+                writer.write("        CodecBuffers.putArray(buffer, " + field.getter + ");\n");
+                break;
+            case ENUM:
+                writer.write("        " + field.typeName + " " + value + " = " + field.getter + ";\n");
+                writer.write("        buffer.putInt(" + value + " != null ? " + value + ".ordinal() : -1);\n");
+                break;
+            case EVENT:
+                writer.write("        " + field.typeName + " " + value + " = " + field.getter + ";\n");
+                writer.write("        if (" + value + " == null) {\n");
+                writer.write("            buffer.put((byte) 0);\n");
+                writer.write("        } else {\n");
+                writer.write("            buffer.put((byte) 1);\n");
+                writer.write("            " + getCodecReference(field.typeName) + ".encode(" + value + ", buffer);\n");
+                writer.write("        }\n");
+                break;
+            default:
+                throw new IllegalStateException("Unknown kind " + field.kind);
+        }
+    }
+
+    private void writeDecode(BufferedWriter writer, CodecField field, int index) throws IOException {
+        String value;
+        switch (field.kind) {
+            case PRIMITIVE:
+                value = getGet(field.typeName);
+                break;
+            case BOXED:
+                value = "buffer.get() != 0 ? " + field.typeName + ".valueOf(" + getGet(getPrimitiveName(field.typeName)) + ") : null";
+                break;
+            case STRING:
+                value = "CodecBuffers.getString(buffer)";
+                break;
+            case ARRAY:
+                String componentName = field.typeName.substring(0, field.typeName.length() - 2);
+                value = "CodecBuffers.get" + Character.toUpperCase(componentName.charAt(0)) + componentName.substring(1)
+                        + "Array(buffer)";
+                break;
+            case ENUM:
+                value = "CodecBuffers.getEnum(buffer, VALUES_" + index + ")";
+                break;
+            case EVENT:
+                value = "buffer.get() != 0 ? " + getCodecReference(field.typeName) + ".decode(buffer) : null";
+                break;
+            default:
+                throw new IllegalStateException("Unknown kind " + field.kind);
+        }
+        writer.write("            " + field.setterPrefix + value + field.setterSuffix + "\n");
+    }
+
+    private void createRegistryFile(String index) {
+        BufferedWriter writer = null;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(index);
+            int period = index.lastIndexOf('.');
+            String myPackage = period > 0 ? index.substring(0, period) : null;
+            String clazz = index.substring(period + 1);
+            writer = new BufferedWriter(sourceFile.openWriter());
+            if (myPackage != null) {
+                writer.write("package " + myPackage + ";\n\n");
+            }
+            writer.write("import org.greenrobot.eventbus.crossprocess.CorruptFrameException;\n");
+            writer.write("import org.greenrobot.eventbus.crossprocess.CrossProcessTransport;\n");
+            writer.write("import org.greenrobot.eventbus.crossprocess.EventCodec;\n\n");
+            writer.write("import java.nio.ByteBuffer;\n\n");
+            writer.write("/** This class is generated by EventBus, do not edit. */\n");
+            writer.write("public final class " + clazz + " {\n");
+            writer.write("    private " + clazz + "() {\n");
+            writer.write("    }\n\n");
+
+            writer.write("    /** @return the codec of exactly this class (subclasses have their own), or null */\n");
+            writer.write("    @SuppressWarnings(\"unchecked\")\n");
+            writer.write("    public static <T> EventCodec<T> getCodec(Class<T> eventType) {\n");
+            for (TypeElement eventClass : crossProcessEvents) {
+                writer.write("        if (eventType == " + eventClass.getQualifiedName() + ".class) {\n");
+                writer.write("            return (EventCodec<T>) " + getCodecClassName(eventClass) + ".INSTANCE;\n");
+                writer.write("        }\n");
+            }
+            writer.write("        return null;\n");
+            writer.write("    }\n\n");
+
+            writer.write("    public static EventCodec<?> getCodec(int typeId) {\n");
+            writer.write("        switch (typeId) {\n");
+            for (TypeElement eventClass : crossProcessEvents) {
+                writer.write("            case " + getTypeId(eventClass) + ":\n");
+                writer.write("                return " + getCodecClassName(eventClass) + ".INSTANCE;\n");
+            }
+            writer.write("            default:\n");
+            writer.write("                return null;\n");
+            writer.write("        }\n");
+            writer.write("    }\n\n");
+
+            writer.write("    /**\n");
+            writer.write("     * Encodes the event as one frame (type id, then the event) into a buffer of the transport and sends it.\n");
+            writer.write("     *\n");
+            writer.write("     * @return false if the event class is no cross process event of this module\n");
+            writer.write("     */\n");
+            writer.write("    @SuppressWarnings(\"unchecked\")\n");
+            writer.write("    public static boolean send(Object event, CrossProcessTransport transport) {\n");
+            writer.write("        EventCodec<Object> codec = (EventCodec<Object>) getCodec(event.getClass());\n");
+            writer.write("        if (codec == null) {\n");
+            writer.write("            return false;\n");
+            writer.write("        }\n");
+            writer.write("        ByteBuffer frame = transport.obtainBuffer(4 + codec.sizeOf(event));\n");
+            writer.write("        int start = frame.position();\n");
+            writer.write("        frame.putInt(codec.getTypeId());\n");
+            writer.write("        codec.encode(event, frame);\n");
+            writer.write("        frame.limit(frame.position());\n");
+            writer.write("        frame.position(start);\n");
+            writer.write("        transport.send(frame);\n");
+            writer.write("        return true;\n");
+            writer.write("    }\n\n");
+
+            writer.write("    /**\n");
+            writer.write("     * Decodes a frame written by {@link #send(Object, CrossProcessTransport)}.\n");
+            writer.write("     *\n");
+            writer.write("     * @return the event to post, or null (frame left untouched) if its type is not in this module\n");
+            writer.write("     * @throws CorruptFrameException if the frame was not written by a codec of its type\n");
+            writer.write("     */\n");
+            writer.write("    public static Object receive(ByteBuffer frame) {\n");
+            writer.write("        if (frame.remaining() < 4) {\n");
+            writer.write("            throw new CorruptFrameException(\"Frame of \" + frame.remaining() + \" bytes has no type id\");\n");
+            writer.write("        }\n");
+            writer.write("        EventCodec<?> codec = getCodec(frame.getInt(frame.position()));\n");
+            writer.write("        if (codec == null) {\n");
+            writer.write("            return null;\n");
+            writer.write("        }\n");
+            writer.write("        frame.position(frame.position() + 4);\n");
+            writer.write("        return codec.decode(frame);\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write source for " + index, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Silent
+                }
+            }
+        }
+    }
+
+    /**
+     * @return e.g. com.demo.LoginEvent$$Codec, or com.demo.Outer$Inner$$Codec for nested classes
+     */
+    private String getCodecClassName(TypeElement eventClass) {
+        return elements.getBinaryName(eventClass) + "$$Codec";
+    }
+
+    private String getCodecReference(String eventTypeName) {
+        return getCodecClassName(elements.getTypeElement(eventTypeName)) + ".INSTANCE";
+    }
+
+    private static String getPut(String primitiveName, String value) {
+        switch (primitiveName) {
+            case "boolean":
+                return "buffer.put(" + value + " ? (byte) 1 : (byte) 0)";
+            case "byte":
+                return "buffer.put(" + value + ")";
+            default:
+                return "buffer.put" + Character.toUpperCase(primitiveName.charAt(0)) + primitiveName.substring(1) + "(" + value + ")";
+        }
+    }
+
+    private static String getGet(String primitiveName) {
+        switch (primitiveName) {
+            case "boolean":
+                return "buffer.get() != 0";
+            case "byte":
+                return "buffer.get()";
+            default:
+                return "buffer.get" + Character.toUpperCase(primitiveName.charAt(0)) + primitiveName.substring(1) + "()";
+        }
+    }
+
+    private static int getWidth(String primitiveName) {
+        switch (primitiveName) {
+            case "boolean":
+            case "byte":
+                return 1;
+            case "short":
+            case "char":
+                return 2;
+            case "int":
+            case "float":
+                return 4;
+            default:
+                return 8;
+        }
+    }
+
+    private static String getPrimitiveName(String boxedName) {
+        switch (boxedName) {
+            case "java.lang.Integer":
+                return "int";
+            case "java.lang.Character":
+                return "char";
+            default:
+                return boxedName.substring("java.lang.".length()).toLowerCase();
+        }
+    }
+
+    private enum Kind {
+        PRIMITIVE, BOXED, STRING, ARRAY, ENUM, EVENT
+    }
+
+    private static final class CodecField {
+        Kind kind;
+        /** Erased source name, e.g. int, java.lang.Long, int[], com.demo.State. */
+        String typeName;
+        /** Reads the field of {@code event}. */
+        String getter;
+        /** Around the value, writes the field of {@code event}. */
+        String setterPrefix;
+        String setterSuffix;
+    }
+}
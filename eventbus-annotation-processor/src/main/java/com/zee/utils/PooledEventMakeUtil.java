@@ -0,0 +1,234 @@
+package com.zee.utils;
+
+import org.greenrobot.eventbus.PooledEvent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+public class PooledEventMakeUtil {
+    private final List<TypeElement> pooledEvents = new ArrayList<>();
+
+    private Elements elements;
+    ProcessingEnvironment processingEnv;
+
+    Logger logger;
+
+    public PooledEventMakeUtil(ProcessingEnvironment processingEnv, Logger logger) {
+        this.processingEnv = processingEnv;
+        this.logger = logger;
+        elements = processingEnv.getElementUtils();
+    }
+
+    public void collectPooledEvents(Set<? extends TypeElement> annotations, RoundEnvironment env, Messager messager) {
+        for (TypeElement annotation : annotations) {
+            Set<? extends Element> annotatedElements = env.getElementsAnnotatedWith(annotation);
+            for (Element element : annotatedElements) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "@PooledEvent is only valid for classes", element);
+                } else if (checkHasNoErrors((TypeElement) element, messager)) {
+                    pooledEvents.add((TypeElement) element);
+                }
+            }
+        }
+    }
+
+    private boolean checkHasNoErrors(TypeElement eventClass, Messager messager) {
+        Set<Modifier> modifiers = eventClass.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Pooled event class must be public and not abstract", eventClass);
+            return false;
+        }
+        if (eventClass.getEnclosingElement().getKind() != ElementKind.PACKAGE && !modifiers.contains(Modifier.STATIC)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Pooled event class must not be an inner class", eventClass);
+            return false;
+        }
+        PooledEvent pooledEvent = eventClass.getAnnotation(PooledEvent.class);
+        if (pooledEvent.capacity() <= 0) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Pooled event capacity must be positive", eventClass);
+            return false;
+        }
+
+        boolean hasNoArgConstructor = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(eventClass.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                hasNoArgConstructor = true;
+            }
+        }
+        if (!hasNoArgConstructor) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Pooled event class must have a public no-arg constructor", eventClass);
+            return false;
+        }
+
+        String reset = pooledEvent.reset();
+        if (!reset.isEmpty()) {
+            boolean hasReset = false;
+            for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(eventClass))) {
+                Set<Modifier> methodModifiers = method.getModifiers();
+                if (method.getSimpleName().contentEquals(reset) && method.getParameters().isEmpty()
+                        && methodModifiers.contains(Modifier.PUBLIC) && !methodModifiers.contains(Modifier.STATIC)) {
+                    hasReset = true;
+                }
+            }
+            if (!hasReset) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Pooled event reset method " + reset
+                        + "() must exist, be public, not static and without parameters", eventClass);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return pooledEvents.isEmpty();
+    }
+
+    /**
+     * Writes one pool per event class next to the event, and the module wide recycle hook.
+     */
+    public void createPoolFiles(String index) {
+        for (TypeElement eventClass : pooledEvents) {
+            createPoolFile(eventClass);
+        }
+        createRecycleHookFile(index);
+    }
+
+    private void createPoolFile(TypeElement eventClass) {
+        String poolClass = getPoolClassName(eventClass);
+        String eventName = eventClass.getQualifiedName().toString();
+        PooledEvent pooledEvent = eventClass.getAnnotation(PooledEvent.class);
+        BufferedWriter writer = null;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(poolClass, eventClass);
+            int period = poolClass.lastIndexOf('.');
+            String myPackage = period > 0 ? poolClass.substring(0, period) : null;
+            String clazz = poolClass.substring(period + 1);
+            writer = new BufferedWriter(sourceFile.openWriter());
+            if (myPackage != null) {
+                writer.write("package " + myPackage + ";\n\n");
+            }
+            writer.write("/** This class is generated by EventBus, do not edit. */\n");
+            writer.write("public final class " + clazz + " {\n");
+            writer.write("    private static final " + eventName + "[] POOL = new " + eventName + "[" + pooledEvent.capacity() + "];\n");
+            writer.write("    private static int size;\n\n");
+            writer.write("    private " + clazz + "() {\n");
+            writer.write("    }\n\n");
+            writer.write("    /** @return a recycled instance, or a new one if the pool is empty */\n");
+            writer.write("    public static " + eventName + " obtain() {\n");
+            writer.write("        synchronized (POOL) {\n");
+            writer.write("            if (size > 0) {\n");
+            writer.write("                " + eventName + " event = POOL[--size];\n");
+            writer.write("                POOL[size] = null;\n");
+            writer.write("                return event;\n");
+            writer.write("            }\n");
+            writer.write("        }\n");
+            writer.write("        return new " + eventName + "();\n");
+            writer.write("    }\n\n");
+            writer.write("    /**\n");
+            writer.write("     * Puts the event back; it is dropped if the pool is full.\n");
+            writer.write("     *\n");
+            writer.write("     * @throws IllegalStateException if the event is already in the pool, i.e. recycled twice\n");
+            writer.write("     */\n");
+            writer.write("    public static void recycle(" + eventName + " event) {\n");
+            writer.write("        synchronized (POOL) {\n");
+            writer.write("            for (int i = 0; i < size; i++) {\n");
+            writer.write("                if (POOL[i] == event) {\n");
+            writer.write("                    throw new IllegalStateException(\"Event already recycled: \" + event);\n");
+            writer.write("                }\n");
+            writer.write("            }\n");
+            if (!pooledEvent.reset().isEmpty()) {
+                writer.write("            event." + pooledEvent.reset() + "();\n");
+            }
+            writer.write("            if (size < POOL.length) {\n");
+            writer.write("                POOL[size++] = event;\n");
+            writer.write("            }\n");
+            writer.write("        }\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write source for " + poolClass, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Silent
+                }
+            }
+        }
+    }
+
+    private void createRecycleHookFile(String index) {
+        BufferedWriter writer = null;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(index);
+            int period = index.lastIndexOf('.');
+            String myPackage = period > 0 ? index.substring(0, period) : null;
+            String clazz = index.substring(period + 1);
+            writer = new BufferedWriter(sourceFile.openWriter());
+            if (myPackage != null) {
+                writer.write("package " + myPackage + ";\n\n");
+            }
+            writer.write("/** This class is generated by EventBus, do not edit. */\n");
+            writer.write("public class " + clazz + " {\n\n");
+            writer.write("    public static boolean isPooled(Class<?> eventType) {\n");
+            for (TypeElement eventClass : pooledEvents) {
+                writer.write("        if (eventType == " + eventClass.getQualifiedName() + ".class) {\n");
+                writer.write("            return true;\n");
+                writer.write("        }\n");
+            }
+            writer.write("        return false;\n");
+            writer.write("    }\n\n");
+            writer.write("    /**\n");
+            writer.write("     * Called by the bus after the last subscriber of the event returned. Subclasses of pooled events are not\n");
+            writer.write("     * pooled.\n");
+            writer.write("     *\n");
+            writer.write("     * @return true if the event went back to its pool\n");
+            writer.write("     */\n");
+            writer.write("    public static boolean recycle(Object event) {\n");
+            writer.write("        Class<?> eventType = event.getClass();\n");
+            for (TypeElement eventClass : pooledEvents) {
+                String eventName = eventClass.getQualifiedName().toString();
+                writer.write("        if (eventType == " + eventName + ".class) {\n");
+                writer.write("            " + getPoolClassName(eventClass) + ".recycle((" + eventName + ") event);\n");
+                writer.write("            return true;\n");
+                writer.write("        }\n");
+            }
+            writer.write("        return false;\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write source for " + index, e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Silent
+                }
+            }
+        }
+    }
+
+    /**
+     * @return e.g. com.demo.LoginEvent$$Pool, or com.demo.Outer$Inner$$Pool for nested classes
+     */
+    private String getPoolClassName(TypeElement eventClass) {
+        return elements.getBinaryName(eventClass) + "$$Pool";
+    }
+}
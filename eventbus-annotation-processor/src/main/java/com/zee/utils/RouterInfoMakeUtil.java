@@ -2,10 +2,13 @@ package com.zee.utils;
 
 import com.zee.annotation.Interceptor;
 import com.zee.annotation.ActivityTag;
+import com.zee.index.BinaryIndexReader;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.annotation.processing.Messager;
@@ -157,10 +160,58 @@ public class RouterInfoMakeUtil {
     }
 
 
-    private void writeIndexLines(BufferedWriter writer, String myPackage) throws IOException {
+    /**
+     * Writes the routes and interceptors as binary index resource (see {@link BinaryIndexReader}), keyed by the
+     * binary class name. Fields: entry type (0 route, 1 interceptor), route type, name, module, key words, priority.
+     */
+    public void createBinaryIndexFile(String resourceName, String myPackage) {
+        BinaryIndexWriter binaryIndex = new BinaryIndexWriter(BinaryIndexReader.KIND_ROUTES);
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            ActivityTag tempActivityTag = subscriberTypeElement.getAnnotation(ActivityTag.class);
+            Interceptor tempInterceptor = subscriberTypeElement.getAnnotation(Interceptor.class);
+            List<Integer> fields = new ArrayList<>();
+            if (tempInterceptor != null) {
+                fields.add(1);
+                fields.add(0);
+                fields.add(binaryIndex.string(tempInterceptor.name()));
+                fields.add(binaryIndex.string(tempInterceptor.module()));
+                fields.add(binaryIndex.string(tempInterceptor.keyWord()));
+                fields.add(tempInterceptor.priority());
+            } else if (tempActivityTag != null) {
+                fields.add(0);
+                fields.add(getRouteType(subscriberTypeElement));
+                fields.add(binaryIndex.string(tempActivityTag.name()));
+                fields.add(binaryIndex.string(tempActivityTag.module()));
+                fields.add(binaryIndex.string(tempActivityTag.keyWords()));
+                fields.add(0);
+            } else {
+                continue;
+            }
+            binaryIndex.addEntry(elements.getBinaryName(subscriberTypeElement).toString(), fields);
+        }
+        binaryIndex.writeTo(processingEnv.getFiler(), resourceName);
+    }
+
+    /**
+     * @return 1 for activities, 2 for v4 fragments, 0 otherwise
+     */
+    private int getRouteType(TypeElement subscriberTypeElement) {
         TypeMirror type_Activity = elements.getTypeElement(ACTIVITY).asType();
         TypeMirror type_Fragment = elements.getTypeElement(FRAGMENT_V4).asType();
+        TypeMirror tm = subscriberTypeElement.asType();
+        if (types.isSubtype(tm, type_Activity)) {
+            return 1;
+        } else if (types.isSubtype(tm, type_Fragment)) {
+            return 2;
+        }
+        logger.error(subscriberTypeElement.getQualifiedName() + " is not type: Activity or v4.app.Fragment");
+        return 0;
+    }
 
+    private void writeIndexLines(BufferedWriter writer, String myPackage) throws IOException {
         for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
             if (classesToSkip.contains(subscriberTypeElement)) {
                 continue;
@@ -168,8 +219,6 @@ public class RouterInfoMakeUtil {
             String subscriberClass = getClassString(subscriberTypeElement, myPackage);
             if (isVisible(myPackage, subscriberTypeElement)) {
                 ActivityTag tempActivityTag = subscriberTypeElement.getAnnotation(ActivityTag.class);
-                TypeMirror tm = subscriberTypeElement.asType();
-
 
                 Interceptor tempInterceptor = subscriberTypeElement.getAnnotation(Interceptor.class);
                 if (tempInterceptor != null) {
@@ -183,15 +232,7 @@ public class RouterInfoMakeUtil {
                     writer.write(",\"" + infor + "\"," + tempInterceptor.priority() + "));\n");
 
                 } else if (tempActivityTag != null) {
-                    String typeInfo = "0";
-
-                    if (types.isSubtype(tm, type_Activity)) {
-                        typeInfo = "1";
-                    } else if (types.isSubtype(tm, type_Fragment)) {
-                        typeInfo = "2";
-                    } else {
-                        logger.error(subscriberClass + " is not type: Activity or v4.app.Fragment");
-                    }
+                    String typeInfo = String.valueOf(getRouteType(subscriberTypeElement));
 
                     writeLine(writer, 2,
                             "addRouteBean(new RouteBean(" + typeInfo + "," + subscriberClass + ".class,",
@@ -1,9 +1,11 @@
 package com.zee.utils;
 
 import com.zee.annotation.RunApplicationOnCreate;
+import com.zee.index.BinaryIndexReader;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -113,6 +115,23 @@ public class RunOnApplicationOnCreateUtil {
     }
 
 
+    /**
+     * Writes the classes to instantiate on Application.onCreate as binary index resource (see
+     * {@link BinaryIndexReader}), keyed by binary class name, without fields.
+     */
+    public void createBinaryIndexFile(String resourceName, String myPackage) {
+        BinaryIndexWriter binaryIndex = new BinaryIndexWriter(BinaryIndexReader.KIND_RUN_ON_APPLICATION);
+        for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
+            if (classesToSkip.contains(subscriberTypeElement) || !isVisible(myPackage, subscriberTypeElement)) {
+                continue;
+            }
+            if (subscriberTypeElement.getAnnotation(RunApplicationOnCreate.class) != null) {
+                binaryIndex.addEntry(elements.getBinaryName(subscriberTypeElement).toString(), Collections.<Integer>emptyList());
+            }
+        }
+        binaryIndex.writeTo(processingEnv.getFiler(), resourceName);
+    }
+
     private void writeIndexLines(BufferedWriter writer, String myPackage) throws IOException {
         for (TypeElement subscriberTypeElement : methodsByClass.keySet()) {
             if (classesToSkip.contains(subscriberTypeElement)) {
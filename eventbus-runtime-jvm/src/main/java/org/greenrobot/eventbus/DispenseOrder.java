@@ -0,0 +1,12 @@
+package org.greenrobot.eventbus;
+
+/**
+ * Order in which subscribers of the same priority receive an event.
+ */
+public enum DispenseOrder {
+    /** Subscribers registered first receive the event first. */
+    FIFO,
+
+    /** Subscribers registered last receive the event first, see {@link SubscribeMainThread#lifo()}. */
+    LIFO
+}
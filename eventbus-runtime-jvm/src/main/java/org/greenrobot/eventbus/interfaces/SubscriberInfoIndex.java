@@ -0,0 +1,10 @@
+package org.greenrobot.eventbus.interfaces;
+
+import org.greenrobot.eventbus.meta.SubscriberInfo;
+
+/**
+ * Interface for generated indexes.
+ */
+public interface SubscriberInfoIndex {
+    SubscriberInfo getSubscriberInfo(Class<?> subscriberClass);
+}
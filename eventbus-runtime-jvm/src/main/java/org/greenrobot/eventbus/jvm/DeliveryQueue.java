@@ -0,0 +1,108 @@
+package org.greenrobot.eventbus.jvm;
+
+import org.greenrobot.eventbus.OverflowPolicy;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * The bounded delivery queue of a BACKGROUND or ASYNC subscription whose method declares a {@code queueCapacity}.
+ * Every queued event has exactly one task on the executor, and each task delivers the oldest queued event, so an
+ * overflow policy dropping or replacing queued events never has to take back a task.
+ * <p>
+ * BLOCK cannot wait in a thread that is delivering for the executor of the queue, bounded or not: with the single
+ * background thread only that thread would make room. Such an event is queued beyond the capacity instead, and a warning is logged
+ * once per subscription.
+ */
+final class DeliveryQueue implements Runnable {
+    private static final Logger LOGGER = Logger.getLogger(DeliveryQueue.class.getName());
+    /** The executor whose task is delivering in the current thread, or null. */
+    private static final ThreadLocal<Executor> DELIVERING_EXECUTOR = new ThreadLocal<>();
+
+    private final JvmEventBus eventBus;
+    private final Subscription subscription;
+    private final Executor executor;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final ArrayDeque<Object> events;
+    private boolean overflowLogged;
+
+    DeliveryQueue(JvmEventBus eventBus, Subscription subscription, Executor executor) {
+        this.eventBus = eventBus;
+        this.subscription = subscription;
+        this.executor = executor;
+        this.capacity = subscription.subscriberMethod.queueCapacity;
+        this.overflowPolicy = subscription.subscriberMethod.overflowPolicy;
+        this.events = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+
+    /** Queues the event for delivery, or applies the overflow policy if the queue is full. */
+    void offer(Object event) {
+        synchronized (this) {
+            while (overflowPolicy == OverflowPolicy.BLOCK && events.size() >= capacity
+                    && DELIVERING_EXECUTOR.get() != executor) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (events.size() >= capacity) {
+                switch (overflowPolicy) {
+                    case BLOCK:
+                        logOverflow();
+                        break;
+                    case DROP_NEWEST:
+                        return;
+                    case COALESCE:
+                        if (events.peekLast().getClass() == event.getClass()) {
+                            events.pollLast();
+                        } else {
+                            events.pollFirst();
+                        }
+                        // The task of the removed event delivers the new one
+                        events.addLast(event);
+                        return;
+                    default:
+                        events.pollFirst();
+                        events.addLast(event);
+                        return;
+                }
+            }
+            events.addLast(event);
+        }
+        executor.execute(this);
+    }
+
+    private void logOverflow() {
+        if (!overflowLogged) {
+            overflowLogged = true;
+            LOGGER.warning("An event was posted to the full queue of " + subscription.subscriber.getClass().getName()
+                    + "." + subscription.subscriberMethod.info.getMethodName() + " while delivering on its executor;"
+                    + " BLOCK cannot wait there, so the queue grows beyond " + capacity);
+        }
+    }
+
+    @Override
+    public void run() {
+        Object event;
+        synchronized (this) {
+            event = events.pollFirst();
+            notifyAll();
+        }
+        deliver(eventBus, executor, subscription, event);
+    }
+
+    /** Delivers in a task of the given executor, marking the thread so BLOCK queues of that executor do not wait. */
+    static void deliver(JvmEventBus eventBus, Executor executor, Subscription subscription, Object event) {
+        Executor previous = DELIVERING_EXECUTOR.get();
+        DELIVERING_EXECUTOR.set(executor);
+        try {
+            eventBus.invokeSubscriber(subscription, event);
+        } finally {
+            DELIVERING_EXECUTOR.set(previous);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.greenrobot.eventbus.jvm;
+
+/**
+ * An {@link RuntimeException} thrown in cases something went wrong inside EventBus.
+ */
+public class EventBusException extends RuntimeException {
+
+    private static final long serialVersionUID = -2912559384646531479L;
+
+    public EventBusException(String detailMessage) {
+        super(detailMessage);
+    }
+
+    public EventBusException(String detailMessage, Throwable throwable) {
+        super(detailMessage, throwable);
+    }
+}
@@ -0,0 +1,195 @@
+package org.greenrobot.eventbus.jvm;
+
+import org.greenrobot.eventbus.OverflowPolicy;
+import org.greenrobot.eventbus.ThreadMode;
+import org.greenrobot.eventbus.meta.SubscriberMethodInfo;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.concurrent.Flow;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publisher of the events of one type. Every Flow subscriber is registered with the bus as a POSTING subscriber
+ * with its own bounded buffer; buffered events are handed to onNext only as far as the subscriber requested them,
+ * in the thread that posted or requested. When the buffer is full the {@link OverflowPolicy} decides: BLOCK makes
+ * the posting thread wait for demand, so a slow consumer throttles the producer.
+ * <p>
+ * BLOCK cannot wait in the thread that is delivering to the Flow subscriber, i.e. when onNext posts an event of the
+ * type again: only that thread would make room. Such an event is buffered beyond the buffer size instead, and a
+ * warning is logged once per subscription.
+ */
+final class EventPublisher<T> implements Flow.Publisher<T> {
+    private static final Logger LOGGER = Logger.getLogger(EventPublisher.class.getName());
+    private static final MethodHandle OFFER;
+
+    static {
+        try {
+            OFFER = MethodHandles.lookup().findVirtual(StreamSubscription.class, "offer",
+                    MethodType.methodType(void.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final JvmEventBus eventBus;
+    private final SubscriberMethod subscriberMethod;
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+
+    EventPublisher(JvmEventBus eventBus, Class<T> eventType, int bufferSize, OverflowPolicy overflowPolicy) {
+        this.eventBus = eventBus;
+        this.subscriberMethod = SubscriberMethod.of(new SubscriberMethodInfo("onNext", eventType, ThreadMode.POSTING), OFFER);
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        StreamSubscription<T> subscription = new StreamSubscription<>(this, subscriber);
+        subscriber.onSubscribe(subscription);
+        eventBus.subscribe(subscription, subscriberMethod);
+    }
+
+    static final class StreamSubscription<T> implements Flow.Subscription {
+        private final EventPublisher<T> publisher;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final ArrayDeque<Object> buffer;
+        private long requested;
+        /** The thread in drain(), or null. */
+        private Thread drainingThread;
+        private boolean cancelled;
+        private boolean overflowLogged;
+
+        StreamSubscription(EventPublisher<T> publisher, Flow.Subscriber<? super T> subscriber) {
+            this.publisher = publisher;
+            this.subscriber = subscriber;
+            this.buffer = new ArrayDeque<>(Math.min(publisher.bufferSize, 16));
+        }
+
+        /** Called by the bus for every posted event of the type. */
+        void offer(Object event) {
+            synchronized (this) {
+                while (!cancelled && buffer.size() >= publisher.bufferSize) {
+                    switch (publisher.overflowPolicy) {
+                        case BLOCK:
+                            if (drainingThread == Thread.currentThread()) {
+                                growBuffer(event);
+                                return;
+                            }
+                            try {
+                                wait();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return;
+                            }
+                            break;
+                        case DROP_NEWEST:
+                            return;
+                        case COALESCE:
+                            if (buffer.peekLast().getClass() == event.getClass()) {
+                                buffer.pollLast();
+                                break;
+                            }
+                            buffer.pollFirst();
+                            break;
+                        default:
+                            buffer.pollFirst();
+                            break;
+                    }
+                }
+                if (cancelled) {
+                    return;
+                }
+                buffer.addLast(event);
+            }
+            drain();
+        }
+
+        /**
+         * Called from onNext, which posted to its own full stream: waiting for room would wait for this thread. The
+         * draining loop delivers the event once onNext returns.
+         */
+        private void growBuffer(Object event) {
+            buffer.addLast(event);
+            if (!overflowLogged) {
+                overflowLogged = true;
+                LOGGER.warning("Stream subscriber " + subscriber.getClass().getName() + " posted to its own full buffer"
+                        + " from onNext; BLOCK cannot wait there, so the buffer grows beyond " + publisher.bufferSize);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+            }
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("request(n) needs n > 0, got " + n));
+                return;
+            }
+            synchronized (this) {
+                requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                buffer.clear();
+                notifyAll();
+            }
+            publisher.eventBus.unsubscribe(this, publisher.subscriberMethod);
+        }
+
+        /**
+         * Delivers while there is demand. Only one thread drains at a time, so onNext calls never overlap; a thread
+         * finding another one draining leaves its event or demand to it.
+         */
+        @SuppressWarnings("unchecked")
+        private void drain() {
+            synchronized (this) {
+                if (drainingThread != null) {
+                    return;
+                }
+                drainingThread = Thread.currentThread();
+            }
+            while (true) {
+                Object event;
+                synchronized (this) {
+                    if (cancelled || requested == 0 || buffer.isEmpty()) {
+                        drainingThread = null;
+                        return;
+                    }
+                    event = buffer.pollFirst();
+                    if (requested != Long.MAX_VALUE) {
+                        requested--;
+                    }
+                    notifyAll();
+                }
+                try {
+                    subscriber.onNext((T) event);
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        drainingThread = null;
+                    }
+                    cancel();
+                    LOGGER.log(Level.SEVERE, "Stream subscriber " + subscriber.getClass().getName()
+                            + " threw from onNext and was cancelled", e);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.greenrobot.eventbus.jvm;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Creates demand driven streams of posted events; the typed accessors generated with the eventBusStreams processor
+ * option go through it, so other runtimes or reactive libraries can plug in their own publishers.
+ */
+public interface EventStreamSource {
+    /**
+     * @return a hot publisher of the events of the given type posted after a subscriber subscribed
+     */
+    <T> Flow.Publisher<T> publisher(Class<T> eventType);
+}
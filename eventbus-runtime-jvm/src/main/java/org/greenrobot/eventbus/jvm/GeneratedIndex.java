@@ -0,0 +1,379 @@
+package org.greenrobot.eventbus.jvm;
+
+import org.greenrobot.eventbus.OverflowPolicy;
+import org.greenrobot.eventbus.crossprocess.EventCodec;
+import org.greenrobot.eventbus.executor.NamedExecutors;
+import org.greenrobot.eventbus.interfaces.SubscriberInfoIndex;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A SubscriberInfoIndex plus the optional static accessors EventBusProcessor writes next to getSubscriberInfo().
+ * They are looked up once; indexes written by older processor versions simply lack them.
+ */
+final class GeneratedIndex {
+    final SubscriberInfoIndex index;
+    private final MethodHandle getStripeKeys;
+    private final MethodHandle getCoalesce;
+    private final MethodHandle getMergeIds;
+    private final MethodHandle getDispatchRanks;
+    private final MethodHandle getMetricIds;
+    private final MethodHandle getQueueCapacities;
+    private final MethodHandle getOverflowPolicies;
+    private final MethodHandle getExecutors;
+    private final MethodHandle getExecutor;
+    private final MethodHandle recordDelivery;
+    private final MethodHandle merge;
+    private final MethodHandle stripeHash;
+    private final MethodHandle getSubscriberCount;
+    private final MethodHandle getSubscriberClassCount;
+    private final MethodHandle getEventTypeCount;
+    private final MethodHandle getPersistentCodec;
+    private final MethodHandle getStickyMaxAgeMillis;
+    private final MethodHandle getStickySizeBytes;
+    private final MethodHandle getStickyMaxBytes;
+    private final MethodHandle getStickyTypeCount;
+    private final MethodHandle getStickyType;
+    private final boolean mainThreadBatched;
+    /** dispatch&lt;Primitive&gt;(subscriber, methodName, event) per entry of PRIMITIVE_TYPES, null if not generated. */
+    private final MethodHandle[] primitiveDispatchers = new MethodHandle[PRIMITIVE_TYPES.length];
+
+    private static final Class<?>[] PRIMITIVE_TYPES = {
+            int.class, long.class, boolean.class, float.class, double.class, short.class, byte.class, char.class
+    };
+
+    GeneratedIndex(SubscriberInfoIndex index) {
+        this.index = index;
+        Class<?> indexClass = index.getClass();
+        getStripeKeys = findStatic(indexClass, "getStripeKeys", MethodType.methodType(int[].class, Class.class));
+        stripeHash = findStatic(indexClass, "stripeHash", MethodType.methodType(int.class, int.class, Object.class));
+        getCoalesce = findStatic(indexClass, "getCoalesce", MethodType.methodType(boolean[].class, Class.class));
+        getMergeIds = findStatic(indexClass, "getMergeIds", MethodType.methodType(int[].class, Class.class));
+        getDispatchRanks = findStatic(indexClass, "getDispatchRanks", MethodType.methodType(int[].class, Class.class));
+        getMetricIds = findStatic(indexClass, "getMetricIds", MethodType.methodType(int[].class, Class.class));
+        getQueueCapacities = findStatic(indexClass, "getQueueCapacities", MethodType.methodType(int[].class, Class.class));
+        getOverflowPolicies = findStatic(indexClass, "getOverflowPolicies",
+                MethodType.methodType(OverflowPolicy[].class, Class.class));
+        getExecutors = findStatic(indexClass, "getExecutors", MethodType.methodType(String[].class, Class.class));
+        getExecutor = findStatic(indexClass, "getExecutor", MethodType.methodType(ExecutorService.class, String.class));
+        recordDelivery = findStatic(indexClass, "recordDelivery", MethodType.methodType(void.class, int.class, long.class));
+        merge = findStatic(indexClass, "merge",
+                MethodType.methodType(Object.class, int.class, Object.class, Object.class, Object.class));
+        getSubscriberCount = findStatic(indexClass, "getSubscriberCount", MethodType.methodType(int.class, Class.class));
+        getSubscriberClassCount = findStatic(indexClass, "getSubscriberClassCount", MethodType.methodType(int.class));
+        getEventTypeCount = findStatic(indexClass, "getEventTypeCount", MethodType.methodType(int.class));
+        getPersistentCodec = findStatic(indexClass, "getPersistentCodec", MethodType.methodType(EventCodec.class, Class.class));
+        getStickyMaxAgeMillis = findStatic(indexClass, "getStickyMaxAgeMillis", MethodType.methodType(long.class, Class.class));
+        getStickySizeBytes = findStatic(indexClass, "getStickySizeBytes", MethodType.methodType(long.class, Class.class));
+        getStickyMaxBytes = findStatic(indexClass, "getStickyMaxBytes", MethodType.methodType(long.class));
+        getStickyTypeCount = findStatic(indexClass, "getStickyTypeCount", MethodType.methodType(int.class));
+        getStickyType = findStatic(indexClass, "getStickyType", MethodType.methodType(Class.class, int.class));
+        MethodHandle isMainThreadBatched = findStatic(indexClass, "isMainThreadBatched", MethodType.methodType(boolean.class));
+        try {
+            mainThreadBatched = isMainThreadBatched != null && (boolean) isMainThreadBatched.invokeExact();
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + indexClass.getName() + " failed", throwable);
+        }
+        for (int i = 0; i < PRIMITIVE_TYPES.length; i++) {
+            String name = PRIMITIVE_TYPES[i].getName();
+            primitiveDispatchers[i] = findStatic(indexClass, "dispatch" + Character.toUpperCase(name.charAt(0))
+                    + name.substring(1), MethodType.methodType(boolean.class, Object.class, String.class, PRIMITIVE_TYPES[i]));
+        }
+    }
+
+    private static MethodHandle findStatic(Class<?> indexClass, String name, MethodType type) {
+        try {
+            return MethodHandles.publicLookup().findStatic(indexClass, name, type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /** @see #stripeHash(int, Object) */
+    int[] getStripeKeys(Class<?> subscriberClass) {
+        if (getStripeKeys == null) {
+            return null;
+        }
+        try {
+            return (int[]) getStripeKeys.invokeExact(subscriberClass);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    /** Capacity hint: subscriber methods declared by the class, 0 if unknown. */
+    int getSubscriberCount(Class<?> subscriberClass) {
+        return getCount(getSubscriberCount, subscriberClass);
+    }
+
+    int getSubscriberClassCount() {
+        return getCount(getSubscriberClassCount);
+    }
+
+    int getEventTypeCount() {
+        return getCount(getEventTypeCount);
+    }
+
+    /** @return true if all MAIN subscribers of one event are to be delivered by a single main thread task */
+    boolean isMainThreadBatched() {
+        return mainThreadBatched;
+    }
+
+    /** @return the number of sticky event types the index gives a slot id, 0 if unknown */
+    int getStickyTypeCount() {
+        return getCount(getStickyTypeCount);
+    }
+
+    /** @param stickyTypeId below {@link #getStickyTypeCount()} */
+    Class<?> getStickyType(int stickyTypeId) {
+        try {
+            return (Class<?>) getStickyType.invokeExact(stickyTypeId);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    private int getCount(MethodHandle counter, Class<?> type) {
+        if (counter == null) {
+            return 0;
+        }
+        try {
+            return (int) counter.invokeExact(type);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    private int getCount(MethodHandle counter) {
+        if (counter == null) {
+            return 0;
+        }
+        try {
+            return (int) counter.invokeExact();
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    /** @return the codec of a sticky event type subscribed with persist = true, or null */
+    EventCodec<?> getPersistentCodec(Class<?> eventType) {
+        if (getPersistentCodec == null) {
+            return null;
+        }
+        try {
+            return (EventCodec<?>) getPersistentCodec.invokeExact(eventType);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    /** @return the maximum age of sticky events of the type in milliseconds, 0 for no limit */
+    long getStickyMaxAgeMillis(Class<?> eventType) {
+        return getLimit(getStickyMaxAgeMillis, eventType);
+    }
+
+    /** @return the declared size of one sticky event of the type in bytes, 0 if not declared */
+    long getStickySizeBytes(Class<?> eventType) {
+        return getLimit(getStickySizeBytes, eventType);
+    }
+
+    /** @return the memory budget of all sticky events in bytes, 0 for no limit */
+    long getStickyMaxBytes() {
+        if (getStickyMaxBytes == null) {
+            return 0;
+        }
+        try {
+            return (long) getStickyMaxBytes.invokeExact();
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    private long getLimit(MethodHandle limit, Class<?> eventType) {
+        if (limit == null) {
+            return 0;
+        }
+        try {
+            return (long) limit.invokeExact(eventType);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    int stripeHash(int stripeKeyId, Object event) {
+        try {
+            return (int) stripeHash.invokeExact(stripeKeyId, event);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Could not read the stripe key of " + event.getClass().getName(), throwable);
+        }
+    }
+
+    /** @return per method whether queued deliveries are coalesced, aligned with the SubscriberMethodInfo array */
+    boolean[] getCoalesce(Class<?> subscriberClass) {
+        if (getCoalesce == null) {
+            return null;
+        }
+        try {
+            return (boolean[]) getCoalesce.invokeExact(subscriberClass);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    /** @see #merge(int, Object, Object, Object) */
+    int[] getMergeIds(Class<?> subscriberClass) {
+        if (getMergeIds == null) {
+            return null;
+        }
+        try {
+            return (int[]) getMergeIds.invokeExact(subscriberClass);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    /**
+     * @return ranks aligned with the subscriber method infos of the class, a lower rank delivered first among the
+     * methods of this index with the same declared event type; null if unknown
+     */
+    int[] getDispatchRanks(Class<?> subscriberClass) {
+        if (getDispatchRanks == null) {
+            return null;
+        }
+        try {
+            return (int[]) getDispatchRanks.invokeExact(subscriberClass);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    /**
+     * @return metric ids aligned with the subscriber method infos of the class, null if the index was generated
+     * without the eventBusMetrics option
+     */
+    int[] getMetricIds(Class<?> subscriberClass) {
+        if (getMetricIds == null || recordDelivery == null) {
+            return null;
+        }
+        try {
+            return (int[]) getMetricIds.invokeExact(subscriberClass);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    /**
+     * @return delivery queue capacities aligned with the subscriber method infos of the class (0 for unbounded), null
+     * if all queues of the class are unbounded
+     */
+    int[] getQueueCapacities(Class<?> subscriberClass) {
+        if (getQueueCapacities == null) {
+            return null;
+        }
+        try {
+            return (int[]) getQueueCapacities.invokeExact(subscriberClass);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    /** @return overflow policies aligned like {@link #getQueueCapacities(Class)}, null if there are none */
+    OverflowPolicy[] getOverflowPolicies(Class<?> subscriberClass) {
+        if (getOverflowPolicies == null) {
+            return null;
+        }
+        try {
+            return (OverflowPolicy[]) getOverflowPolicies.invokeExact(subscriberClass);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    /**
+     * @return executor names aligned with the subscriber method infos of the class, null for the bus' shared async
+     * executor; null if no method of the class names one
+     */
+    String[] getExecutors(Class<?> subscriberClass) {
+        if (getExecutors == null) {
+            return null;
+        }
+        try {
+            return (String[]) getExecutors.invokeExact(subscriberClass);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    /**
+     * @return the process wide pool of the named executor, created with the configuration of this index' module if
+     * it is the first to use it
+     */
+    ExecutorService getExecutor(String name) {
+        ExecutorService executor = null;
+        if (getExecutor != null) {
+            try {
+                executor = (ExecutorService) getExecutor.invokeExact(name);
+            } catch (Throwable throwable) {
+                throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+            }
+        }
+        return executor != null ? executor : NamedExecutors.getExecutor(name);
+    }
+
+    /** Adds a delivery the runtime made itself to the index' metrics. */
+    void recordDelivery(int metricId, long nanos) {
+        try {
+            recordDelivery.invokeExact(metricId, nanos);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Index " + index.getClass().getName() + " failed", throwable);
+        }
+    }
+
+    /** Calls the subscriber's merge method, combining a queued event with a newer one. */
+    Object merge(int mergeId, Object subscriber, Object queued, Object newer) {
+        try {
+            return (Object) merge.invokeExact(mergeId, subscriber, queued, newer);
+        } catch (Throwable throwable) {
+            throw new EventBusException("Could not merge events of " + subscriber.getClass().getName(), throwable);
+        }
+    }
+
+    /**
+     * Calls the subscriber method through the generated dispatch&lt;Primitive&gt;, without boxing the event. The
+     * event comes as raw bits: the value widened to long, or Float/Double.to*RawBits, or 0/1 for booleans.
+     *
+     * @return false if the index has no dispatcher for the subscriber method
+     * @throws Throwable thrown by the subscriber
+     */
+    boolean dispatchPrimitive(Class<?> primitiveType, Object subscriber, String methodName, long bits) throws Throwable {
+        int kind = 0;
+        while (kind < PRIMITIVE_TYPES.length && PRIMITIVE_TYPES[kind] != primitiveType) {
+            kind++;
+        }
+        MethodHandle dispatcher = kind < PRIMITIVE_TYPES.length ? primitiveDispatchers[kind] : null;
+        if (dispatcher == null) {
+            return false;
+        }
+        switch (kind) {
+            case 0:
+                return (boolean) dispatcher.invokeExact(subscriber, methodName, (int) bits);
+            case 1:
+                return (boolean) dispatcher.invokeExact(subscriber, methodName, bits);
+            case 2:
+                return (boolean) dispatcher.invokeExact(subscriber, methodName, bits != 0);
+            case 3:
+                return (boolean) dispatcher.invokeExact(subscriber, methodName, Float.intBitsToFloat((int) bits));
+            case 4:
+                return (boolean) dispatcher.invokeExact(subscriber, methodName, Double.longBitsToDouble(bits));
+            case 5:
+                return (boolean) dispatcher.invokeExact(subscriber, methodName, (short) bits);
+            case 6:
+                return (boolean) dispatcher.invokeExact(subscriber, methodName, (byte) bits);
+            default:
+                return (boolean) dispatcher.invokeExact(subscriber, methodName, (char) bits);
+        }
+    }
+}
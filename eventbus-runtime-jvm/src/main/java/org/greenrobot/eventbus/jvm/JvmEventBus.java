@@ -0,0 +1,1159 @@
+package org.greenrobot.eventbus.jvm;
+
+import org.greenrobot.eventbus.OverflowPolicy;
+import org.greenrobot.eventbus.ThreadMode;
+import org.greenrobot.eventbus.crossprocess.EventCodec;
+import org.greenrobot.eventbus.interfaces.SubscriberInfoIndex;
+import org.greenrobot.eventbus.meta.EmptyEventBusType;
+import org.greenrobot.eventbus.meta.SubscriberInfo;
+import org.greenrobot.eventbus.meta.SubscriberMethodInfo;
+import org.greenrobot.eventbus.sticky.PersistentStickyStore;
+import org.greenrobot.eventbus.sticky.StickyCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * EventBus runtime for plain JVMs (servers, tests, benchmarks) driven only by generated indexes: subscriber classes
+ * must be listed in one of the {@link SubscriberInfoIndex SubscriberInfoIndexes} given to the builder, nothing is
+ * found by reflection.
+ * <p>
+ * Subscriptions are kept per event type in immutable arrays that register() and unregister() replace by
+ * compare-and-set, so posting takes no lock. Posting to POSTING subscribers allocates nothing once the event type
+ * has been seen.
+ * <p>
+ * There is no main thread on a JVM: MAIN subscribers are delivered on the executor given to
+ * {@link Builder#mainThreadExecutor(Executor)}, or directly in the posting thread without one. VIRTUAL subscribers
+ * get a virtual thread per delivery on Java 21+ and fall back to the async executor before. ASYNC subscribers naming
+ * an {@code executor} run on its pool from {@link org.greenrobot.eventbus.executor.NamedExecutors}, which all buses
+ * and the indexes of all modules share by name. Striped BACKGROUND subscribers are spread over
+ * {@link Builder#backgroundLanes(int) lanes} by their stripe key, each lane delivering in order. The registry maps are pre-sized with the capacity hints of the indexes, so a startup registration
+ * storm does not rehash them.
+ * <p>
+ * For indexes generated with the eventBusBatchMainThread processor option, the MAIN subscribers of one post share a
+ * single main thread task instead of one task each.
+ * <p>
+ * For indexes generated with the eventBusMetrics option, each delivery the bus makes is recorded in the index'
+ * metrics, the same as the calls of the generated posters, so getMetricsSnapshot() covers both.
+ * <p>
+ * A subscriber method with {@code coalesce} or {@code merge} has at most one queued delivery: events posted before it
+ * runs replace the queued event, or are combined with it by the merge method. A BACKGROUND or ASYNC method with a
+ * {@code queueCapacity} gets a bounded queue per subscription instead, its {@link OverflowPolicy} deciding what a
+ * post to the full queue does.
+ * <p>
+ * {@link #publisher(Class, int, OverflowPolicy)} exposes the events of a type as a {@link Flow.Publisher} with
+ * request(n) backpressure.
+ * <p>
+ * With a {@link Builder#persistentStickyStore(File) persistent sticky store}, sticky events of types subscribed with
+ * {@code @Subscribe(sticky = true, persist = true)} are also written to a memory mapped file. After a restart they
+ * are read back lazily: the first registration of a sticky subscriber of the type restores the event.
+ * <p>
+ * Sticky events expire after the {@code stickyMaxAgeMillis} of their type, and the least recently used ones are
+ * evicted when their sizes (from the {@link Builder#stickySizer(StickyCache.Sizer) sizer}, else
+ * {@code stickySizeBytes}, else the encoded size of persisted events) exceed the budget of
+ * the eventBusStickyMaxBytes processor option or {@link Builder#stickyMaxBytes(long)}; see
+ * {@link #getStickyEvictionCount()}. Persisted events keep their post time, so a restored event expires when it
+ * would have without the restart; an expired or evicted persistent event is removed from the store as well. The
+ * sticky types of the indexes that have none of these limits get a slot of their own in a table of this bus
+ * instead, so posting and replaying them takes no lock; with a sizer and a budget, all of them go to the cache, as
+ * the sizer may find any event too large.
+ * <p>
+ * With the {@link Builder#eventPools(Class) pool hook} of a module, post() hands {@code @PooledEvent} events back to
+ * their pool when it returns, unless a delivery was queued or buffered; postSticky() never does.
+ */
+public class JvmEventBus implements EventStreamSource {
+    /** Buffer size per stream subscriber of {@link #publisher(Class)}. */
+    public static final int DEFAULT_STREAM_BUFFER_SIZE = 256;
+
+    private static final Logger LOGGER = Logger.getLogger(JvmEventBus.class.getName());
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+    private static final Object NO_CODEC = new Object();
+
+    /** Result flag of postSingleEventType: at least one subscriber got the event. */
+    private static final int DELIVERED = 1;
+    /** Result flag of postSingleEventType: a delivery still holds the event after the post returned. */
+    private static final int RETAINED = 2;
+
+    private final GeneratedIndex[] indexes;
+    private final Map<Class<?>, AtomicReference<Subscription[]>> subscriptionsByEventType;
+    private final Map<Class<?>, SubscriberMethod[]> subscriberMethodCache;
+    private final Map<Class<?>, Class<?>[]> eventTypesCache;
+    private final Set<Object> registeredSubscribers;
+    private final StickyCache stickyEvents;
+    /** Sizes sticky events before the declared stickySizeBytes of their type, or null. */
+    private final StickyCache.Sizer stickySizer;
+    /** Indexed sticky types without age limit, declared size or persistence, to their slot; read-only. */
+    private final Map<Class<?>, Integer> stickySlotIds = new IdentityHashMap<>();
+    private final Class<?>[] stickySlotTypes;
+    private final AtomicReferenceArray<Object> stickySlots;
+    /** Event type to its {maxAgeMillis, sizeBytes} from the indexes. */
+    private final Map<Class<?>, long[]> stickyLimits = new ConcurrentHashMap<>();
+    private final PersistentStickyStore persistentStickyStore;
+    /** Event type to its persistent codec, or to NO_CODEC. */
+    private final Map<Class<?>, Object> persistentCodecs = new ConcurrentHashMap<>();
+    /** Persistent sticky types already restored from the store (or found empty there). */
+    private final Set<Class<?>> restoredStickyTypes = ConcurrentHashMap.newKeySet();
+
+    private final Executor mainThreadExecutor;
+    /** True if there is a main thread executor and some index batches its MAIN deliveries. */
+    private final boolean mainThreadBatched;
+    private final Executor backgroundExecutor;
+    private final Executor[] backgroundLanes;
+    private final Executor asyncExecutor;
+    private final Executor virtualThreadExecutor;
+    private final boolean eventInheritance;
+    private final boolean throwSubscriberException;
+    /** The static recycle(Object) of a generated pool hook, or null. */
+    private final MethodHandle recycleEvent;
+
+    JvmEventBus(Builder builder) {
+        indexes = new GeneratedIndex[builder.indexes.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = new GeneratedIndex(builder.indexes.get(i));
+        }
+        int subscriberClassCount = 0;
+        int eventTypeCount = 0;
+        for (GeneratedIndex index : indexes) {
+            subscriberClassCount += index.getSubscriberClassCount();
+            eventTypeCount += index.getEventTypeCount();
+        }
+        subscriptionsByEventType = new ConcurrentHashMap<>(Math.max(16, eventTypeCount));
+        subscriberMethodCache = new ConcurrentHashMap<>(Math.max(16, subscriberClassCount));
+        // Posted classes are often subclasses of the subscribed event types, hence the extra room
+        eventTypesCache = new ConcurrentHashMap<>(Math.max(16, eventTypeCount * 2));
+        registeredSubscribers = ConcurrentHashMap.newKeySet(Math.max(16, subscriberClassCount));
+        mainThreadExecutor = builder.mainThreadExecutor;
+        boolean batched = false;
+        for (GeneratedIndex index : indexes) {
+            batched |= index.isMainThreadBatched();
+        }
+        mainThreadBatched = batched && mainThreadExecutor != null;
+        backgroundExecutor = builder.backgroundExecutor != null ? builder.backgroundExecutor
+                : Executors.newSingleThreadExecutor(new DaemonThreadFactory("EventBus-background"));
+        asyncExecutor = builder.asyncExecutor != null ? builder.asyncExecutor
+                : Executors.newCachedThreadPool(new DaemonThreadFactory("EventBus-async"));
+        virtualThreadExecutor = createVirtualThreadExecutor(asyncExecutor);
+        backgroundLanes = new Executor[builder.backgroundLanes];
+        for (int i = 0; i < backgroundLanes.length; i++) {
+            backgroundLanes[i] = Executors.newSingleThreadExecutor(new DaemonThreadFactory("EventBus-lane" + i));
+        }
+        eventInheritance = builder.eventInheritance;
+        throwSubscriberException = builder.throwSubscriberException;
+        recycleEvent = builder.recycleEvent;
+        persistentStickyStore = builder.persistentStickyFile != null ? new PersistentStickyStore(builder.persistentStickyFile) : null;
+        long stickyMaxBytes = builder.stickyMaxBytes;
+        if (stickyMaxBytes < 0) {
+            stickyMaxBytes = 0;
+            for (GeneratedIndex index : indexes) {
+                long indexMaxBytes = index.getStickyMaxBytes();
+                if (indexMaxBytes > 0 && (stickyMaxBytes == 0 || indexMaxBytes < stickyMaxBytes)) {
+                    stickyMaxBytes = indexMaxBytes;
+                }
+            }
+        }
+        StickyCache.DropListener dropListener = null;
+        if (persistentStickyStore != null) {
+            dropListener = new StickyCache.DropListener() {
+                @Override
+                public void onDropped(Class<?> eventType) {
+                    removePersistedSticky(eventType);
+                }
+            };
+        }
+        stickyEvents = new StickyCache(stickyMaxBytes, dropListener);
+        stickySizer = builder.stickySizer;
+        // A sizer measures events of any type, so with a budget every sticky type must be evictable
+        boolean slotsAllowed = stickySizer == null || stickyMaxBytes == 0;
+        List<Class<?>> slotTypes = new ArrayList<>();
+        for (GeneratedIndex index : indexes) {
+            for (int i = 0, count = index.getStickyTypeCount(); i < count; i++) {
+                Class<?> stickyType = index.getStickyType(i);
+                long[] limits = getStickyLimits(stickyType);
+                if (slotsAllowed && !stickySlotIds.containsKey(stickyType) && limits[0] == 0 && limits[1] == 0
+                        && getPersistentCodec(stickyType) == null) {
+                    stickySlotIds.put(stickyType, slotTypes.size());
+                    slotTypes.add(stickyType);
+                }
+            }
+        }
+        stickySlotTypes = slotTypes.toArray(new Class<?>[0]);
+        stickySlots = new AtomicReferenceArray<>(stickySlotTypes.length);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public void register(Object subscriber) {
+        SubscriberMethod[] subscriberMethods = findSubscriberMethods(subscriber.getClass());
+        if (!registeredSubscribers.add(subscriber)) {
+            throw new EventBusException("Subscriber " + subscriber.getClass() + " already registered");
+        }
+        for (SubscriberMethod subscriberMethod : subscriberMethods) {
+            subscribe(subscriber, subscriberMethod);
+        }
+    }
+
+    void subscribe(Object subscriber, SubscriberMethod subscriberMethod) {
+        Subscription newSubscription = new Subscription(subscriber, subscriberMethod);
+        if (subscriberMethod.queueCapacity > 0) {
+            newSubscription.deliveryQueue = new DeliveryQueue(this, newSubscription,
+                    subscriberMethod.threadMode == ThreadMode.ASYNC ? getAsyncExecutor(subscriberMethod) : backgroundExecutor);
+        }
+        AtomicReference<Subscription[]> subscriptionsRef = getSubscriptionsRef(subscriberMethod.eventType);
+        while (true) {
+            Subscription[] subscriptions = subscriptionsRef.get();
+            if (subscriptionsRef.compareAndSet(subscriptions, insert(subscriptions, newSubscription))) {
+                break;
+            }
+        }
+
+        if (subscriberMethod.info.isSticky()) {
+            restorePersistentSticky(subscriberMethod.eventType);
+            for (int i = 0; i < stickySlotTypes.length; i++) {
+                Class<?> stickyType = stickySlotTypes[i];
+                Object stickyEvent = stickySlots.get(i);
+                if (stickyEvent != null && (eventInheritance ? subscriberMethod.eventType.isAssignableFrom(stickyType)
+                        : subscriberMethod.eventType == stickyType)) {
+                    postToSubscription(newSubscription, stickyEvent);
+                }
+            }
+            for (Map.Entry<Class<?>, Object> entry : stickyEvents.snapshot()) {
+                Class<?> stickyType = entry.getKey();
+                if (eventInheritance ? subscriberMethod.eventType.isAssignableFrom(stickyType)
+                        : subscriberMethod.eventType == stickyType) {
+                    // Read again, so the delivery counts as a use for the LRU order
+                    Object stickyEvent = stickyEvents.get(stickyType);
+                    if (stickyEvent != null) {
+                        postToSubscription(newSubscription, stickyEvent);
+                    }
+                }
+            }
+        }
+    }
+
+    AtomicReference<Subscription[]> getSubscriptionsRef(Class<?> eventType) {
+        AtomicReference<Subscription[]> subscriptionsRef = subscriptionsByEventType.get(eventType);
+        if (subscriptionsRef == null) {
+            subscriptionsRef = new AtomicReference<>(NO_SUBSCRIPTIONS);
+            AtomicReference<Subscription[]> existing = subscriptionsByEventType.putIfAbsent(eventType, subscriptionsRef);
+            if (existing != null) {
+                subscriptionsRef = existing;
+            }
+        }
+        return subscriptionsRef;
+    }
+
+    /**
+     * @return a copy with the subscription placed after all subscriptions delivered before it; among equals it goes
+     * last, or first for lifo subscriber methods
+     */
+    private static Subscription[] insert(Subscription[] subscriptions, Subscription subscription) {
+        SubscriberMethod subscriberMethod = subscription.subscriberMethod;
+        int position = subscriptions.length;
+        for (int i = 0; i < subscriptions.length; i++) {
+            int order = compareDispatchOrder(subscriberMethod, subscriptions[i].subscriberMethod);
+            if (order < 0 || (order == 0 && subscriberMethod.lifo)) {
+                position = i;
+                break;
+            }
+        }
+        Subscription[] result = new Subscription[subscriptions.length + 1];
+        System.arraycopy(subscriptions, 0, result, 0, position);
+        result[position] = subscription;
+        System.arraycopy(subscriptions, position, result, position + 1, subscriptions.length - position);
+        return result;
+    }
+
+    /**
+     * Methods of one index and declared event type compare by the dispatch rank the processor computed from
+     * priority, lifo and thread mode; others, e.g. of different modules, by priority and lifo only.
+     *
+     * @return negative if the first method is delivered before the second, 0 if registration order decides
+     */
+    private static int compareDispatchOrder(SubscriberMethod method, SubscriberMethod other) {
+        if (method.index != null && method.index == other.index && method.dispatchRank >= 0 && other.dispatchRank >= 0
+                && method.info.getEventType() == other.info.getEventType()) {
+            return Integer.compare(method.dispatchRank, other.dispatchRank);
+        }
+        int result = Integer.compare(other.priority, method.priority);
+        if (result == 0 && method.lifo != other.lifo) {
+            result = method.lifo ? -1 : 1;
+        }
+        return result;
+    }
+
+    public boolean isRegistered(Object subscriber) {
+        return registeredSubscribers.contains(subscriber);
+    }
+
+    public void unregister(Object subscriber) {
+        if (!registeredSubscribers.remove(subscriber)) {
+            LOGGER.warning("Subscriber to unregister was not registered before: " + subscriber.getClass());
+            return;
+        }
+        for (SubscriberMethod subscriberMethod : findSubscriberMethods(subscriber.getClass())) {
+            unsubscribe(subscriber, subscriberMethod);
+        }
+    }
+
+    void unsubscribe(Object subscriber, SubscriberMethod subscriberMethod) {
+        AtomicReference<Subscription[]> subscriptionsRef = subscriptionsByEventType.get(subscriberMethod.eventType);
+        if (subscriptionsRef != null) {
+            removeSubscription(subscriptionsRef, subscriber, subscriberMethod);
+        }
+    }
+
+    private static void removeSubscription(AtomicReference<Subscription[]> subscriptionsRef, Object subscriber,
+                                           SubscriberMethod subscriberMethod) {
+        while (true) {
+            Subscription[] subscriptions = subscriptionsRef.get();
+            int index = -1;
+            for (int i = 0; i < subscriptions.length; i++) {
+                if (subscriptions[i].subscriber == subscriber && subscriptions[i].subscriberMethod == subscriberMethod) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return;
+            }
+            Subscription[] result = new Subscription[subscriptions.length - 1];
+            System.arraycopy(subscriptions, 0, result, 0, index);
+            System.arraycopy(subscriptions, index + 1, result, index, subscriptions.length - index - 1);
+            if (subscriptionsRef.compareAndSet(subscriptions, result)) {
+                subscriptions[index].active = false;
+                return;
+            }
+        }
+    }
+
+    /** Posts the given event to all subscribers of its type (and, with event inheritance, of its super types). */
+    public void post(Object event) {
+        recycleIfDone(event, postEvent(event));
+    }
+
+    private int postEvent(Object event) {
+        int result;
+        MainThreadBatch batch = newMainThreadBatch();
+        if (eventInheritance) {
+            result = 0;
+            Class<?>[] eventTypes = lookupEventTypes(event.getClass());
+            for (int i = 0; i < eventTypes.length; i++) {
+                result |= postSingleEventType(event, eventTypes[i], null, batch);
+            }
+        } else {
+            result = postSingleEventType(event, event.getClass(), null, batch);
+        }
+        executeBatch(batch, event);
+        if ((result & DELIVERED) == 0 && LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("No subscribers registered for event " + event.getClass());
+        }
+        return result;
+    }
+
+    /** Posts the event only to subscriber methods declaring the given tag. */
+    public void post(String tag, Object event) {
+        Class<?>[] eventTypes = eventInheritance ? lookupEventTypes(event.getClass()) : new Class<?>[] {event.getClass()};
+        int result = 0;
+        MainThreadBatch batch = newMainThreadBatch();
+        for (int i = 0; i < eventTypes.length; i++) {
+            result |= postSingleEventType(event, eventTypes[i], tag, batch);
+        }
+        executeBatch(batch, event);
+        recycleIfDone(event, result);
+    }
+
+    /**
+     * Hands a pooled event back to its pool once every subscriber returned. The processor only allows POSTING
+     * subscribers for pooled events, but a stream subscriber may still buffer it, and then it is left to the GC.
+     */
+    private void recycleIfDone(Object event, int result) {
+        if (recycleEvent == null || (result & RETAINED) != 0) {
+            return;
+        }
+        try {
+            // invokeExact needs the exact return type; false only means the event type is not pooled
+            boolean pooled = (boolean) recycleEvent.invokeExact(event);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new EventBusException("Could not recycle event " + event.getClass(), throwable);
+        }
+    }
+
+    /**
+     * Posts a primitive event. Subscriber methods taking an int, e.g. {@code @SubscribeMainThread onProgress(int)},
+     * get it through the index' generated dispatchInt without boxing when they run in the posting thread. Subscribers
+     * of Integer (and, with event inheritance, of its super types) and queued deliveries get an Integer.
+     */
+    public void post(int event) {
+        postPrimitive(int.class, event);
+    }
+
+    /** See {@link #post(int)}. */
+    public void post(long event) {
+        postPrimitive(long.class, event);
+    }
+
+    /** See {@link #post(int)}. */
+    public void post(boolean event) {
+        postPrimitive(boolean.class, event ? 1 : 0);
+    }
+
+    /** See {@link #post(int)}. */
+    public void post(float event) {
+        postPrimitive(float.class, Float.floatToRawIntBits(event));
+    }
+
+    /** See {@link #post(int)}. */
+    public void post(double event) {
+        postPrimitive(double.class, Double.doubleToRawLongBits(event));
+    }
+
+    /** See {@link #post(int)}. */
+    public void post(short event) {
+        postPrimitive(short.class, event);
+    }
+
+    /** See {@link #post(int)}. */
+    public void post(byte event) {
+        postPrimitive(byte.class, event);
+    }
+
+    /** See {@link #post(int)}. */
+    public void post(char event) {
+        postPrimitive(char.class, event);
+    }
+
+    /** @param bits the event as taken by GeneratedIndex#dispatchPrimitive */
+    private void postPrimitive(Class<?> primitiveType, long bits) {
+        Class<?> boxedType = SubscriberMethod.box(primitiveType);
+        Object event = null;
+        boolean delivered = false;
+        MainThreadBatch batch = newMainThreadBatch();
+        AtomicReference<Subscription[]> subscriptionsRef = subscriptionsByEventType.get(boxedType);
+        if (subscriptionsRef != null) {
+            Subscription[] subscriptions = subscriptionsRef.get();
+            for (int i = 0; i < subscriptions.length; i++) {
+                if (!dispatchPrimitive(subscriptions[i], primitiveType, bits)) {
+                    if (event == null) {
+                        event = SubscriberMethod.box(primitiveType, bits);
+                    }
+                    deliver(subscriptions[i], event, batch);
+                }
+                delivered = true;
+            }
+        }
+        if (eventInheritance) {
+            // The first type is the wrapper itself, handled above
+            Class<?>[] eventTypes = lookupEventTypes(boxedType);
+            for (int i = 1; i < eventTypes.length; i++) {
+                AtomicReference<Subscription[]> superTypeRef = subscriptionsByEventType.get(eventTypes[i]);
+                if (superTypeRef != null && superTypeRef.get().length > 0) {
+                    if (event == null) {
+                        event = SubscriberMethod.box(primitiveType, bits);
+                    }
+                    delivered |= (postSingleEventType(event, eventTypes[i], null, batch) & DELIVERED) != 0;
+                }
+            }
+        }
+        executeBatch(batch, event);
+        if (!delivered && LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("No subscribers registered for event " + boxedType);
+        }
+    }
+
+    /** @return true if the subscription got the event in the posting thread through the index, without boxing */
+    private boolean dispatchPrimitive(Subscription subscription, Class<?> primitiveType, long bits) {
+        SubscriberMethod subscriberMethod = subscription.subscriberMethod;
+        ThreadMode threadMode = subscriberMethod.threadMode;
+        if (subscriberMethod.info.getEventType() != primitiveType || subscriberMethod.index == null
+                || subscriberMethod.coalesce
+                || threadMode != ThreadMode.POSTING && (threadMode != ThreadMode.MAIN || mainThreadExecutor != null)) {
+            return false;
+        }
+        if (!subscription.active) {
+            return true;
+        }
+        try {
+            return subscriberMethod.index.dispatchPrimitive(primitiveType, subscription.subscriber,
+                    subscriberMethod.info.getMethodName(), bits);
+        } catch (Throwable throwable) {
+            handleSubscriberException(subscription, throwable);
+            return true;
+        }
+    }
+
+    /** Calls the parameterless subscriber methods declaring the given tag, e.g. {@code @SubscribeSimple("refresh")}. */
+    public void postSimple(String tag) {
+        MainThreadBatch batch = newMainThreadBatch();
+        postSingleEventType(null, EmptyEventBusType.class, tag, batch);
+        executeBatch(batch, null);
+    }
+
+    /**
+     * @param batch collects the batched MAIN deliveries, or null
+     * @return DELIVERED and RETAINED flags
+     */
+    private int postSingleEventType(Object event, Class<?> eventType, String tag, MainThreadBatch batch) {
+        AtomicReference<Subscription[]> subscriptionsRef = subscriptionsByEventType.get(eventType);
+        if (subscriptionsRef == null) {
+            return 0;
+        }
+        Subscription[] subscriptions = subscriptionsRef.get();
+        int result = 0;
+        for (int i = 0; i < subscriptions.length; i++) {
+            Subscription subscription = subscriptions[i];
+            if (tag == null || tag.equals(subscription.subscriberMethod.info.getTag())) {
+                result |= deliver(subscription, event, batch);
+            }
+        }
+        return result;
+    }
+
+    /** @return DELIVERED, plus RETAINED if the delivery was queued or buffered */
+    private int deliver(Subscription subscription, Object event, MainThreadBatch batch) {
+        SubscriberMethod subscriberMethod = subscription.subscriberMethod;
+        if (batch != null && subscriberMethod.threadMode == ThreadMode.MAIN && !subscriberMethod.coalesce
+                && subscriberMethod.index != null && subscriberMethod.index.isMainThreadBatched()) {
+            batch.add(subscription);
+            return DELIVERED | RETAINED;
+        }
+        return postToSubscription(subscription, event) ? DELIVERED : DELIVERED | RETAINED;
+    }
+
+    /** @return a batch for the MAIN deliveries of one post, null if no index batches them */
+    private MainThreadBatch newMainThreadBatch() {
+        return mainThreadBatched ? new MainThreadBatch() : null;
+    }
+
+    private void executeBatch(MainThreadBatch batch, Object event) {
+        if (batch != null && batch.size > 0) {
+            batch.event = event;
+            mainThreadExecutor.execute(batch);
+        }
+    }
+
+    /** The MAIN deliveries of one post, run in order by a single main thread task. */
+    private final class MainThreadBatch implements Runnable {
+        private Subscription[] subscriptions;
+        private int size;
+        private Object event;
+
+        void add(Subscription subscription) {
+            if (subscriptions == null) {
+                subscriptions = new Subscription[4];
+            } else if (size == subscriptions.length) {
+                subscriptions = Arrays.copyOf(subscriptions, size * 2);
+            }
+            subscriptions[size++] = subscription;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < size; i++) {
+                invokeSubscriber(subscriptions[i], event);
+            }
+        }
+    }
+
+    /** @return true if the subscriber is done with the event, false if it was queued or buffered */
+    private boolean postToSubscription(final Subscription subscription, final Object event) {
+        switch (subscription.subscriberMethod.threadMode) {
+            case POSTING:
+                invokeSubscriber(subscription, event);
+                // Stream subscribers, the only ones without an index, buffer the event
+                return subscription.subscriberMethod.index != null;
+            case MAIN:
+                if (mainThreadExecutor != null) {
+                    enqueue(mainThreadExecutor, subscription, event);
+                    return false;
+                }
+                invokeSubscriber(subscription, event);
+                return true;
+            case BACKGROUND:
+                if (subscription.deliveryQueue != null) {
+                    subscription.deliveryQueue.offer(event);
+                } else if (subscription.subscriberMethod.stripeKey < 0) {
+                    enqueue(backgroundExecutor, subscription, event);
+                } else {
+                    enqueue(getBackgroundLane(subscription, event), subscription, event);
+                }
+                return false;
+            case ASYNC:
+                if (subscription.deliveryQueue != null) {
+                    subscription.deliveryQueue.offer(event);
+                } else {
+                    enqueue(getAsyncExecutor(subscription.subscriberMethod), subscription, event);
+                }
+                return false;
+            case VIRTUAL:
+                enqueue(virtualThreadExecutor, subscription, event);
+                return false;
+            default:
+                throw new IllegalStateException("Unknown thread mode: " + subscription.subscriberMethod.threadMode);
+        }
+    }
+
+    private Executor getAsyncExecutor(SubscriberMethod subscriberMethod) {
+        return subscriberMethod.executor != null ? subscriberMethod.executor : asyncExecutor;
+    }
+
+    private Executor getBackgroundLane(Subscription subscription, Object event) {
+        SubscriberMethod subscriberMethod = subscription.subscriberMethod;
+        int hash = subscriberMethod.stripeKey == 0 ? System.identityHashCode(subscription.subscriber)
+                : subscriberMethod.index.stripeHash(subscriberMethod.stripeKey, event);
+        return backgroundLanes[Math.floorMod(hash ^ (hash >>> 16), backgroundLanes.length)];
+    }
+
+    private void enqueue(final Executor executor, final Subscription subscription, final Object event) {
+        if (subscription.subscriberMethod.coalesce) {
+            enqueueCoalesced(executor, subscription, event);
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                DeliveryQueue.deliver(JvmEventBus.this, executor, subscription, event);
+            }
+        });
+    }
+
+    /**
+     * Queues one delivery that takes the newest event, or the merge of all events, posted until it runs. The
+     * delivery clears the queued state before invoking the subscriber, so an event posted meanwhile queues the next
+     * one.
+     */
+    private void enqueueCoalesced(final Executor executor, final Subscription subscription, Object event) {
+        SubscriberMethod subscriberMethod = subscription.subscriberMethod;
+        synchronized (subscription) {
+            if (subscription.deliveryQueued) {
+                subscription.queuedEvent = subscriberMethod.mergeId == 0 ? event : subscriberMethod.index.merge(
+                        subscriberMethod.mergeId, subscription.subscriber, subscription.queuedEvent, event);
+                return;
+            }
+            subscription.deliveryQueued = true;
+            subscription.queuedEvent = event;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Object queuedEvent;
+                synchronized (subscription) {
+                    queuedEvent = subscription.queuedEvent;
+                    subscription.queuedEvent = null;
+                    subscription.deliveryQueued = false;
+                }
+                DeliveryQueue.deliver(JvmEventBus.this, executor, subscription, queuedEvent);
+            }
+        });
+    }
+
+    void invokeSubscriber(Subscription subscription, Object event) {
+        if (!subscription.active) {
+            return;
+        }
+        SubscriberMethod subscriberMethod = subscription.subscriberMethod;
+        try {
+            if (subscriberMethod.metricId < 0) {
+                subscriberMethod.handle.invokeExact(subscription.subscriber, event);
+            } else {
+                // Measured like the generated posters measure their calls: successful deliveries only
+                long start = System.nanoTime();
+                subscriberMethod.handle.invokeExact(subscription.subscriber, event);
+                subscriberMethod.index.recordDelivery(subscriberMethod.metricId, System.nanoTime() - start);
+            }
+        } catch (Throwable throwable) {
+            handleSubscriberException(subscription, throwable);
+        }
+    }
+
+    private void handleSubscriberException(Subscription subscription, Throwable throwable) {
+        SubscriberMethodInfo info = subscription.subscriberMethod.info;
+        String message = "Could not dispatch event " + info.getEventType() + " to subscriber "
+                + subscription.subscriber.getClass().getName() + "." + info.getMethodName();
+        if (throwSubscriberException) {
+            throw new EventBusException(message, throwable);
+        }
+        LOGGER.log(Level.SEVERE, message, throwable);
+    }
+
+    /**
+     * Same as {@link #publisher(Class, int, OverflowPolicy)} with {@link #DEFAULT_STREAM_BUFFER_SIZE} and
+     * {@link OverflowPolicy#BLOCK}.
+     */
+    @Override
+    public <T> Flow.Publisher<T> publisher(Class<T> eventType) {
+        return publisher(eventType, DEFAULT_STREAM_BUFFER_SIZE, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * @return a hot publisher of the events of the given type (and, with event inheritance, its subtypes) posted
+     * while a Flow subscriber is subscribed. Each Flow subscriber gets a buffer of bufferSize events that it drains
+     * with request(n); the overflow policy applies when the buffer is full, BLOCK making posting threads wait for
+     * demand. An event posted from the Flow subscriber's own onNext never waits, as that would deadlock; it is
+     * buffered beyond bufferSize instead.
+     */
+    public <T> Flow.Publisher<T> publisher(Class<T> eventType, int bufferSize, OverflowPolicy overflowPolicy) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        return new EventPublisher<>(this, eventType, bufferSize, overflowPolicy);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void postSticky(Object event) {
+        int slot = getStickySlot(event.getClass());
+        if (slot >= 0) {
+            stickySlots.set(slot, event);
+            postEvent(event);
+            return;
+        }
+        EventCodec<Object> codec = (EventCodec<Object>) getPersistentCodec(event.getClass());
+        long[] limits = getStickyLimits(event.getClass());
+        long sizeBytes = getStickySize(event, limits[1], codec);
+        if (codec != null) {
+            // Under the store lock, so removePersistedSticky sees either both the cached and the stored event or neither
+            synchronized (persistentStickyStore) {
+                stickyEvents.put(event.getClass(), event, sizeBytes, limits[0]);
+                restoredStickyTypes.add(event.getClass());
+                try {
+                    persistentStickyStore.put(codec, event, System.currentTimeMillis());
+                } catch (IOException e) {
+                    LOGGER.log(Level.SEVERE, "Could not persist sticky event " + event.getClass(), e);
+                }
+            }
+        } else {
+            stickyEvents.put(event.getClass(), event, sizeBytes, limits[0]);
+        }
+        // The sticky cache keeps the event, so it never goes back to a pool
+        postEvent(event);
+    }
+
+    public <T> T getStickyEvent(Class<T> eventType) {
+        int slot = getStickySlot(eventType);
+        if (slot >= 0) {
+            return eventType.cast(stickySlots.get(slot));
+        }
+        restorePersistentSticky(eventType);
+        return eventType.cast(stickyEvents.get(eventType));
+    }
+
+    public <T> T removeStickyEvent(Class<T> eventType) {
+        int slot = getStickySlot(eventType);
+        if (slot >= 0) {
+            return eventType.cast(stickySlots.getAndSet(slot, null));
+        }
+        restorePersistentSticky(eventType);
+        EventCodec<?> codec = getPersistentCodec(eventType);
+        if (codec != null) {
+            try {
+                persistentStickyStore.remove(codec.getTypeId());
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Could not remove persisted sticky event " + eventType, e);
+            }
+        }
+        return eventType.cast(stickyEvents.remove(eventType));
+    }
+
+    public void removeAllStickyEvents() {
+        for (int i = 0; i < stickySlotTypes.length; i++) {
+            stickySlots.set(i, null);
+        }
+        stickyEvents.clear();
+        if (persistentStickyStore != null) {
+            try {
+                persistentStickyStore.clear();
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Could not clear persisted sticky events", e);
+            }
+        }
+    }
+
+    /** @return the sticky slot of the type, or -1 if its sticky events are kept in the sticky cache */
+    private int getStickySlot(Class<?> eventType) {
+        Integer slot = stickySlotIds.get(eventType);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Puts the persisted event of the type back into the sticky events, once, unless a newer one was posted since.
+     */
+    @SuppressWarnings("unchecked")
+    private void restorePersistentSticky(Class<?> eventType) {
+        if (persistentStickyStore == null || restoredStickyTypes.contains(eventType)) {
+            return;
+        }
+        EventCodec<?> codec = getPersistentCodec(eventType);
+        if (codec == null) {
+            return;
+        }
+        synchronized (persistentStickyStore) {
+            if (restoredStickyTypes.contains(eventType)) {
+                return;
+            }
+            try {
+                Object event = persistentStickyStore.get(codec);
+                if (event != null) {
+                    long[] limits = getStickyLimits(eventType);
+                    long maxAgeMillis = limits[0];
+                    if (maxAgeMillis > 0) {
+                        // The age counts from the post before the restart; a clock set back since counts as no age
+                        long postTimeMillis = persistentStickyStore.getPostTimeMillis(codec.getTypeId());
+                        long ageMillis = Math.max(System.currentTimeMillis() - postTimeMillis, 0);
+                        maxAgeMillis = ageMillis < maxAgeMillis ? maxAgeMillis - ageMillis : -1;
+                    }
+                    if (maxAgeMillis < 0) {
+                        persistentStickyStore.remove(codec.getTypeId());
+                    } else {
+                        long sizeBytes = getStickySize(event, limits[1], (EventCodec<Object>) codec);
+                        stickyEvents.putIfAbsent(eventType, event, sizeBytes, maxAgeMillis);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Could not restore persisted sticky event " + eventType, e);
+            }
+            restoredStickyTypes.add(eventType);
+        }
+    }
+
+    /**
+     * Removes the persisted copy of a sticky event the cache expired or evicted, unless a newer event of the type was
+     * posted since.
+     */
+    private void removePersistedSticky(Class<?> eventType) {
+        EventCodec<?> codec = getPersistentCodec(eventType);
+        if (codec == null) {
+            return;
+        }
+        synchronized (persistentStickyStore) {
+            if (!stickyEvents.contains(eventType)) {
+                try {
+                    persistentStickyStore.remove(codec.getTypeId());
+                } catch (IOException e) {
+                    LOGGER.log(Level.SEVERE, "Could not remove persisted sticky event " + eventType, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the size the sticky cache counts for the event: the sizer's, else the declared size of its type, else
+     * the encoded size if it is persisted, else 0
+     */
+    private long getStickySize(Object event, long declaredSizeBytes, EventCodec<Object> codec) {
+        if (stickySizer != null) {
+            long sizeBytes = stickySizer.sizeOf(event);
+            if (sizeBytes > 0) {
+                return sizeBytes;
+            }
+        }
+        if (declaredSizeBytes > 0) {
+            return declaredSizeBytes;
+        }
+        return codec != null ? codec.sizeOf(event) : 0;
+    }
+
+    /**
+     * @return {maxAgeMillis, sizeBytes} of the sticky type: the smallest age limit and the largest size of all indexes
+     */
+    private long[] getStickyLimits(Class<?> eventType) {
+        long[] limits = stickyLimits.get(eventType);
+        if (limits == null) {
+            limits = new long[2];
+            for (GeneratedIndex index : indexes) {
+                long maxAgeMillis = index.getStickyMaxAgeMillis(eventType);
+                if (maxAgeMillis > 0 && (limits[0] == 0 || maxAgeMillis < limits[0])) {
+                    limits[0] = maxAgeMillis;
+                }
+                limits[1] = Math.max(limits[1], index.getStickySizeBytes(eventType));
+            }
+            stickyLimits.put(eventType, limits);
+        }
+        return limits;
+    }
+
+    /** @return the number of sticky events evicted to stay within the sticky memory budget */
+    public long getStickyEvictionCount() {
+        return stickyEvents.getEvictionCount();
+    }
+
+    /** @return the number of sticky events dropped because they were older than their stickyMaxAgeMillis */
+    public long getStickyExpirationCount() {
+        return stickyEvents.getExpirationCount();
+    }
+
+    /** @return the summed sizes of the retained sticky events, as counted against the budget */
+    public long getStickyRetainedBytes() {
+        return stickyEvents.getRetainedBytes();
+    }
+
+    /** @return the codec of a type some index persists, or null (always without a persistent sticky store) */
+    private EventCodec<?> getPersistentCodec(Class<?> eventType) {
+        if (persistentStickyStore == null) {
+            return null;
+        }
+        Object codec = persistentCodecs.get(eventType);
+        if (codec == null) {
+            for (int i = 0; i < indexes.length && codec == null; i++) {
+                codec = indexes[i].getPersistentCodec(eventType);
+            }
+            if (codec == null) {
+                codec = NO_CODEC;
+            }
+            persistentCodecs.put(eventType, codec);
+        }
+        return codec != NO_CODEC ? (EventCodec<?>) codec : null;
+    }
+
+    SubscriberMethod[] findSubscriberMethods(Class<?> subscriberClass) {
+        SubscriberMethod[] subscriberMethods = subscriberMethodCache.get(subscriberClass);
+        if (subscriberMethods == null) {
+            subscriberMethods = resolveSubscriberMethods(subscriberClass);
+            subscriberMethodCache.put(subscriberClass, subscriberMethods);
+        }
+        return subscriberMethods;
+    }
+
+    private SubscriberMethod[] resolveSubscriberMethods(Class<?> subscriberClass) {
+        int expectedMethods = 0;
+        for (GeneratedIndex index : indexes) {
+            expectedMethods += index.getSubscriberCount(subscriberClass);
+        }
+        List<SubscriberMethod> subscriberMethods = new ArrayList<>(Math.max(4, expectedMethods));
+        Set<String> signatures = new HashSet<>();
+        for (Class<?> clazz = subscriberClass; clazz != null; clazz = clazz.getSuperclass()) {
+            String className = clazz.getName();
+            if (className.startsWith("java.") || className.startsWith("javax.")) {
+                break;
+            }
+            GeneratedIndex index = null;
+            SubscriberInfo info = null;
+            for (int i = 0; i < indexes.length && info == null; i++) {
+                index = indexes[i];
+                info = index.index.getSubscriberInfo(clazz);
+            }
+            if (info == null) {
+                continue;
+            }
+            SubscriberMethodInfo[] methodInfos = info.getSubscriberMethodInfos();
+            int[] stripeKeys = index.getStripeKeys(clazz);
+            boolean[] coalesce = index.getCoalesce(clazz);
+            int[] mergeIds = index.getMergeIds(clazz);
+            int[] dispatchRanks = index.getDispatchRanks(clazz);
+            int[] metricIds = index.getMetricIds(clazz);
+            int[] queueCapacities = index.getQueueCapacities(clazz);
+            OverflowPolicy[] overflowPolicies = index.getOverflowPolicies(clazz);
+            String[] executors = index.getExecutors(clazz);
+            for (int i = 0; i < methodInfos.length; i++) {
+                int stripeKey = stripeKeys != null ? stripeKeys[i] : -1;
+                SubscriberMethod subscriberMethod = SubscriberMethod.resolve(subscriberClass, methodInfos[i], index,
+                        stripeKey, coalesce != null && coalesce[i], mergeIds != null ? mergeIds[i] : 0,
+                        dispatchRanks != null ? dispatchRanks[i] : -1, metricIds != null ? metricIds[i] : -1,
+                        queueCapacities != null ? queueCapacities[i] : 0,
+                        overflowPolicies != null ? overflowPolicies[i] : OverflowPolicy.DROP_OLDEST,
+                        executors != null && executors[i] != null ? index.getExecutor(executors[i]) : null);
+                // A subclass method overrides the indexed superclass method of the same signature
+                if (signatures.add(subscriberMethod.getSignature())) {
+                    subscriberMethods.add(subscriberMethod);
+                }
+            }
+            if (!info.shouldCheckSuperclass()) {
+                break;
+            }
+        }
+        if (subscriberMethods.isEmpty()) {
+            throw new EventBusException("Subscriber " + subscriberClass + " and its super classes are not in any index"
+                    + " added to this bus");
+        }
+        return subscriberMethods.toArray(new SubscriberMethod[0]);
+    }
+
+    /** @return the class, its super classes and all their interfaces */
+    private Class<?>[] lookupEventTypes(Class<?> eventClass) {
+        Class<?>[] eventTypes = eventTypesCache.get(eventClass);
+        if (eventTypes == null) {
+            Set<Class<?>> types = new LinkedHashSet<>();
+            for (Class<?> clazz = eventClass; clazz != null; clazz = clazz.getSuperclass()) {
+                types.add(clazz);
+                addInterfaces(types, clazz.getInterfaces());
+            }
+            eventTypes = types.toArray(new Class<?>[0]);
+            eventTypesCache.put(eventClass, eventTypes);
+        }
+        return eventTypes;
+    }
+
+    private static void addInterfaces(Set<Class<?>> types, Class<?>[] interfaces) {
+        for (Class<?> interfaceClass : interfaces) {
+            if (types.add(interfaceClass)) {
+                addInterfaces(types, interfaceClass.getInterfaces());
+            }
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() exists since Java 21; it is looked up reflectively so the
+     * runtime still runs on Java 11.
+     */
+    private static Executor createVirtualThreadExecutor(Executor fallback) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return fallback;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static class Builder {
+        private final List<SubscriberInfoIndex> indexes = new ArrayList<>();
+        private Executor mainThreadExecutor;
+        private Executor backgroundExecutor;
+        private Executor asyncExecutor;
+        private int backgroundLanes = Runtime.getRuntime().availableProcessors();
+        private boolean eventInheritance = true;
+        private boolean throwSubscriberException;
+        private File persistentStickyFile;
+        private long stickyMaxBytes = -1;
+        private StickyCache.Sizer stickySizer;
+        private MethodHandle recycleEvent;
+
+        Builder() {
+        }
+
+        /** Adds a generated index, e.g. {@code new App$$EventBus()}. */
+        public Builder addIndex(SubscriberInfoIndex index) {
+            indexes.add(index);
+            return this;
+        }
+
+        /** Executor standing in for the main thread, e.g. a single thread event loop. */
+        public Builder mainThreadExecutor(Executor mainThreadExecutor) {
+            this.mainThreadExecutor = mainThreadExecutor;
+            return this;
+        }
+
+        /** Must deliver in order, i.e. run one task at a time. */
+        public Builder backgroundExecutor(Executor backgroundExecutor) {
+            this.backgroundExecutor = backgroundExecutor;
+            return this;
+        }
+
+        /** Number of lanes striped BACKGROUND subscribers are spread over (default: number of CPUs). */
+        public Builder backgroundLanes(int backgroundLanes) {
+            if (backgroundLanes <= 0) {
+                throw new IllegalArgumentException("backgroundLanes must be positive");
+            }
+            this.backgroundLanes = backgroundLanes;
+            return this;
+        }
+
+        public Builder asyncExecutor(Executor asyncExecutor) {
+            this.asyncExecutor = asyncExecutor;
+            return this;
+        }
+
+        /** If false, events are only delivered to subscribers of exactly their class (default: true). */
+        public Builder eventInheritance(boolean eventInheritance) {
+            this.eventInheritance = eventInheritance;
+            return this;
+        }
+
+        /** If true, exceptions thrown by subscribers are rethrown as EventBusException instead of being logged. */
+        public Builder throwSubscriberException(boolean throwSubscriberException) {
+            this.throwSubscriberException = throwSubscriberException;
+            return this;
+        }
+
+        /**
+         * File keeping the sticky events of types subscribed with persist = true across restarts. It is only opened
+         * when a persistent sticky type is first used; compaction alternates with a second file, {@code <file>.alt}.
+         */
+        public Builder persistentStickyStore(File persistentStickyFile) {
+            this.persistentStickyFile = persistentStickyFile;
+            return this;
+        }
+
+        /**
+         * Memory budget of all sticky events in bytes, 0 for no limit; overrides the eventBusStickyMaxBytes processor
+         * option of the indexes.
+         */
+        public Builder stickyMaxBytes(long stickyMaxBytes) {
+            if (stickyMaxBytes < 0) {
+                throw new IllegalArgumentException("stickyMaxBytes must not be negative");
+            }
+            this.stickyMaxBytes = stickyMaxBytes;
+            return this;
+        }
+
+        /**
+         * Measures sticky events at runtime for the memory budget. Types without a declared stickySizeBytes are then
+         * evictable too; the declared size only applies where the sizer returns 0.
+         */
+        public Builder stickySizer(StickyCache.Sizer stickySizer) {
+            this.stickySizer = stickySizer;
+            return this;
+        }
+
+        /**
+         * Generated pool hook of a module, e.g. {@code App$$EventPool.class}, handing {@code @PooledEvent} events
+         * back to their pools after post().
+         */
+        public Builder eventPools(Class<?> eventPoolClass) {
+            try {
+                recycleEvent = MethodHandles.publicLookup().findStatic(eventPoolClass, "recycle",
+                        MethodType.methodType(boolean.class, Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalArgumentException(eventPoolClass + " is not a generated event pool hook", e);
+            }
+            return this;
+        }
+
+        public JvmEventBus build() {
+            if (indexes.isEmpty()) {
+                throw new EventBusException("At least one generated index is required");
+            }
+            return new JvmEventBus(this);
+        }
+    }
+}
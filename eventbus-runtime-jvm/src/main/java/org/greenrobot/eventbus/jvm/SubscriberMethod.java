@@ -0,0 +1,145 @@
+package org.greenrobot.eventbus.jvm;
+
+import org.greenrobot.eventbus.OverflowPolicy;
+import org.greenrobot.eventbus.ThreadMode;
+import org.greenrobot.eventbus.meta.EmptyEventBusType;
+import org.greenrobot.eventbus.meta.SubscriberMethodInfo;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+
+/**
+ * A subscriber method resolved from its {@link SubscriberMethodInfo}. The method handle takes (subscriber, event)
+ * as plain Objects, so invoking it needs neither an argument array nor boxing beyond the event itself.
+ */
+final class SubscriberMethod {
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    final SubscriberMethodInfo info;
+    /** Event type used as subscription key; primitive event types are boxed. */
+    final Class<?> eventType;
+    final ThreadMode threadMode;
+    final int priority;
+    final boolean lifo;
+    final MethodHandle handle;
+    /** Index that listed the method. */
+    final GeneratedIndex index;
+    /** -1 if BACKGROUND deliveries are not striped, 0 if keyed by subscriber, else the index' stripe key id. */
+    final int stripeKey;
+    /** If true, a queued delivery takes newer events instead of queueing one delivery each. */
+    final boolean coalesce;
+    /** The index' merge id combining a queued event with a newer one, 0 to keep the newer one. */
+    final int mergeId;
+    /** The index' dispatch rank among the subscriber methods of the declared event type, -1 if unknown. */
+    final int dispatchRank;
+    /** The index' metric id of the method, -1 if deliveries are not measured. */
+    final int metricId;
+    /** Capacity of the delivery queue of each subscription, 0 for unbounded. */
+    final int queueCapacity;
+    /** What a post to a full delivery queue does. */
+    final OverflowPolicy overflowPolicy;
+    /** ASYNC only: the named executor the method runs on, null for the bus' async executor. */
+    final Executor executor;
+
+    private SubscriberMethod(SubscriberMethodInfo info, MethodHandle handle, GeneratedIndex index, int stripeKey,
+                             boolean coalesce, int mergeId, int dispatchRank, int metricId, int queueCapacity,
+                             OverflowPolicy overflowPolicy, Executor executor) {
+        this.info = info;
+        this.eventType = box(info.getEventType());
+        this.threadMode = info.getThreadMode();
+        this.priority = info.getPriority();
+        this.lifo = info.isLifo();
+        this.handle = handle;
+        this.index = index;
+        this.stripeKey = stripeKey;
+        this.coalesce = coalesce;
+        this.mergeId = mergeId;
+        this.dispatchRank = dispatchRank;
+        this.metricId = metricId;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+    }
+
+    static SubscriberMethod resolve(Class<?> subscriberClass, SubscriberMethodInfo info, GeneratedIndex index,
+                                    int stripeKey, boolean coalesce, int mergeId, int dispatchRank, int metricId,
+                                    int queueCapacity, OverflowPolicy overflowPolicy, Executor executor) {
+        String methodName = info.getMethodName();
+        boolean noParameter = info.getEventType() == EmptyEventBusType.class;
+        try {
+            Method method = noParameter ? subscriberClass.getMethod(methodName)
+                    : subscriberClass.getMethod(methodName, info.getEventType());
+            try {
+                method.setAccessible(true);
+            } catch (RuntimeException e) {
+                // Public method of a public class, accessible anyway
+            }
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (noParameter) {
+                handle = MethodHandles.dropArguments(handle, 1, Object.class);
+            }
+            return new SubscriberMethod(info, handle.asType(INVOKE_TYPE), index, stripeKey, coalesce, mergeId,
+                    dispatchRank, metricId, queueCapacity, overflowPolicy, executor);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new EventBusException("Could not resolve indexed subscriber method " + subscriberClass.getName() + "."
+                    + methodName + ", is the index outdated?", e);
+        }
+    }
+
+    /** @return a subscriber method not listed in an index, calling the given (receiver, event) handle */
+    static SubscriberMethod of(SubscriberMethodInfo info, MethodHandle handle) {
+        return new SubscriberMethod(info, handle.asType(INVOKE_TYPE), null, -1, false, 0, -1, -1, 0,
+                OverflowPolicy.DROP_OLDEST, null);
+    }
+
+    /** @return the Java signature, used to skip superclass methods overridden by the subscriber class */
+    String getSignature() {
+        return info.getMethodName() + "(" + info.getEventType().getName() + ")";
+    }
+
+    static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else {
+            return Character.class;
+        }
+    }
+
+    /** @return the wrapper of a primitive event given as raw bits, see GeneratedIndex#dispatchPrimitive */
+    static Object box(Class<?> primitiveType, long bits) {
+        if (primitiveType == int.class) {
+            return (int) bits;
+        } else if (primitiveType == long.class) {
+            return bits;
+        } else if (primitiveType == boolean.class) {
+            return bits != 0;
+        } else if (primitiveType == float.class) {
+            return Float.intBitsToFloat((int) bits);
+        } else if (primitiveType == double.class) {
+            return Double.longBitsToDouble(bits);
+        } else if (primitiveType == short.class) {
+            return (short) bits;
+        } else if (primitiveType == byte.class) {
+            return (byte) bits;
+        } else {
+            return (char) bits;
+        }
+    }
+}
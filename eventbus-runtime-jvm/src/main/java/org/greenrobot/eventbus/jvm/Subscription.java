@@ -0,0 +1,21 @@
+package org.greenrobot.eventbus.jvm;
+
+final class Subscription {
+    final Object subscriber;
+    final SubscriberMethod subscriberMethod;
+    /**
+     * Becomes false as soon as the subscriber is unregistered; posts already iterating over an older registry
+     * snapshot check it before delivering.
+     */
+    volatile boolean active = true;
+    /** Coalescing subscriber methods only: a delivery is queued and takes {@link #queuedEvent}. Guarded by this. */
+    boolean deliveryQueued;
+    Object queuedEvent;
+    /** Subscriber methods with a queueCapacity only: the bounded queue of the deliveries, else null. */
+    DeliveryQueue deliveryQueue;
+
+    Subscription(Object subscriber, SubscriberMethod subscriberMethod) {
+        this.subscriber = subscriber;
+        this.subscriberMethod = subscriberMethod;
+    }
+}
@@ -0,0 +1,9 @@
+package org.greenrobot.eventbus.meta;
+
+/**
+ * Event type of subscriber methods without a parameter, e.g. {@code @SubscribeSimple("refresh") void onRefresh()}.
+ */
+public final class EmptyEventBusType {
+    private EmptyEventBusType() {
+    }
+}
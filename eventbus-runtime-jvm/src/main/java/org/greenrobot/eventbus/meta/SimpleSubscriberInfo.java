@@ -0,0 +1,39 @@
+package org.greenrobot.eventbus.meta;
+
+/**
+ * Subscriber info written by the generated index; methods are only resolved when the class is first registered.
+ */
+public class SimpleSubscriberInfo implements SubscriberInfo {
+    private final Class<?> subscriberClass;
+    private final boolean shouldCheckSuperclass;
+    private final SubscriberMethodInfo[] methodInfos;
+    private final String tag;
+
+    public SimpleSubscriberInfo(Class<?> subscriberClass, boolean shouldCheckSuperclass, SubscriberMethodInfo[] methodInfos,
+                                String tag) {
+        this.subscriberClass = subscriberClass;
+        this.shouldCheckSuperclass = shouldCheckSuperclass;
+        this.methodInfos = methodInfos;
+        this.tag = tag != null ? tag : "";
+    }
+
+    @Override
+    public Class<?> getSubscriberClass() {
+        return subscriberClass;
+    }
+
+    @Override
+    public SubscriberMethodInfo[] getSubscriberMethodInfos() {
+        return methodInfos;
+    }
+
+    @Override
+    public String getTag() {
+        return tag;
+    }
+
+    @Override
+    public boolean shouldCheckSuperclass() {
+        return shouldCheckSuperclass;
+    }
+}
@@ -0,0 +1,15 @@
+package org.greenrobot.eventbus.meta;
+
+/**
+ * The subscriber methods of one subscriber class, as listed in a generated index.
+ */
+public interface SubscriberInfo {
+    Class<?> getSubscriberClass();
+
+    SubscriberMethodInfo[] getSubscriberMethodInfos();
+
+    /** Tag of the subscriber class (see SubscribeTag), empty if it has none. */
+    String getTag();
+
+    boolean shouldCheckSuperclass();
+}
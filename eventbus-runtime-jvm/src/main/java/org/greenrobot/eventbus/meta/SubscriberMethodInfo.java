@@ -0,0 +1,110 @@
+package org.greenrobot.eventbus.meta;
+
+import org.greenrobot.eventbus.ThreadMode;
+
+/**
+ * One subscriber method as described by the generated index. The constructors match the calls written by
+ * EventBusProcessor for @Subscribe, @SubscribeMainThread, @SubscribeRunOnlyTop and @SubscribeSimple.
+ */
+public class SubscriberMethodInfo {
+    final String methodName;
+    final Class<?> eventType;
+    final ThreadMode threadMode;
+    final int priority;
+    final boolean sticky;
+    final String tag;
+    final boolean finish;
+    final boolean lifo;
+    final boolean ignoredSubscriberTag;
+
+    private SubscriberMethodInfo(String methodName, Class<?> eventType, ThreadMode threadMode, int priority,
+                                 boolean sticky, String tag, boolean finish, boolean lifo, boolean ignoredSubscriberTag) {
+        this.methodName = methodName;
+        this.eventType = eventType;
+        this.threadMode = threadMode;
+        this.priority = priority;
+        this.sticky = sticky;
+        this.tag = tag != null ? tag : "";
+        this.finish = finish;
+        this.lifo = lifo;
+        this.ignoredSubscriberTag = ignoredSubscriberTag;
+    }
+
+    public SubscriberMethodInfo(String methodName, Class<?> eventType) {
+        this(methodName, eventType, ThreadMode.POSTING, 0, false);
+    }
+
+    public SubscriberMethodInfo(String methodName, Class<?> eventType, ThreadMode threadMode) {
+        this(methodName, eventType, threadMode, 0, false);
+    }
+
+    public SubscriberMethodInfo(String methodName, Class<?> eventType, ThreadMode threadMode, int priority, boolean sticky) {
+        this(methodName, eventType, threadMode, priority, sticky, "", false, false, false);
+    }
+
+    /** @SubscribeMainThread */
+    public SubscriberMethodInfo(String methodName, Class<?> eventType, int priority, boolean sticky, String tag) {
+        this(methodName, eventType, priority, sticky, tag, false, false, false);
+    }
+
+    public SubscriberMethodInfo(String methodName, Class<?> eventType, int priority, boolean sticky, String tag,
+                                boolean finish) {
+        this(methodName, eventType, priority, sticky, tag, finish, false, false);
+    }
+
+    public SubscriberMethodInfo(String methodName, Class<?> eventType, int priority, boolean sticky, String tag,
+                                boolean finish, boolean lifo) {
+        this(methodName, eventType, priority, sticky, tag, finish, lifo, false);
+    }
+
+    public SubscriberMethodInfo(String methodName, Class<?> eventType, int priority, boolean sticky, String tag,
+                                boolean finish, boolean lifo, boolean ignoredSubscriberTag) {
+        this(methodName, eventType, ThreadMode.MAIN, priority, sticky, tag, finish, lifo, ignoredSubscriberTag);
+    }
+
+    /** @SubscribeRunOnlyTop */
+    public SubscriberMethodInfo(String methodName, Class<?> eventType, ThreadMode threadMode, String tag) {
+        this(methodName, eventType, threadMode, 0, false, tag, false, false, false);
+    }
+
+    /** @SubscribeSimple */
+    public SubscriberMethodInfo(String methodName, Class<?> eventType, String tag) {
+        this(methodName, eventType, ThreadMode.POSTING, 0, false, tag, false, false, false);
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public Class<?> getEventType() {
+        return eventType;
+    }
+
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public boolean isSticky() {
+        return sticky;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public boolean isFinish() {
+        return finish;
+    }
+
+    public boolean isLifo() {
+        return lifo;
+    }
+
+    public boolean isIgnoredSubscriberTag() {
+        return ignoredSubscriberTag;
+    }
+}
@@ -0,0 +1,151 @@
+package org.greenrobot.eventbus.jvm;
+
+import com.zee.autocreate.JvmTest$$EventBus;
+
+import org.greenrobot.eventbus.OverflowPolicy;
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.ThreadMode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedQueueTest {
+    public static class BurstEvent {
+        public final int n;
+
+        public BurstEvent(int n) {
+            this.n = n;
+        }
+    }
+
+    public static class BurstSubscriber {
+        public final List<Integer> received = new ArrayList<>();
+
+        synchronized List<Integer> getReceived() {
+            return new ArrayList<>(received);
+        }
+    }
+
+    public static class DropOldestSubscriber extends BurstSubscriber {
+        @Subscribe(threadMode = ThreadMode.BACKGROUND, queueCapacity = 2, overflowPolicy = OverflowPolicy.DROP_OLDEST)
+        public synchronized void onBurst(BurstEvent event) {
+            received.add(event.n);
+        }
+    }
+
+    public static class DropNewestSubscriber extends BurstSubscriber {
+        @Subscribe(threadMode = ThreadMode.BACKGROUND, queueCapacity = 2, overflowPolicy = OverflowPolicy.DROP_NEWEST)
+        public synchronized void onBurst(BurstEvent event) {
+            received.add(event.n);
+        }
+    }
+
+    public static class CoalesceSubscriber extends BurstSubscriber {
+        @Subscribe(threadMode = ThreadMode.ASYNC, queueCapacity = 2, overflowPolicy = OverflowPolicy.COALESCE)
+        public synchronized void onBurst(BurstEvent event) {
+            received.add(event.n);
+        }
+    }
+
+    public static class BlockSubscriber extends BurstSubscriber {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+
+        @Subscribe(threadMode = ThreadMode.BACKGROUND, queueCapacity = 1, overflowPolicy = OverflowPolicy.BLOCK)
+        public void onBurst(BurstEvent event) throws InterruptedException {
+            started.countDown();
+            gate.await();
+            synchronized (this) {
+                received.add(event.n);
+            }
+        }
+    }
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private JvmEventBus manualBus() {
+        Executor manual = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+        return JvmEventBus.builder().addIndex(new JvmTest$$EventBus()).backgroundExecutor(manual)
+                .asyncExecutor(manual).build();
+    }
+
+    private List<Integer> burst(BurstSubscriber subscriber) {
+        JvmEventBus eventBus = manualBus();
+        eventBus.register(subscriber);
+        for (int n = 0; n < 5; n++) {
+            eventBus.post(new BurstEvent(n));
+        }
+        // One task per queued event, whatever was dropped
+        assertEquals(2, tasks.size());
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        return subscriber.getReceived();
+    }
+
+    @Test
+    public void testDropOldestKeepsTheNewestEvents() {
+        assertEquals(Arrays.asList(3, 4), burst(new DropOldestSubscriber()));
+    }
+
+    @Test
+    public void testDropNewestKeepsTheOldestEvents() {
+        assertEquals(Arrays.asList(0, 1), burst(new DropNewestSubscriber()));
+    }
+
+    @Test
+    public void testCoalesceReplacesTheNewestQueuedEvent() {
+        assertEquals(Arrays.asList(0, 4), burst(new CoalesceSubscriber()));
+    }
+
+    @Test
+    public void testBlockMakesThePosterWait() throws InterruptedException {
+        ExecutorService background = Executors.newSingleThreadExecutor();
+        try {
+            final JvmEventBus eventBus = JvmEventBus.builder().addIndex(new JvmTest$$EventBus())
+                    .backgroundExecutor(background).build();
+            final BlockSubscriber subscriber = new BlockSubscriber();
+            eventBus.register(subscriber);
+            eventBus.post(new BurstEvent(0));
+            assertTrue(subscriber.started.await(5, TimeUnit.SECONDS));
+
+            Thread poster = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    eventBus.post(new BurstEvent(1));
+                    eventBus.post(new BurstEvent(2));
+                }
+            });
+            poster.start();
+            // Event 1 fills the queue while 0 is delivered, so the post of 2 waits
+            long deadline = System.currentTimeMillis() + 5000;
+            while (poster.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(Thread.State.WAITING, poster.getState());
+
+            subscriber.gate.countDown();
+            poster.join(5000);
+            background.shutdown();
+            assertTrue(background.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(0, 1, 2), subscriber.getReceived());
+        } finally {
+            background.shutdownNow();
+        }
+    }
+}
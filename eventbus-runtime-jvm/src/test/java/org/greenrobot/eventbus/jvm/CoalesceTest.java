@@ -0,0 +1,105 @@
+package org.greenrobot.eventbus.jvm;
+
+import com.zee.autocreate.JvmTest$$EventBus;
+
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.SubscribeMainThread;
+import org.greenrobot.eventbus.ThreadMode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+
+public class CoalesceTest {
+    public static class ScrollEvent {
+        public final int dy;
+
+        public ScrollEvent(int dy) {
+            this.dy = dy;
+        }
+    }
+
+    public static class ProgressEvent {
+        public final int percent;
+
+        public ProgressEvent(int percent) {
+            this.percent = percent;
+        }
+    }
+
+    public static class ProgressSubscriber {
+        public final List<Integer> received = new ArrayList<>();
+
+        @SubscribeMainThread(coalesce = true)
+        public void onProgress(ProgressEvent event) {
+            received.add(event.percent);
+        }
+    }
+
+    public static class ScrollSubscriber {
+        public final List<Integer> received = new ArrayList<>();
+
+        @Subscribe(threadMode = ThreadMode.MAIN, merge = "add")
+        public void onScroll(ScrollEvent event) {
+            received.add(event.dy);
+        }
+
+        public ScrollEvent add(ScrollEvent queued, ScrollEvent newer) {
+            return new ScrollEvent(queued.dy + newer.dy);
+        }
+    }
+
+    /** Stands in for the main thread: runs the queued tasks when the test says so. */
+    private static class ManualExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            for (Runnable task : pending) {
+                task.run();
+            }
+        }
+    }
+
+    private final ManualExecutor mainThread = new ManualExecutor();
+    private final JvmEventBus eventBus = JvmEventBus.builder().addIndex(new JvmTest$$EventBus())
+            .mainThreadExecutor(mainThread).build();
+
+    @Test
+    public void testQueuedDeliveryTakesNewestEvent() {
+        ProgressSubscriber subscriber = new ProgressSubscriber();
+        eventBus.register(subscriber);
+        for (int percent = 1; percent <= 5; percent++) {
+            eventBus.post(new ProgressEvent(percent));
+        }
+        assertEquals(1, mainThread.tasks.size());
+        mainThread.runAll();
+        assertEquals(Arrays.asList(5), subscriber.received);
+
+        eventBus.post(new ProgressEvent(6));
+        mainThread.runAll();
+        assertEquals(Arrays.asList(5, 6), subscriber.received);
+    }
+
+    @Test
+    public void testQueuedDeliveryTakesMergedEvent() {
+        ScrollSubscriber subscriber = new ScrollSubscriber();
+        eventBus.register(subscriber);
+        eventBus.post(new ScrollEvent(10));
+        eventBus.post(new ScrollEvent(20));
+        eventBus.post(new ScrollEvent(-5));
+        assertEquals(1, mainThread.tasks.size());
+        mainThread.runAll();
+        assertEquals(Arrays.asList(25), subscriber.received);
+    }
+}
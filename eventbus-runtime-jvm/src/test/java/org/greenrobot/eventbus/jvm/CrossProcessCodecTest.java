@@ -0,0 +1,115 @@
+package org.greenrobot.eventbus.jvm;
+
+import com.zee.autocreate.JvmTest$$EventCodecs;
+
+import org.greenrobot.eventbus.CrossProcessEvent;
+import org.greenrobot.eventbus.crossprocess.CorruptFrameException;
+import org.greenrobot.eventbus.crossprocess.CrossProcessTransport;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CrossProcessCodecTest {
+    public enum State {
+        ONLINE, AWAY
+    }
+
+    @CrossProcessEvent
+    public static class StatusEvent {
+        public String name;
+        public State state;
+        public int[] values;
+        public long time;
+    }
+
+    private static class CapturingTransport implements CrossProcessTransport {
+        ByteBuffer frame;
+
+        @Override
+        public ByteBuffer obtainBuffer(int size) {
+            return ByteBuffer.allocate(size);
+        }
+
+        @Override
+        public void send(ByteBuffer frame) {
+            this.frame = frame;
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        StatusEvent event = newEvent();
+        event.state = null;
+        ByteBuffer frame = encode(event);
+
+        StatusEvent decoded = (StatusEvent) JvmTest$$EventCodecs.receive(frame);
+        assertEquals("alice", decoded.name);
+        assertNull(decoded.state);
+        assertArrayEquals(new int[]{1, 2, 3}, decoded.values);
+        assertEquals(42, decoded.time);
+        assertEquals(0, frame.remaining());
+    }
+
+    @Test
+    public void testStringLongerThanFrame() {
+        ByteBuffer frame = encode(newEvent());
+        // The name length follows the type id
+        frame.putInt(4, 1 << 30);
+        assertCorrupt(frame);
+    }
+
+    @Test
+    public void testNegativeArrayLength() {
+        ByteBuffer frame = encode(newEvent());
+        // Type id, name, ordinal
+        frame.putInt(4 + 4 + 5 + 4, -2);
+        assertCorrupt(frame);
+    }
+
+    @Test
+    public void testOrdinalOutOfRange() {
+        ByteBuffer frame = encode(newEvent());
+        frame.putInt(4 + 4 + 5, State.values().length);
+        assertCorrupt(frame);
+    }
+
+    @Test
+    public void testTruncatedFrame() {
+        ByteBuffer frame = encode(newEvent());
+        for (int limit = frame.limit() - 1; limit >= 0; limit--) {
+            ByteBuffer truncated = frame.duplicate();
+            truncated.limit(limit);
+            assertCorrupt(truncated);
+        }
+    }
+
+    private static StatusEvent newEvent() {
+        StatusEvent event = new StatusEvent();
+        event.name = "alice";
+        event.state = State.AWAY;
+        event.values = new int[]{1, 2, 3};
+        event.time = 42;
+        return event;
+    }
+
+    private static ByteBuffer encode(StatusEvent event) {
+        CapturingTransport transport = new CapturingTransport();
+        assertTrue(JvmTest$$EventCodecs.send(event, transport));
+        return transport.frame;
+    }
+
+    private static void assertCorrupt(ByteBuffer frame) {
+        try {
+            JvmTest$$EventCodecs.receive(frame);
+            fail("Corrupt frame of " + frame.limit() + " bytes decoded");
+        } catch (CorruptFrameException expected) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.greenrobot.eventbus.jvm;
+
+import com.zee.autocreate.JvmTest$$EventPoster;
+
+import org.greenrobot.eventbus.Subscribe;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the typed poster the processor writes for the subscribers below (eventBusPoster option of the test build).
+ */
+public class EventPosterTest {
+    public static class PosterEvent {
+    }
+
+    public static class BaseSubscriber {
+        public final List<String> calls = new ArrayList<>();
+
+        @Subscribe
+        public void onEvent(PosterEvent event) {
+            calls.add("base");
+        }
+    }
+
+    public static class OverridingSubscriber extends BaseSubscriber {
+        @Subscribe
+        @Override
+        public void onEvent(PosterEvent event) {
+            calls.add("override");
+        }
+    }
+
+    public static class InheritingSubscriber extends BaseSubscriber {
+    }
+
+    private final List<Object> registered = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (Object subscriber : registered) {
+            JvmTest$$EventPoster.unregister(subscriber);
+        }
+    }
+
+    private void register(Object subscriber) {
+        JvmTest$$EventPoster.register(subscriber);
+        registered.add(subscriber);
+    }
+
+    @Test
+    public void testOverrideIsCalledOncePerPost() {
+        OverridingSubscriber subscriber = new OverridingSubscriber();
+        register(subscriber);
+        JvmTest$$EventPoster.postPosterEvent(new PosterEvent());
+        assertEquals(Arrays.asList("override"), subscriber.calls);
+    }
+
+    @Test
+    public void testInheritedMethodIsCalled() {
+        BaseSubscriber base = new BaseSubscriber();
+        InheritingSubscriber inheriting = new InheritingSubscriber();
+        register(base);
+        register(inheriting);
+        JvmTest$$EventPoster.postPosterEvent(new PosterEvent());
+        assertEquals(Arrays.asList("base"), base.calls);
+        assertEquals(Arrays.asList("base"), inheriting.calls);
+    }
+
+    @Test
+    public void testRegisterTwiceIsCalledOncePerPost() {
+        BaseSubscriber subscriber = new BaseSubscriber();
+        register(subscriber);
+        register(subscriber);
+        JvmTest$$EventPoster.postPosterEvent(new PosterEvent());
+        assertEquals(Arrays.asList("base"), subscriber.calls);
+    }
+
+    @Test
+    public void testUnregister() {
+        OverridingSubscriber subscriber = new OverridingSubscriber();
+        JvmTest$$EventPoster.register(subscriber);
+        JvmTest$$EventPoster.unregister(subscriber);
+        JvmTest$$EventPoster.postPosterEvent(new PosterEvent());
+        assertEquals(0, subscriber.calls.size());
+    }
+}
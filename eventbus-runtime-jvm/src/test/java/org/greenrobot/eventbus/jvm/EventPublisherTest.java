@@ -0,0 +1,136 @@
+package org.greenrobot.eventbus.jvm;
+
+import com.zee.autocreate.JvmTest$$EventBus;
+
+import org.greenrobot.eventbus.OverflowPolicy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventPublisherTest {
+    public static class StreamEvent {
+        public final String text;
+
+        public StreamEvent(String text) {
+            this.text = text;
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<StreamEvent> {
+        final List<String> received = new ArrayList<>();
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(StreamEvent event) {
+            synchronized (received) {
+                received.add(event.text);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        List<String> getReceived() {
+            synchronized (received) {
+                return new ArrayList<>(received);
+            }
+        }
+    }
+
+    private final JvmEventBus eventBus = JvmEventBus.builder().addIndex(new JvmTest$$EventBus()).build();
+
+    @Test
+    public void testDeliversOnlyRequestedEvents() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        eventBus.publisher(StreamEvent.class, 8, OverflowPolicy.BLOCK).subscribe(subscriber);
+        subscriber.subscription.request(2);
+        for (int i = 0; i < 5; i++) {
+            eventBus.post(new StreamEvent("e" + i));
+        }
+        assertEquals(Arrays.asList("e0", "e1"), subscriber.getReceived());
+
+        subscriber.subscription.request(3);
+        assertEquals(Arrays.asList("e0", "e1", "e2", "e3", "e4"), subscriber.getReceived());
+
+        subscriber.subscription.cancel();
+        eventBus.post(new StreamEvent("e5"));
+        assertEquals(5, subscriber.getReceived().size());
+    }
+
+    @Test
+    public void testDropNewestWhenBufferIsFull() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        eventBus.publisher(StreamEvent.class, 2, OverflowPolicy.DROP_NEWEST).subscribe(subscriber);
+        for (int i = 0; i < 5; i++) {
+            eventBus.post(new StreamEvent("e" + i));
+        }
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList("e0", "e1"), subscriber.getReceived());
+    }
+
+    @Test
+    public void testBlockWaitsForDemand() throws InterruptedException {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        eventBus.publisher(StreamEvent.class, 1, OverflowPolicy.BLOCK).subscribe(subscriber);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 3; i++) {
+                    eventBus.post(new StreamEvent("e" + i));
+                }
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertTrue("producer must wait for demand", producer.isAlive());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        assertEquals(Arrays.asList("e0", "e1", "e2"), subscriber.getReceived());
+    }
+
+    @Test
+    public void testBlockDoesNotWaitInOnNext() throws InterruptedException {
+        final RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(StreamEvent event) {
+                super.onNext(event);
+                if (event.text.equals("first")) {
+                    // The buffer holds one event, so the second post would wait for this very thread
+                    eventBus.post(new StreamEvent("second"));
+                    eventBus.post(new StreamEvent("third"));
+                }
+            }
+        };
+        eventBus.publisher(StreamEvent.class, 1, OverflowPolicy.BLOCK).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        Thread poster = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                eventBus.post(new StreamEvent("first"));
+            }
+        });
+        poster.start();
+        poster.join(5000);
+        assertFalse("posting from onNext must not deadlock", poster.isAlive());
+        assertEquals(Arrays.asList("first", "second", "third"), subscriber.getReceived());
+    }
+}
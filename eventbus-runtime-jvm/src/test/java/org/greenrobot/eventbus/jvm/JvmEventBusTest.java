@@ -0,0 +1,319 @@
+package org.greenrobot.eventbus.jvm;
+
+import com.zee.autocreate.JvmTest$$EventBus;
+import com.zee.autocreate.JvmTest$$Executors;
+
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.ThreadMode;
+import org.greenrobot.eventbus.executor.NamedExecutors;
+import org.greenrobot.eventbus.sticky.StickyCache;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JvmEventBusTest {
+    public static class MessageEvent {
+        public final String text;
+
+        public MessageEvent(String text) {
+            this.text = text;
+        }
+    }
+
+    public static class StickyEvent {
+    }
+
+    public static class PayloadEvent {
+        public final long sizeBytes;
+
+        public PayloadEvent(long sizeBytes) {
+            this.sizeBytes = sizeBytes;
+        }
+    }
+
+    public static class OrderEvent {
+        public final int customerId;
+        public final int sequence;
+
+        public OrderEvent(int customerId, int sequence) {
+            this.customerId = customerId;
+            this.sequence = sequence;
+        }
+
+        public int getCustomerId() {
+            return customerId;
+        }
+    }
+
+    public static class MessageSubscriber {
+        public final List<String> received = new ArrayList<>();
+
+        @Subscribe(priority = 1)
+        public void onMessage(MessageEvent event) {
+            received.add(event.text);
+        }
+
+        @Subscribe
+        public void onObject(Object event) {
+            if (event instanceof MessageEvent) {
+                received.add("object");
+            }
+        }
+    }
+
+    public static class StickySubscriber {
+        public final List<StickyEvent> received = new ArrayList<>();
+
+        @Subscribe(sticky = true)
+        public void onSticky(StickyEvent event) {
+            received.add(event);
+        }
+    }
+
+    public static class PayloadSubscriber {
+        @Subscribe(sticky = true)
+        public void onPayload(PayloadEvent event) {
+        }
+    }
+
+    public static class OrderSubscriber {
+        public final ConcurrentLinkedQueue<String> received = new ConcurrentLinkedQueue<>();
+        public final CountDownLatch done;
+
+        public OrderSubscriber(int expected) {
+            done = new CountDownLatch(expected);
+        }
+
+        @Subscribe(threadMode = ThreadMode.BACKGROUND, stripeKey = "getCustomerId")
+        public void onOrder(OrderEvent event) {
+            received.add(event.customerId + ":" + event.sequence + "@" + Thread.currentThread().getName());
+            done.countDown();
+        }
+    }
+
+    public static class RankEvent {
+    }
+
+    public static class IoEvent {
+    }
+
+    public static class IoSubscriber {
+        public volatile String threadName;
+        public final CountDownLatch done = new CountDownLatch(1);
+
+        @Subscribe(threadMode = ThreadMode.ASYNC, executor = "io")
+        public void onIo(IoEvent event) {
+            threadName = Thread.currentThread().getName();
+            done.countDown();
+        }
+    }
+
+    public static class MainRankSubscriber {
+        private final List<String> received;
+
+        public MainRankSubscriber(List<String> received) {
+            this.received = received;
+        }
+
+        @Subscribe(threadMode = ThreadMode.MAIN)
+        public void onRank(RankEvent event) {
+            received.add("main");
+        }
+    }
+
+    public static class PostingRankSubscriber {
+        private final List<String> received;
+
+        public PostingRankSubscriber(List<String> received) {
+            this.received = received;
+        }
+
+        @Subscribe
+        public void onRank(RankEvent event) {
+            received.add("posting");
+        }
+    }
+
+    private static JvmEventBus.Builder builder() {
+        return JvmEventBus.builder().addIndex(new JvmTest$$EventBus());
+    }
+
+    @Test
+    public void testRegisterPostUnregister() {
+        JvmEventBus eventBus = builder().build();
+        MessageSubscriber subscriber = new MessageSubscriber();
+        eventBus.register(subscriber);
+        assertTrue(eventBus.isRegistered(subscriber));
+
+        eventBus.post(new MessageEvent("hello"));
+        // Higher priority first, then the subscriber of the super type
+        assertEquals(Arrays.asList("hello", "object"), subscriber.received);
+
+        eventBus.unregister(subscriber);
+        assertFalse(eventBus.isRegistered(subscriber));
+        eventBus.post(new MessageEvent("gone"));
+        assertEquals(2, subscriber.received.size());
+    }
+
+    @Test
+    public void testNoEventInheritance() {
+        JvmEventBus eventBus = builder().eventInheritance(false).build();
+        MessageSubscriber subscriber = new MessageSubscriber();
+        eventBus.register(subscriber);
+        eventBus.post(new MessageEvent("hello"));
+        assertEquals(Arrays.asList("hello"), subscriber.received);
+    }
+
+    @Test
+    public void testDispatchRankOrdersEqualPriorities() {
+        JvmEventBus eventBus = builder().build();
+        List<String> received = new ArrayList<>();
+        eventBus.register(new MainRankSubscriber(received));
+        eventBus.register(new PostingRankSubscriber(received));
+        eventBus.post(new RankEvent());
+        // Same priority, but the index ranks POSTING before MAIN whatever the registration order
+        assertEquals(Arrays.asList("posting", "main"), received);
+    }
+
+    @Test
+    public void testMainDeliveriesOfOnePostShareOneTask() {
+        final List<Runnable> tasks = new ArrayList<>();
+        JvmEventBus eventBus = builder().mainThreadExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        }).build();
+        List<String> received = new ArrayList<>();
+        eventBus.register(new MainRankSubscriber(received));
+        eventBus.register(new MainRankSubscriber(received));
+        eventBus.register(new PostingRankSubscriber(received));
+
+        eventBus.post(new RankEvent());
+        // The test index is generated with eventBusBatchMainThread
+        assertEquals(1, tasks.size());
+        assertEquals(Arrays.asList("posting"), received);
+        tasks.get(0).run();
+        assertEquals(Arrays.asList("posting", "main", "main"), received);
+
+        eventBus.post(new RankEvent());
+        assertEquals(2, tasks.size());
+    }
+
+    @Test
+    public void testAsyncSubscriberRunsOnItsNamedExecutor() throws InterruptedException {
+        JvmEventBus eventBus = builder().build();
+        IoSubscriber subscriber = new IoSubscriber();
+        eventBus.register(subscriber);
+        eventBus.post(new IoEvent());
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.threadName, subscriber.threadName.startsWith("EventBus-io-"));
+        // Other modules' registries and buses get the same pool by name
+        assertSame(JvmTest$$Executors.getExecutor("io"), NamedExecutors.getExecutor("io"));
+    }
+
+    @Test
+    public void testStickyEventIsDeliveredOnRegister() {
+        JvmEventBus eventBus = builder().build();
+        StickyEvent event = new StickyEvent();
+        eventBus.postSticky(event);
+        assertSame(event, eventBus.getStickyEvent(StickyEvent.class));
+
+        StickySubscriber subscriber = new StickySubscriber();
+        eventBus.register(subscriber);
+        assertEquals(1, subscriber.received.size());
+        assertSame(event, subscriber.received.get(0));
+
+        assertSame(event, eventBus.removeStickyEvent(StickyEvent.class));
+        assertNull(eventBus.getStickyEvent(StickyEvent.class));
+        StickySubscriber late = new StickySubscriber();
+        eventBus.register(late);
+        assertEquals(0, late.received.size());
+    }
+
+    @Test
+    public void testStickySlotsArePerBus() {
+        JvmEventBus eventBus = builder().build();
+        JvmEventBus other = builder().build();
+        StickyEvent event = new StickyEvent();
+        eventBus.postSticky(event);
+        assertSame(event, eventBus.getStickyEvent(StickyEvent.class));
+        assertNull(other.getStickyEvent(StickyEvent.class));
+
+        StickySubscriber subscriber = new StickySubscriber();
+        other.register(subscriber);
+        assertEquals(0, subscriber.received.size());
+
+        eventBus.removeAllStickyEvents();
+        assertNull(eventBus.getStickyEvent(StickyEvent.class));
+    }
+
+    @Test
+    public void testStickySizerMakesUndeclaredTypesEvictable() {
+        JvmEventBus eventBus = builder().stickyMaxBytes(100).stickySizer(new StickyCache.Sizer() {
+            @Override
+            public long sizeOf(Object event) {
+                return event instanceof PayloadEvent ? ((PayloadEvent) event).sizeBytes : 60;
+            }
+        }).build();
+        StickyEvent event = new StickyEvent();
+        eventBus.postSticky(event);
+        eventBus.postSticky(new PayloadEvent(10));
+        assertSame(event, eventBus.getStickyEvent(StickyEvent.class));
+        assertEquals(0, eventBus.getStickyEvictionCount());
+
+        // Neither type declares stickySizeBytes, the sizer's sizes still count against the budget
+        eventBus.postSticky(new PayloadEvent(60));
+        assertNull(eventBus.getStickyEvent(StickyEvent.class));
+        assertEquals(1, eventBus.getStickyEvictionCount());
+    }
+
+    @Test
+    public void testLanesKeepOrderPerStripeKey() throws InterruptedException {
+        JvmEventBus eventBus = builder().backgroundLanes(4).build();
+        int customers = 8;
+        int ordersPerCustomer = 50;
+        OrderSubscriber subscriber = new OrderSubscriber(customers * ordersPerCustomer);
+        eventBus.register(subscriber);
+        for (int sequence = 0; sequence < ordersPerCustomer; sequence++) {
+            for (int customer = 0; customer < customers; customer++) {
+                eventBus.post(new OrderEvent(customer, sequence));
+            }
+        }
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+
+        Map<String, Integer> lastSequence = new HashMap<>();
+        Map<String, Set<String>> lanesByCustomer = new HashMap<>();
+        for (String delivery : subscriber.received) {
+            String[] parts = delivery.split("[:@]");
+            int sequence = Integer.parseInt(parts[1]);
+            Integer last = lastSequence.put(parts[0], sequence);
+            assertEquals(last == null ? 0 : last + 1, sequence);
+            Set<String> lanes = lanesByCustomer.get(parts[0]);
+            if (lanes == null) {
+                lanes = new HashSet<>();
+                lanesByCustomer.put(parts[0], lanes);
+            }
+            lanes.add(parts[2]);
+        }
+        for (Set<String> lanes : lanesByCustomer.values()) {
+            assertEquals(1, lanes.size());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.greenrobot.eventbus.jvm;
+
+import com.zee.autocreate.JvmTest$$EventBus;
+
+import org.greenrobot.eventbus.SubscribeMainThread;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that deliveries made by JvmEventBus land in the metrics of the index (eventBusMetrics option of the test
+ * build).
+ */
+public class MetricsTest {
+    public static class MetricEvent {
+    }
+
+    public static class MetricSubscriber {
+        public int calls;
+
+        @SubscribeMainThread
+        public void onMetric(MetricEvent event) {
+            calls++;
+        }
+    }
+
+    @Test
+    public void testMainDeliveryIsRecorded() {
+        final List<Runnable> tasks = new ArrayList<>();
+        JvmEventBus eventBus = JvmEventBus.builder().addIndex(new JvmTest$$EventBus())
+                .mainThreadExecutor(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        tasks.add(command);
+                    }
+                }).build();
+        MetricSubscriber subscriber = new MetricSubscriber();
+        eventBus.register(subscriber);
+        int metricId = JvmTest$$EventBus.getMetricIds(MetricSubscriber.class)[0];
+        assertTrue(JvmTest$$EventBus.getMetricName(metricId).endsWith("MetricSubscriber.onMetric("
+                + MetricEvent.class.getName() + ")"));
+        long[] before = JvmTest$$EventBus.getMetricsSnapshot(metricId);
+
+        eventBus.post(new MetricEvent());
+        assertEquals(before[0], JvmTest$$EventBus.getMetricsSnapshot(metricId)[0]);
+        tasks.get(0).run();
+        assertEquals(1, subscriber.calls);
+
+        long[] after = JvmTest$$EventBus.getMetricsSnapshot(metricId);
+        assertEquals(before[0] + 1, after[0]);
+        long bucketDeliveries = 0;
+        for (int i = 2; i < after.length; i++) {
+            bucketDeliveries += after[i] - before[i];
+        }
+        assertEquals(1, bucketDeliveries);
+    }
+}
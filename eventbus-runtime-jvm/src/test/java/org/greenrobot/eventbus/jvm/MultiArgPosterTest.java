@@ -0,0 +1,67 @@
+package org.greenrobot.eventbus.jvm;
+
+import com.zee.autocreate.JvmTest$$MultiArgPoster;
+
+import org.greenrobot.eventbus.Subscribe;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the multi argument poster the processor writes for the subscribers below.
+ */
+public class MultiArgPosterTest {
+    public static class ProgressSubscriber {
+        public final List<String> calls = new ArrayList<>();
+
+        @Subscribe
+        public void onProgress(long done, long total) {
+            calls.add("base " + done + "/" + total);
+        }
+    }
+
+    public static class OverridingProgressSubscriber extends ProgressSubscriber {
+        @Subscribe
+        @Override
+        public void onProgress(long done, long total) {
+            calls.add("override " + done + "/" + total);
+        }
+    }
+
+    @Test
+    public void testOverrideIsCalledOncePerPost() {
+        OverridingProgressSubscriber subscriber = new OverridingProgressSubscriber();
+        JvmTest$$MultiArgPoster.register(subscriber);
+        try {
+            JvmTest$$MultiArgPoster.post(1L, 2L);
+        } finally {
+            JvmTest$$MultiArgPoster.unregister(subscriber);
+        }
+        assertEquals(Arrays.asList("override 1/2"), subscriber.calls);
+    }
+
+    @Test
+    public void testRegisterTwiceIsCalledOncePerPost() {
+        ProgressSubscriber subscriber = new ProgressSubscriber();
+        JvmTest$$MultiArgPoster.register(subscriber);
+        JvmTest$$MultiArgPoster.register(subscriber);
+        try {
+            JvmTest$$MultiArgPoster.post(1L, 2L);
+        } finally {
+            JvmTest$$MultiArgPoster.unregister(subscriber);
+        }
+        assertEquals(Arrays.asList("base 1/2"), subscriber.calls);
+    }
+
+    @Test
+    public void testDispatch() {
+        ProgressSubscriber subscriber = new ProgressSubscriber();
+        assertTrue(JvmTest$$MultiArgPoster.dispatch(subscriber, "onProgress", 3L, 4L));
+        assertEquals(Arrays.asList("base 3/4"), subscriber.calls);
+    }
+}
@@ -0,0 +1,118 @@
+package org.greenrobot.eventbus.jvm;
+
+import com.zee.autocreate.JvmTest$$EventBus;
+
+import org.greenrobot.eventbus.CrossProcessEvent;
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.sticky.PersistentStickyStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentStickyTest {
+    private static final long MAX_AGE_MILLIS = 60000;
+
+    @CrossProcessEvent
+    public static class SessionEvent {
+        public String user;
+    }
+
+    @CrossProcessEvent
+    public static class DraftEvent {
+        public String text;
+    }
+
+    public static class SessionSubscriber {
+        @Subscribe(sticky = true, persist = true, stickyMaxAgeMillis = MAX_AGE_MILLIS, stickySizeBytes = 100)
+        public void onSession(SessionEvent event) {
+        }
+    }
+
+    public static class DraftSubscriber {
+        @Subscribe(sticky = true, persist = true, stickySizeBytes = 100)
+        public void onDraft(DraftEvent event) {
+        }
+    }
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static SessionEvent newSession(String user) {
+        SessionEvent event = new SessionEvent();
+        event.user = user;
+        return event;
+    }
+
+    private static DraftEvent newDraft(String text) {
+        DraftEvent event = new DraftEvent();
+        event.text = text;
+        return event;
+    }
+
+    private static JvmEventBus newEventBus(File file, long stickyMaxBytes) {
+        return JvmEventBus.builder().addIndex(new JvmTest$$EventBus()).persistentStickyStore(file)
+                .stickyMaxBytes(stickyMaxBytes).build();
+    }
+
+    @Test
+    public void testRestoredEventKeepsItsAge() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "sticky");
+        PersistentStickyStore store = new PersistentStickyStore(file);
+        // Posted before a restart, once long enough ago to have expired since
+        store.put(PersistentStickyTest$SessionEvent$$Codec.INSTANCE, newSession("old"),
+                System.currentTimeMillis() - MAX_AGE_MILLIS - 1000);
+        JvmEventBus eventBus = newEventBus(file, 0);
+        assertNull(eventBus.getStickyEvent(SessionEvent.class));
+        assertFalse(new PersistentStickyStore(file).contains(PersistentStickyTest$SessionEvent$$Codec.TYPE_ID));
+
+        store = new PersistentStickyStore(file);
+        store.put(PersistentStickyTest$SessionEvent$$Codec.INSTANCE, newSession("recent"),
+                System.currentTimeMillis() - MAX_AGE_MILLIS / 2);
+        eventBus = newEventBus(file, 0);
+        assertEquals("recent", eventBus.getStickyEvent(SessionEvent.class).user);
+    }
+
+    @Test
+    public void testPostTimeIsStored() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "sticky");
+        long before = System.currentTimeMillis();
+        newEventBus(file, 0).postSticky(newSession("alice"));
+
+        long postTimeMillis = new PersistentStickyStore(file).getPostTimeMillis(PersistentStickyTest$SessionEvent$$Codec.TYPE_ID);
+        assertTrue(postTimeMillis >= before && postTimeMillis <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void testEvictionRemovesStoredEvent() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "sticky");
+        JvmEventBus eventBus = newEventBus(file, 150);
+        eventBus.postSticky(newDraft("draft"));
+        eventBus.postSticky(newSession("alice"));
+        assertNull(eventBus.getStickyEvent(DraftEvent.class));
+        assertEquals(1, eventBus.getStickyEvictionCount());
+
+        PersistentStickyStore store = new PersistentStickyStore(file);
+        assertFalse(store.contains(PersistentStickyTest$DraftEvent$$Codec.TYPE_ID));
+        assertTrue(store.contains(PersistentStickyTest$SessionEvent$$Codec.TYPE_ID));
+        assertNull(newEventBus(file, 150).getStickyEvent(DraftEvent.class));
+    }
+
+    @Test
+    public void testNewerEventIsKeptInStore() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "sticky");
+        JvmEventBus eventBus = newEventBus(file, 150);
+        eventBus.postSticky(newDraft("first"));
+        // Replacing is no drop, so the store keeps the newer event
+        eventBus.postSticky(newDraft("second"));
+
+        assertEquals("second", newEventBus(file, 150).getStickyEvent(DraftEvent.class).text);
+    }
+}
@@ -0,0 +1,70 @@
+package org.greenrobot.eventbus.jvm;
+
+import com.zee.autocreate.JvmTest$$EventBus;
+
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.SubscribeMainThread;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrimitivePostTest {
+    public static class PrimitiveSubscriber {
+        public final List<Object> received = new ArrayList<>();
+
+        @SubscribeMainThread
+        public void onPercent(int percent) {
+            received.add("int " + percent);
+        }
+
+        @SubscribeMainThread
+        public void onRatio(double ratio) {
+            received.add("double " + ratio);
+        }
+
+        @Subscribe(priority = 1)
+        public void onBoxed(Integer percent) {
+            received.add(percent);
+        }
+    }
+
+    @Test
+    public void testPrimitiveIsDispatchedThroughIndex() {
+        JvmEventBus eventBus = JvmEventBus.builder().addIndex(new JvmTest$$EventBus()).eventInheritance(false).build();
+        PrimitiveSubscriber subscriber = new PrimitiveSubscriber();
+        eventBus.register(subscriber);
+
+        eventBus.post(42);
+        eventBus.post(0.5d);
+        assertEquals(Arrays.<Object>asList(42, "int 42", "double 0.5"), subscriber.received);
+
+        eventBus.unregister(subscriber);
+        eventBus.post(7);
+        assertEquals(3, subscriber.received.size());
+    }
+
+    @Test
+    public void testQueuedPrimitiveIsBoxed() {
+        final List<Runnable> tasks = new ArrayList<>();
+        JvmEventBus eventBus = JvmEventBus.builder().addIndex(new JvmTest$$EventBus()).eventInheritance(false)
+                .mainThreadExecutor(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        tasks.add(command);
+                    }
+                }).build();
+        PrimitiveSubscriber subscriber = new PrimitiveSubscriber();
+        eventBus.register(subscriber);
+
+        eventBus.post(42);
+        assertEquals(Arrays.<Object>asList(42), subscriber.received);
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertEquals(Arrays.<Object>asList(42, "int 42"), subscriber.received);
+    }
+}
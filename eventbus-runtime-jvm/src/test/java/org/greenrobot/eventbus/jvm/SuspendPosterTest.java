@@ -0,0 +1,182 @@
+package org.greenrobot.eventbus.jvm;
+
+import com.zee.autocreate.JvmTest$$SuspendPoster;
+
+import org.greenrobot.eventbus.Subscribe;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import kotlin.ResultKt;
+import kotlin.Unit;
+import kotlin.coroutines.AbstractCoroutineContextElement;
+import kotlin.coroutines.Continuation;
+import kotlin.coroutines.CoroutineContext;
+import kotlin.coroutines.EmptyCoroutineContext;
+import kotlin.coroutines.intrinsics.IntrinsicsKt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Runs the suspend poster the processor writes for the subscribers below, which are declared the way Kotlin compiles
+ * {@code suspend fun onEvent(event: SuspendEvent)}.
+ */
+public class SuspendPosterTest {
+    public static class SuspendEvent {
+        public final RuntimeException failure;
+
+        public SuspendEvent(RuntimeException failure) {
+            this.failure = failure;
+        }
+    }
+
+    public static class SuspendSubscriber {
+        public final List<Thread> threads = new ArrayList<>();
+        public final List<CoroutineContext> contexts = new ArrayList<>();
+        public boolean suspend;
+        public Continuation<? super Unit> suspended;
+
+        @Subscribe
+        public Object onEvent(SuspendEvent event, Continuation<? super Unit> continuation) {
+            threads.add(Thread.currentThread());
+            contexts.add(continuation.getContext());
+            if (event.failure != null) {
+                throw event.failure;
+            }
+            if (suspend) {
+                suspended = continuation;
+                return IntrinsicsKt.getCOROUTINE_SUSPENDED();
+            }
+            return Unit.INSTANCE;
+        }
+    }
+
+    public static class OverridingSuspendSubscriber extends SuspendSubscriber {
+        public int overrideCalls;
+
+        @Subscribe
+        @Override
+        public Object onEvent(SuspendEvent event, Continuation<? super Unit> continuation) {
+            overrideCalls++;
+            return Unit.INSTANCE;
+        }
+    }
+
+    private static final class Marker extends AbstractCoroutineContextElement {
+        static final CoroutineContext.Key<Marker> KEY = new CoroutineContext.Key<Marker>() {
+        };
+
+        Marker() {
+            super(KEY);
+        }
+    }
+
+    private final List<Throwable> uncaught = new ArrayList<>();
+    private final List<Object> registered = new ArrayList<>();
+    private Thread.UncaughtExceptionHandler previousHandler;
+
+    @Before
+    public void setUp() {
+        Thread thread = Thread.currentThread();
+        previousHandler = thread.getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread thread, Throwable throwable) {
+                uncaught.add(throwable);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        for (Object subscriber : registered) {
+            JvmTest$$SuspendPoster.unregister(subscriber);
+        }
+        JvmTest$$SuspendPoster.setContext(EmptyCoroutineContext.INSTANCE);
+        Thread.currentThread().setUncaughtExceptionHandler(previousHandler);
+    }
+
+    private void register(Object subscriber) {
+        JvmTest$$SuspendPoster.register(subscriber);
+        registered.add(subscriber);
+    }
+
+    @Test
+    public void testStartsCoroutineInPostingThread() {
+        SuspendSubscriber subscriber = new SuspendSubscriber();
+        register(subscriber);
+        JvmTest$$SuspendPoster.postSuspendEvent(new SuspendEvent(null));
+        assertEquals(1, subscriber.threads.size());
+        assertSame(Thread.currentThread(), subscriber.threads.get(0));
+        assertEquals(0, uncaught.size());
+    }
+
+    @Test
+    public void testStartsCoroutineInContext() {
+        Marker marker = new Marker();
+        JvmTest$$SuspendPoster.setContext(marker);
+        SuspendSubscriber subscriber = new SuspendSubscriber();
+        register(subscriber);
+        JvmTest$$SuspendPoster.postSuspendEvent(new SuspendEvent(null));
+        assertSame(marker, subscriber.contexts.get(0).get(Marker.KEY));
+    }
+
+    @Test
+    public void testFailureGoesToUncaughtExceptionHandler() {
+        SuspendSubscriber subscriber = new SuspendSubscriber();
+        register(subscriber);
+        RuntimeException failure = new RuntimeException("subscriber failed");
+        JvmTest$$SuspendPoster.postSuspendEvent(new SuspendEvent(failure));
+        assertEquals(1, uncaught.size());
+        assertSame(failure, uncaught.get(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCompletionAfterResume() {
+        SuspendSubscriber subscriber = new SuspendSubscriber();
+        subscriber.suspend = true;
+        register(subscriber);
+        JvmTest$$SuspendPoster.postSuspendEvent(new SuspendEvent(null));
+        Continuation<Object> continuation = (Continuation<Object>) subscriber.suspended;
+        assertNotNull(continuation);
+        assertEquals(0, uncaught.size());
+
+        RuntimeException failure = new RuntimeException("failed after resume");
+        continuation.resumeWith(ResultKt.createFailure(failure));
+        assertEquals(1, uncaught.size());
+        assertSame(failure, uncaught.get(0));
+    }
+
+    @Test
+    public void testDispatch() {
+        SuspendSubscriber subscriber = new SuspendSubscriber();
+        assertEquals(true, JvmTest$$SuspendPoster.dispatch(subscriber, "onEvent", new SuspendEvent(null)));
+        assertEquals(false, JvmTest$$SuspendPoster.dispatch(subscriber, "onOther", new SuspendEvent(null)));
+        assertEquals(1, subscriber.threads.size());
+        assertNull(subscriber.suspended);
+    }
+
+    @Test
+    public void testRegisterTwiceIsCalledOncePerPost() {
+        SuspendSubscriber subscriber = new SuspendSubscriber();
+        register(subscriber);
+        register(subscriber);
+        JvmTest$$SuspendPoster.postSuspendEvent(new SuspendEvent(null));
+        assertEquals(1, subscriber.threads.size());
+    }
+
+    @Test
+    public void testOverrideIsCalledOncePerPost() {
+        OverridingSuspendSubscriber subscriber = new OverridingSuspendSubscriber();
+        register(subscriber);
+        JvmTest$$SuspendPoster.postSuspendEvent(new SuspendEvent(null));
+        assertEquals(1, subscriber.overrideCalls);
+    }
+}
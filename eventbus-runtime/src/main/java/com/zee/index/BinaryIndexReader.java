@@ -0,0 +1,218 @@
+package com.zee.index;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reads a binary index resource written by the processors' BinaryIndexWriter. Nothing is decoded up front: entries
+ * are found by binary search over the raw key bytes and strings are decoded (and cached) only when asked for.
+ * <p>
+ * The processors write the index as class path resource under {@link #RESOURCE_DIR}, read with
+ * {@link #load(ClassLoader, String)}. A resource inside a jar or APK is compressed and cannot be mapped, so it is
+ * read into memory once. To map it instead, ship it as uncompressed asset (aaptOptions noCompress "idx") and use
+ * {@link #map(FileChannel, long, long)} with the asset's file descriptor, or {@link #map(File)} for a plain file.
+ * <p>
+ * The reader is immutable after construction, except for the cache of decoded strings, which needs no lock: a
+ * String is immutable and can be published by a racy write; two threads may at worst decode the same string once
+ * each.
+ * <p>
+ * Layout (big endian): magic, version (short), kind (byte), reserved (byte), string count, entry count,
+ * string offsets, entry offsets, strings (unsigned short length + UTF-8), entries (key string index, short field
+ * count, int fields). Keys are sorted by their UTF-8 bytes.
+ */
+public final class BinaryIndexReader {
+    public static final int MAGIC = 0x5A494458; // "ZIDX"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+
+    public static final byte KIND_SUBSCRIBERS = 1;
+    public static final byte KIND_ROUTES = 2;
+    public static final byte KIND_RUN_ON_APPLICATION = 3;
+
+    /** Directory of the binary index resources in the class output / APK. */
+    public static final String RESOURCE_DIR = "META-INF/zee/";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Only read with absolute gets, which leave the buffer's state alone. */
+    private final ByteBuffer buffer;
+    private final byte kind;
+    private final int stringCount;
+    private final int entryCount;
+    private final String[] decodedStrings;
+
+    private BinaryIndexReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary index");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary index version " + version);
+        }
+        kind = buffer.get(6);
+        stringCount = buffer.getInt(8);
+        entryCount = buffer.getInt(12);
+        decodedStrings = new String[stringCount];
+    }
+
+    public static String getResourceName(String moduleName, String type) {
+        return RESOURCE_DIR + moduleName + "." + type + ".idx";
+    }
+
+    /**
+     * Reads the index resource written by a processor, e.g.
+     * {@code load(getClass().getClassLoader(), getResourceName("app", "eventbus"))}.
+     *
+     * @return the reader, or null if there is no such resource
+     */
+    public static BinaryIndexReader load(ClassLoader classLoader, String resourceName) throws IOException {
+        InputStream in = classLoader.getResourceAsStream(resourceName);
+        if (in == null) {
+            return null;
+        }
+        try {
+            return read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the whole stream, e.g. an asset, into memory; the stream is not closed.
+     */
+    public static BinaryIndexReader read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(in.available(), 1024));
+        byte[] chunk = new byte[8192];
+        int count;
+        while ((count = in.read(chunk)) != -1) {
+            bytes.write(chunk, 0, count);
+        }
+        return new BinaryIndexReader(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * Maps the file read only; the mapping stays valid after the channel is closed.
+     */
+    public static BinaryIndexReader map(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            return new BinaryIndexReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Maps a region of a file read only, e.g. an uncompressed asset: {@code AssetFileDescriptor fd = openFd(name);
+     * map(fd.createInputStream().getChannel(), fd.getStartOffset(), fd.getLength())}. The channel may be closed
+     * afterwards.
+     */
+    public static BinaryIndexReader map(FileChannel channel, long offset, long length) throws IOException {
+        return new BinaryIndexReader(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    public static BinaryIndexReader wrap(ByteBuffer buffer) throws IOException {
+        return new BinaryIndexReader(buffer.duplicate());
+    }
+
+    public byte getKind() {
+        return kind;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return the entry with the given key, or -1
+     */
+    public int findEntry(String key) {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int result = compareKey(mid, keyBytes);
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public String getKey(int entry) {
+        return getString(buffer.getInt(entryOffset(entry)));
+    }
+
+    public int getFieldCount(int entry) {
+        return buffer.getShort(entryOffset(entry) + 4) & 0xffff;
+    }
+
+    public int getField(int entry, int field) {
+        return buffer.getInt(entryOffset(entry) + 6 + 4 * field);
+    }
+
+    public String getStringField(int entry, int field) {
+        return getString(getField(entry, field));
+    }
+
+    public String getString(int index) {
+        String value = decodedStrings[index];
+        if (value == null) {
+            int offset = stringOffset(index);
+            int length = buffer.getShort(offset) & 0xffff;
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(offset + 2 + i);
+            }
+            value = new String(bytes, UTF_8);
+            decodedStrings[index] = value;
+        }
+        return value;
+    }
+
+    private int stringOffset(int index) {
+        return buffer.getInt(HEADER_SIZE + 4 * index);
+    }
+
+    private int entryOffset(int entry) {
+        return buffer.getInt(HEADER_SIZE + 4 * stringCount + 4 * entry);
+    }
+
+    private int compareKey(int entry, byte[] keyBytes) {
+        int offset = stringOffset(buffer.getInt(entryOffset(entry)));
+        int length = buffer.getShort(offset) & 0xffff;
+        int common = Math.min(length, keyBytes.length);
+        for (int i = 0; i < common; i++) {
+            int result = (buffer.get(offset + 2 + i) & 0xff) - (keyBytes[i] & 0xff);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return length - keyBytes.length;
+    }
+
+    /** Key order of the index, shared with the writer. */
+    public static int compareUtf8(byte[] lhs, byte[] rhs) {
+        int common = Math.min(lhs.length, rhs.length);
+        for (int i = 0; i < common; i++) {
+            int result = (lhs[i] & 0xff) - (rhs[i] & 0xff);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return lhs.length - rhs.length;
+    }
+}
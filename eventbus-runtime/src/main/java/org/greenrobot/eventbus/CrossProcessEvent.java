@@ -0,0 +1,28 @@
+package org.greenrobot.eventbus;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an event class that is delivered to other processes. The processor generates a {@code <Event>$$Codec}
+ * writing the fields in declared order (superclass fields first) to a ByteBuffer, without reflection, and a module
+ * wide {@code <Module>$$EventCodecs} that frames events for a
+ * {@link org.greenrobot.eventbus.crossprocess.CrossProcessTransport}.
+ * <p>
+ * The class needs a no-arg constructor. Non static, non transient fields must not be final and may be primitives,
+ * their wrappers, Strings, enums, primitive arrays (not boolean[]) or other @CrossProcessEvent classes; private
+ * fields need a getter and a setter.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface CrossProcessEvent {
+    /**
+     * Type id written in front of every encoded event; 0 for the hash code of the qualified class name. Must be
+     * unique among the cross process events of all modules talking to each other.
+     */
+    int id() default 0;
+}
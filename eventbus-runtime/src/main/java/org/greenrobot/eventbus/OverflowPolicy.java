@@ -0,0 +1,32 @@
+package org.greenrobot.eventbus;
+
+/**
+ * What happens to a post when the bounded delivery queue of a {@link ThreadMode#BACKGROUND} or
+ * {@link ThreadMode#ASYNC} subscriber is full, see {@link Subscribe#queueCapacity()}.
+ */
+public enum OverflowPolicy {
+    /**
+     * The oldest queued event is dropped to make room for the new one. Suits state updates where only recent events
+     * matter.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The new event is dropped, queued events are delivered as usual.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The posting thread waits until the queue has room. Never use this for events posted from the main thread. A
+     * thread that is itself delivering for the executor of the queue cannot wait for it, so there the event is queued
+     * beyond the capacity instead.
+     */
+    BLOCK,
+
+    /**
+     * The new event replaces the newest queued event if that has the same class; otherwise the oldest event is
+     * dropped. Unlike {@link Subscribe#coalesce()}, which keeps a single queued delivery at all times, this only acts
+     * on a full queue and keeps the queued events before the newest one.
+     */
+    COALESCE
+}
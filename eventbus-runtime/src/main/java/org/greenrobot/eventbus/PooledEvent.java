@@ -0,0 +1,32 @@
+package org.greenrobot.eventbus;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a frequently posted event class for pooling. The processor generates a bounded, thread-safe
+ * {@code <Event>$$Pool} with {@code obtain()} and {@code recycle(event)}, and the bus hands the event back to the
+ * pool when post() returns. The event class needs a public no-arg constructor; posters must not keep references to
+ * pooled events after posting them.
+ * <p>
+ * As the event is reused once post() returns, its subscribers must be {@link ThreadMode#POSTING} and not sticky;
+ * the processor rejects others. Recycling an event that is already in its pool throws an IllegalStateException.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface PooledEvent {
+    /**
+     * Maximum number of recycled instances kept by the pool.
+     */
+    int capacity() default 16;
+
+    /**
+     * Name of a public no-arg method of the event that is called before it goes back to the pool, e.g. to clear
+     * references. Empty for none.
+     */
+    String reset() default "";
+}
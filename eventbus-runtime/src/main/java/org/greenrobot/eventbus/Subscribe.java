@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2012-2016 Markus Junginger, greenrobot (http://greenrobot.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.greenrobot.eventbus;
+
+
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+public @interface Subscribe {
+    ThreadMode threadMode() default ThreadMode.POSTING;
+
+    boolean sticky() default false;
+
+    /**
+     * Subscriber priority to influence the order of event delivery.
+     * Within the same delivery thread ({@link ThreadMode}), higher priority subscribers will receive events before
+     * others with a lower priority. The default priority is 0. Note: the priority does *NOT* affect the order of
+     * delivery among subscribers with different {@link ThreadMode}s!
+     */
+    int priority() default 0;
+
+    String tag() default "";
+
+    /**
+     * If true, an event posted while an earlier delivery to this method is still queued replaces the queued event,
+     * so a burst of scroll or progress events is delivered once, with the newest event. Only valid for thread modes
+     * that queue deliveries; the processor rejects it for {@link ThreadMode#POSTING}.
+     */
+    boolean coalesce() default false;
+
+    /**
+     * Name of a public method of the subscriber class, {@code E merge(E queued, E newer)}, that combines the queued
+     * event with a newly posted one instead of dropping it, e.g. to add up scroll distances. Implies
+     * {@link #coalesce()}.
+     */
+    String merge() default "";
+
+    /**
+     * Maximum number of deliveries queued for this method, 0 for an unbounded queue (the default). Only valid for
+     * {@link ThreadMode#BACKGROUND} and {@link ThreadMode#ASYNC}; {@link #overflowPolicy()} decides what a post does
+     * when the queue is full.
+     */
+    int queueCapacity() default 0;
+
+    OverflowPolicy overflowPolicy() default OverflowPolicy.DROP_OLDEST;
+
+    /**
+     * Name of the bounded pool an {@link ThreadMode#ASYNC} subscriber runs on, e.g. "io" or "cpu". Subscribers naming
+     * the same executor share its pool, across modules too; pool and queue sizes come from the eventBusExecutors
+     * processor option (e.g. "io:4,cpu:2:256:DROP_OLDEST") or from
+     * {@link org.greenrobot.eventbus.executor.NamedExecutors#configure}. Empty (the default) uses the bus' shared
+     * executor.
+     */
+    String executor() default "";
+
+    /**
+     * For {@link ThreadMode#BACKGROUND} subscribers: deliver on one of several background lanes instead of the single
+     * background thread. Deliveries with the same key run on the same lane and therefore keep their order; by
+     * default the key is the subscriber instance.
+     */
+    boolean striped() default false;
+
+    /**
+     * Name of a public no-arg method of the event (e.g. "getUserId") returning the ordering key of a striped
+     * subscriber, so events of different keys can be delivered in parallel. Implies {@link #striped()}.
+     */
+    String stripeKey() default "";
+
+    /**
+     * For {@link #sticky()} subscribers: the last sticky event of the type is also kept in a memory mapped file, so
+     * it survives process death and is delivered again after a restart. The event class must be a
+     * {@link CrossProcessEvent}, whose generated codec writes it.
+     */
+    boolean persist() default false;
+
+    /**
+     * For {@link #sticky()} subscribers: sticky events of the type older than this many milliseconds are dropped
+     * instead of being delivered or returned. If several subscribers of a type set it, the smallest age applies; 0
+     * (the default) keeps sticky events until they are replaced or removed.
+     */
+    long stickyMaxAgeMillis() default 0;
+
+    /**
+     * For {@link #sticky()} subscribers: estimated memory retained by one sticky event of the type, in bytes, counted
+     * against the sticky memory budget (the eventBusStickyMaxBytes processor option). When the budget is exceeded
+     * the least recently used sticky types are evicted. 0 (the default) counts the encoded size of {@link #persist()}
+     * events and nothing for other events.
+     */
+    long stickySizeBytes() default 0;
+
+}
+
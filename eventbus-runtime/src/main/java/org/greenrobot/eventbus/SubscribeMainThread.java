@@ -46,5 +46,18 @@ public @interface SubscribeMainThread {
 
     boolean ignoredSubscriberTag() default false;
 
+    /**
+     * If true, an event posted while an earlier one still waits for the main thread replaces the waiting event, so a
+     * burst of scroll or progress events costs a single main thread delivery. Events posted on the main thread are
+     * delivered right away and never coalesced.
+     */
+    boolean coalesce() default false;
+
+    /**
+     * Name of a public method of the subscriber class, {@code E merge(E waiting, E newer)}, that combines the event
+     * waiting for the main thread with a newly posted one instead of dropping it. Implies {@link #coalesce()}.
+     */
+    String merge() default "";
+
 }
 
@@ -16,4 +16,12 @@ public @interface SubscribeRunOnlyTop {
     ThreadMode threadMode() default ThreadMode.MAIN;
 
     String tag() default "";
+
+    /** See {@link Subscribe#queueCapacity()}. */
+    int queueCapacity() default 0;
+
+    OverflowPolicy overflowPolicy() default OverflowPolicy.DROP_OLDEST;
+
+    /** See {@link Subscribe#executor()}. */
+    String executor() default "";
 }
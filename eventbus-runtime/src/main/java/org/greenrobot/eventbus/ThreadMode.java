@@ -52,5 +52,13 @@ public enum ThreadMode {
      * of long running asynchronous handler methods at the same time to limit the number of concurrent threads. EventBus
      * uses a thread pool to efficiently reuse threads from completed asynchronous event handler notifications.
      */
-    ASYNC
+    ASYNC,
+
+    /**
+     * Event handler methods are called in a new virtual thread per delivery (JVM 21+). Like {@link #ASYNC} posting
+     * never waits, but blocking handler methods (e.g. database or file I/O) do not tie up a platform thread, so tens of
+     * thousands of deliveries can run concurrently without sizing a pool. Where virtual threads are not available
+     * (e.g. on Android) the delivery falls back to {@link #ASYNC}.
+     */
+    VIRTUAL
 }
\ No newline at end of file
@@ -0,0 +1,319 @@
+package org.greenrobot.eventbus.crossprocess;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Encoding of the reference types used by generated codecs. Strings are an int length in UTF-8 bytes followed by
+ * the bytes, arrays an int element count followed by the elements; -1 stands for null. Encoding allocates nothing.
+ * <p>
+ * Decoding checks every length against the rest of the buffer before allocating, so a corrupt frame throws
+ * {@link CorruptFrameException} instead of allocating a huge array or reading past its end.
+ */
+public final class CodecBuffers {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private CodecBuffers() {
+    }
+
+    public static int sizeOf(String value) {
+        if (value == null) {
+            return 4;
+        }
+        int size = 4;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                size++;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    size += 4;
+                    i++;
+                } else {
+                    // Unpaired surrogates become '?', as in String.getBytes()
+                    size++;
+                }
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+
+    public static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer.put((byte) (0xf0 | (codePoint >> 18)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                    buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+                } else {
+                    buffer.put((byte) '?');
+                }
+            } else {
+                buffer.put((byte) (0xe0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+    }
+
+    public static String getString(ByteBuffer buffer) {
+        int length = getLength(buffer, 1);
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, UTF_8);
+        }
+        return value;
+    }
+
+    public static int sizeOf(byte[] array) {
+        return array == null ? 4 : 4 + array.length;
+    }
+
+    public static void putArray(ByteBuffer buffer, byte[] array) {
+        if (array == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(array.length);
+            buffer.put(array);
+        }
+    }
+
+    public static byte[] getByteArray(ByteBuffer buffer) {
+        int length = getLength(buffer, 1);
+        if (length < 0) {
+            return null;
+        }
+        byte[] array = new byte[length];
+        buffer.get(array);
+        return array;
+    }
+
+    public static int sizeOf(short[] array) {
+        return array == null ? 4 : 4 + 2 * array.length;
+    }
+
+    public static void putArray(ByteBuffer buffer, short[] array) {
+        if (array == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(array.length);
+        for (int i = 0; i < array.length; i++) {
+            buffer.putShort(array[i]);
+        }
+    }
+
+    public static short[] getShortArray(ByteBuffer buffer) {
+        int length = getLength(buffer, 2);
+        if (length < 0) {
+            return null;
+        }
+        short[] array = new short[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = buffer.getShort();
+        }
+        return array;
+    }
+
+    public static int sizeOf(char[] array) {
+        return array == null ? 4 : 4 + 2 * array.length;
+    }
+
+    public static void putArray(ByteBuffer buffer, char[] array) {
+        if (array == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(array.length);
+        for (int i = 0; i < array.length; i++) {
+            buffer.putChar(array[i]);
+        }
+    }
+
+    public static char[] getCharArray(ByteBuffer buffer) {
+        int length = getLength(buffer, 2);
+        if (length < 0) {
+            return null;
+        }
+        char[] array = new char[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = buffer.getChar();
+        }
+        return array;
+    }
+
+    public static int sizeOf(int[] array) {
+        return array == null ? 4 : 4 + 4 * array.length;
+    }
+
+    public static void putArray(ByteBuffer buffer, int[] array) {
+        if (array == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(array.length);
+        for (int i = 0; i < array.length; i++) {
+            buffer.putInt(array[i]);
+        }
+    }
+
+    public static int[] getIntArray(ByteBuffer buffer) {
+        int length = getLength(buffer, 4);
+        if (length < 0) {
+            return null;
+        }
+        int[] array = new int[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = buffer.getInt();
+        }
+        return array;
+    }
+
+    public static int sizeOf(long[] array) {
+        return array == null ? 4 : 4 + 8 * array.length;
+    }
+
+    public static void putArray(ByteBuffer buffer, long[] array) {
+        if (array == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(array.length);
+        for (int i = 0; i < array.length; i++) {
+            buffer.putLong(array[i]);
+        }
+    }
+
+    public static long[] getLongArray(ByteBuffer buffer) {
+        int length = getLength(buffer, 8);
+        if (length < 0) {
+            return null;
+        }
+        long[] array = new long[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = buffer.getLong();
+        }
+        return array;
+    }
+
+    public static int sizeOf(float[] array) {
+        return array == null ? 4 : 4 + 4 * array.length;
+    }
+
+    public static void putArray(ByteBuffer buffer, float[] array) {
+        if (array == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(array.length);
+        for (int i = 0; i < array.length; i++) {
+            buffer.putFloat(array[i]);
+        }
+    }
+
+    public static float[] getFloatArray(ByteBuffer buffer) {
+        int length = getLength(buffer, 4);
+        if (length < 0) {
+            return null;
+        }
+        float[] array = new float[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = buffer.getFloat();
+        }
+        return array;
+    }
+
+    public static int sizeOf(double[] array) {
+        return array == null ? 4 : 4 + 8 * array.length;
+    }
+
+    public static void putArray(ByteBuffer buffer, double[] array) {
+        if (array == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(array.length);
+        for (int i = 0; i < array.length; i++) {
+            buffer.putDouble(array[i]);
+        }
+    }
+
+    public static double[] getDoubleArray(ByteBuffer buffer) {
+        int length = getLength(buffer, 8);
+        if (length < 0) {
+            return null;
+        }
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = buffer.getDouble();
+        }
+        return array;
+    }
+
+    /**
+     * @return the ordinal read from the buffer as constant of the enum, or null for -1
+     * @throws CorruptFrameException if the ordinal is out of range, e.g. written by a version with more constants
+     */
+    public static <E extends Enum<E>> E getEnum(ByteBuffer buffer, E[] values) {
+        int ordinal = getInt(buffer);
+        if (ordinal == -1) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new CorruptFrameException("Ordinal " + ordinal + " out of range for "
+                    + values.getClass().getComponentType().getName() + " with " + values.length + " constants");
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * Reads the length of a string or array.
+     *
+     * @return the length, or -1 for null
+     * @throws CorruptFrameException if the length is below -1 or its elements do not fit in the rest of the buffer
+     */
+    private static int getLength(ByteBuffer buffer, int elementSize) {
+        int length = getInt(buffer);
+        if (length < -1 || (long) length * elementSize > buffer.remaining()) {
+            throw new CorruptFrameException("Length " + length + " invalid with " + buffer.remaining()
+                    + " bytes left in the frame");
+        }
+        return length;
+    }
+
+    private static int getInt(ByteBuffer buffer) {
+        if (buffer.remaining() < 4) {
+            throw new CorruptFrameException("Frame ends early at " + buffer.position());
+        }
+        return buffer.getInt();
+    }
+}
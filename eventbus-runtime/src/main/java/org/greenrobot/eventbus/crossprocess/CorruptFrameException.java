@@ -0,0 +1,18 @@
+package org.greenrobot.eventbus.crossprocess;
+
+/**
+ * Thrown when decoding a frame that no codec wrote: cut short, or holding a length or enum ordinal out of range,
+ * e.g. after a torn write or from an app version with a different event class.
+ */
+public class CorruptFrameException extends RuntimeException {
+
+    private static final long serialVersionUID = -2265012436524931218L;
+
+    public CorruptFrameException(String detailMessage) {
+        super(detailMessage);
+    }
+
+    public CorruptFrameException(String detailMessage, Throwable throwable) {
+        super(detailMessage, throwable);
+    }
+}
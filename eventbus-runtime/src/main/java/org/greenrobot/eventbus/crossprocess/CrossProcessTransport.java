@@ -0,0 +1,18 @@
+package org.greenrobot.eventbus.crossprocess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Process boundary hook, e.g. over a Binder, a LocalSocket or shared memory. {@code <Module>$$EventCodecs.send()}
+ * writes a frame (type id, then the encoded event) into a buffer obtained here and hands it back; the receiving
+ * process passes each frame to {@code <Module>$$EventCodecs.receive()} and posts the result to its own bus.
+ */
+public interface CrossProcessTransport {
+    /**
+     * @return a buffer with at least size bytes remaining, e.g. a reused direct buffer
+     */
+    ByteBuffer obtainBuffer(int size);
+
+    /** Sends the frame between position and limit. */
+    void send(ByteBuffer frame);
+}
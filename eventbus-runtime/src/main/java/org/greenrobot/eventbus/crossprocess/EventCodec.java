@@ -0,0 +1,25 @@
+package org.greenrobot.eventbus.crossprocess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary codec of one {@link org.greenrobot.eventbus.CrossProcessEvent} class, generated as
+ * {@code <Event>$$Codec.INSTANCE}. Values are written in the byte order of the buffer.
+ */
+public interface EventCodec<T> {
+    int getTypeId();
+
+    Class<T> getEventType();
+
+    /** @return the number of bytes {@link #encode(Object, ByteBuffer)} writes for the event */
+    int sizeOf(T event);
+
+    void encode(T event, ByteBuffer buffer);
+
+    /**
+     * Reads an event written by {@link #encode(Object, ByteBuffer)}, up to the buffer's limit at most.
+     *
+     * @throws CorruptFrameException if the bytes were not written by this codec, e.g. cut short by a torn write
+     */
+    T decode(ByteBuffer buffer);
+}
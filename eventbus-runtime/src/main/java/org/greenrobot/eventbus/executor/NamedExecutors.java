@@ -0,0 +1,201 @@
+package org.greenrobot.eventbus.executor;
+
+import org.greenrobot.eventbus.OverflowPolicy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The pools of the executors named with {@code @Subscribe(executor = "io")}, one per name for the whole process: the
+ * generated $$Executors registry of every module hands out the pool of this class, so modules naming the same
+ * executor share it. A pool is created on first use with its configuration from {@link #configure}, or else with
+ * the one of the module using it first.
+ * <p>
+ * Each pool has a bounded work queue; when it is full, the {@link OverflowPolicy} of the pool decides about the new
+ * task. BLOCK waits for room, except in a thread of the same pool, which runs the task itself instead, as only the
+ * pool's threads would make room. COALESCE works on events, not on tasks, and is not valid here.
+ * <p>
+ * A shutdown hook registered with the first pool lets the pools finish their queued tasks for up to
+ * {@link #SHUTDOWN_TIMEOUT_MILLIS} when the JVM exits; the pool threads are daemon threads and do not keep it alive.
+ */
+public final class NamedExecutors {
+    /** Work queue capacity of a pool nobody configured one for. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    /** How long the shutdown hook waits for the pools to finish their queued tasks. */
+    public static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private static final Map<String, Config> CONFIGS = new HashMap<>();
+    private static final Map<String, ThreadPoolExecutor> EXECUTORS = new HashMap<>();
+    private static boolean shutdownHookAdded;
+
+    private NamedExecutors() {
+    }
+
+    /**
+     * Sets the configuration of the named pool, overriding the one of the generated registries; only possible before
+     * its first use.
+     *
+     * @param queueCapacity capacity of the work queue, 0 for {@link #DEFAULT_QUEUE_CAPACITY}
+     */
+    public static synchronized void configure(String name, int poolSize, int queueCapacity, OverflowPolicy overflowPolicy) {
+        Config config = new Config(poolSize, queueCapacity, overflowPolicy);
+        if (EXECUTORS.containsKey(name)) {
+            throw new IllegalStateException("Executor " + name + " is already in use");
+        }
+        CONFIGS.put(name, config);
+    }
+
+    /** @return the named pool, created with the default configuration if neither it nor a module configured it */
+    public static ExecutorService getExecutor(String name) {
+        return getExecutor(name, Runtime.getRuntime().availableProcessors(), 0, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * @return the named pool; if it does not exist yet, it is created with the configuration given to
+     * {@link #configure}, else with the given one
+     */
+    public static synchronized ExecutorService getExecutor(String name, int poolSize, int queueCapacity,
+                                                           OverflowPolicy overflowPolicy) {
+        ThreadPoolExecutor executor = EXECUTORS.get(name);
+        if (executor == null) {
+            Config config = CONFIGS.get(name);
+            if (config == null) {
+                config = new Config(poolSize, queueCapacity, overflowPolicy);
+            }
+            PoolThreadFactory threadFactory = new PoolThreadFactory(name);
+            executor = new ThreadPoolExecutor(config.poolSize, config.poolSize, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(config.queueCapacity), threadFactory,
+                    new OverflowHandler(config.overflowPolicy));
+            threadFactory.executor = executor;
+            executor.allowCoreThreadTimeOut(true);
+            EXECUTORS.put(name, executor);
+            addShutdownHook();
+        }
+        return executor;
+    }
+
+    /**
+     * Stops accepting tasks and waits up to the given time for the queued ones; the shutdown hook does the same.
+     * Pools requested afterwards are created anew.
+     */
+    public static void shutdown(long timeoutMillis) throws InterruptedException {
+        ThreadPoolExecutor[] executors;
+        synchronized (NamedExecutors.class) {
+            executors = EXECUTORS.values().toArray(new ThreadPoolExecutor[0]);
+            EXECUTORS.clear();
+        }
+        for (ThreadPoolExecutor executor : executors) {
+            executor.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (ThreadPoolExecutor executor : executors) {
+            executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void addShutdownHook() {
+        if (shutdownHookAdded) {
+            return;
+        }
+        shutdownHookAdded = true;
+        Runtime.getRuntime().addShutdownHook(new Thread("EventBus-executors-shutdown") {
+            @Override
+            public void run() {
+                try {
+                    shutdown(SHUTDOWN_TIMEOUT_MILLIS);
+                } catch (InterruptedException e) {
+                    // Exiting anyway
+                }
+            }
+        });
+    }
+
+    private static final class Config {
+        final int poolSize;
+        final int queueCapacity;
+        final OverflowPolicy overflowPolicy;
+
+        Config(int poolSize, int queueCapacity, OverflowPolicy overflowPolicy) {
+            if (poolSize <= 0) {
+                throw new IllegalArgumentException("Pool size must be positive: " + poolSize);
+            }
+            if (queueCapacity < 0) {
+                throw new IllegalArgumentException("Queue capacity must not be negative: " + queueCapacity);
+            }
+            if (overflowPolicy == OverflowPolicy.COALESCE) {
+                throw new IllegalArgumentException("COALESCE needs events to compare, executors only queue tasks");
+            }
+            this.poolSize = poolSize;
+            this.queueCapacity = queueCapacity > 0 ? queueCapacity : DEFAULT_QUEUE_CAPACITY;
+            this.overflowPolicy = overflowPolicy;
+        }
+    }
+
+    private static final class OverflowHandler implements RejectedExecutionHandler {
+        private final OverflowPolicy overflowPolicy;
+
+        OverflowHandler(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                return;
+            }
+            switch (overflowPolicy) {
+                case BLOCK:
+                    Thread thread = Thread.currentThread();
+                    if (thread instanceof PoolThread && ((PoolThread) thread).executor == executor) {
+                        task.run();
+                        return;
+                    }
+                    try {
+                        executor.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return;
+                case DROP_NEWEST:
+                    return;
+                default:
+                    executor.getQueue().poll();
+                    executor.execute(task);
+            }
+        }
+    }
+
+    private static final class PoolThread extends Thread {
+        final ThreadPoolExecutor executor;
+
+        PoolThread(Runnable runnable, String name, ThreadPoolExecutor executor) {
+            super(runnable, name);
+            this.executor = executor;
+        }
+    }
+
+    private static final class PoolThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+        /** The pool of the threads, set before the pool is handed out. */
+        volatile ThreadPoolExecutor executor;
+
+        PoolThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            PoolThread thread = new PoolThread(runnable, "EventBus-" + name + "-" + count.incrementAndGet(), executor);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package org.greenrobot.eventbus.sticky;
+
+import org.greenrobot.eventbus.crossprocess.EventCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Last sticky event per type in a memory mapped file, written with the generated codecs of
+ * {@link org.greenrobot.eventbus.CrossProcessEvent} classes. Writes go to the mapping and reach the page cache
+ * right away, so they survive the death of the process (not of the device, see {@link #sync()}).
+ * <p>
+ * Nothing is done before the first access: then the file is mapped and only the record headers are scanned.
+ * Events are decoded straight from the mapping when asked for, without copying the record first.
+ * <p>
+ * Layout (big endian): magic, version, generation, then appended records (record size, type id, payload length or -1
+ * for a removed type, post time in epoch milliseconds, payload). The record size is written last, so a record cut short by process death ends the
+ * scan; loading zeroes everything behind the last complete record, so the rest of a torn record cannot be read as a
+ * record once shorter ones are appended over it.
+ * <p>
+ * When the file is full the live records are compacted into a second file next to it ({@code <file>.alt}), whose
+ * header with the next generation is written last; the file with the higher valid generation is the current one.
+ * Nothing is renamed, deleted or truncated, as none of that works on Windows while a file is still mapped, and a
+ * mapping is only released when its buffer is collected. The files therefore never shrink.
+ */
+public final class PersistentStickyStore {
+    private static final int MAGIC = 0x5A535459; // "ZSTY"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 20;
+    private static final int MIN_CAPACITY = 64 * 1024;
+
+    /** The file passed in and the one compaction alternates with. */
+    private final File[] files;
+    /** Index of the current file in files. */
+    private int current;
+    private int generation;
+    private MappedByteBuffer buffer;
+    /** Type id to the offset of its latest record; null until loaded. */
+    private Map<Integer, Integer> recordOffsets;
+    private int end;
+    private int liveBytes;
+
+    public PersistentStickyStore(File file) {
+        files = new File[]{file, new File(file.getPath() + ".alt")};
+    }
+    /**
+     * @return the stored event of the codec's type, or null
+     */
+    public synchronized <T> T get(EventCodec<T> codec) throws IOException {
+        load();
+        Integer offset = recordOffsets.get(codec.getTypeId());
+        if (offset == null) {
+            return null;
+        }
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(offset + RECORD_HEADER_SIZE);
+        payload.limit(offset + RECORD_HEADER_SIZE + buffer.getInt(offset + 8));
+        return codec.decode(payload);
+    }
+
+    /**
+     * @return the post time passed to {@link #put(EventCodec, Object, long)} for the stored event of the type, or -1
+     */
+    public synchronized long getPostTimeMillis(int typeId) throws IOException {
+        load();
+        Integer offset = recordOffsets.get(typeId);
+        return offset != null ? buffer.getLong(offset + 12) : -1;
+    }
+
+    public synchronized boolean contains(int typeId) throws IOException {
+        load();
+        return recordOffsets.containsKey(typeId);
+    }
+
+    /**
+     * Replaces the stored event of the codec's type. If the codec throws, the stored event is kept and the bytes it
+     * wrote are zeroed again.
+     *
+     * @param postTimeMillis wall clock time of the post, so the age of the event is known after a restart
+     */
+    public synchronized <T> void put(EventCodec<T> codec, T event, long postTimeMillis) throws IOException {
+        load();
+        int payloadLength = codec.sizeOf(event);
+        int offset = reserve(RECORD_HEADER_SIZE + payloadLength);
+        boolean committed = false;
+        try {
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(offset + RECORD_HEADER_SIZE);
+            payload.limit(offset + RECORD_HEADER_SIZE + payloadLength);
+            codec.encode(event, payload);
+            commit(offset, codec.getTypeId(), payloadLength, postTimeMillis);
+            committed = true;
+        } finally {
+            if (!committed) {
+                // Keeps everything behind end zero, see zeroTail()
+                zero(offset, offset + RECORD_HEADER_SIZE + payloadLength);
+            }
+        }
+    }
+
+    public synchronized void remove(int typeId) throws IOException {
+        load();
+        if (recordOffsets.containsKey(typeId)) {
+            commit(reserve(RECORD_HEADER_SIZE), typeId, -1, 0);
+        }
+    }
+
+    public synchronized void clear() throws IOException {
+        load();
+        recordOffsets.clear();
+        liveBytes = 0;
+        compact(0);
+    }
+
+    /** Forces the mapping to the storage device, for events that must also survive a power loss. */
+    public synchronized void sync() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    private void load() throws IOException {
+        if (recordOffsets != null) {
+            return;
+        }
+        recordOffsets = new HashMap<>();
+        current = -1;
+        for (int i = 0; i < files.length; i++) {
+            int fileGeneration = readGeneration(files[i]);
+            if (fileGeneration >= 0 && (current == -1 || fileGeneration > generation)) {
+                current = i;
+                generation = fileGeneration;
+            }
+        }
+        if (current == -1) {
+            // New, foreign or older files: start over in the first file
+            current = 1;
+            generation = 0;
+            compact(0);
+            return;
+        }
+        buffer = map(files[current]);
+        int capacity = buffer.capacity();
+        int position = HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= capacity) {
+            int recordSize = buffer.getInt(position);
+            if (recordSize < RECORD_HEADER_SIZE || recordSize > capacity - position) {
+                break;
+            }
+            int typeId = buffer.getInt(position + 4);
+            int payloadLength = buffer.getInt(position + 8);
+            if (recordSize != RECORD_HEADER_SIZE + Math.max(payloadLength, 0) || payloadLength < -1) {
+                break;
+            }
+            if (payloadLength >= 0) {
+                recordOffsets.put(typeId, position);
+            } else {
+                recordOffsets.remove(typeId);
+            }
+            position += recordSize;
+        }
+        end = position;
+        for (int offset : recordOffsets.values()) {
+            liveBytes += buffer.getInt(offset);
+        }
+        zeroTail();
+    }
+
+    /** Zeroes the buffer from end on, writing only pages that are not zero already. */
+    private void zeroTail() {
+        zero(end, buffer.capacity());
+    }
+
+    /** Zeroes the buffer in [from, to), writing only pages that are not zero already. */
+    private void zero(int from, int to) {
+        int position = from;
+        for (; position < to && (position & 7) != 0; position++) {
+            buffer.put(position, (byte) 0);
+        }
+        for (; position + 8 <= to; position += 8) {
+            if (buffer.getLong(position) != 0) {
+                buffer.putLong(position, 0);
+            }
+        }
+        for (; position < to; position++) {
+            buffer.put(position, (byte) 0);
+        }
+    }
+
+    /**
+     * @return the offset of a free record of the given size, compacting the file first if needed
+     */
+    private int reserve(int recordSize) throws IOException {
+        if (recordSize > buffer.capacity() - end) {
+            compact(recordSize);
+        }
+        return end;
+    }
+
+    private void commit(int offset, int typeId, int payloadLength, long postTimeMillis) {
+        int recordSize = RECORD_HEADER_SIZE + Math.max(payloadLength, 0);
+        buffer.putInt(offset + 4, typeId);
+        buffer.putInt(offset + 8, payloadLength);
+        buffer.putLong(offset + 12, postTimeMillis);
+        buffer.putInt(offset, recordSize);
+        Integer previous = payloadLength >= 0 ? recordOffsets.put(typeId, offset) : recordOffsets.remove(typeId);
+        if (previous != null) {
+            liveBytes -= buffer.getInt(previous);
+        }
+        if (payloadLength >= 0) {
+            liveBytes += recordSize;
+        }
+        end = offset + recordSize;
+    }
+
+    /**
+     * Writes the live records to the other file, with room for at least another record of the given size, and makes
+     * it the current one.
+     */
+    private void compact(int reserve) throws IOException {
+        long needed = HEADER_SIZE + 2L * (liveBytes + reserve);
+        if (needed > Integer.MAX_VALUE) {
+            throw new IOException("Persistent sticky events exceed " + Integer.MAX_VALUE + " bytes");
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed) {
+            capacity = capacity > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : capacity * 2;
+        }
+        // Header left zero, i.e. invalid, until the records are written
+        ByteBuffer image = ByteBuffer.allocate(HEADER_SIZE + liveBytes);
+        image.position(HEADER_SIZE);
+        Map<Integer, Integer> compactOffsets = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : recordOffsets.entrySet()) {
+            int offset = entry.getValue();
+            ByteBuffer record = buffer.duplicate();
+            record.position(offset);
+            record.limit(offset + buffer.getInt(offset));
+            compactOffsets.put(entry.getKey(), image.position());
+            image.put(record);
+        }
+        int compactEnd = image.position();
+        image.flip();
+
+        int target = 1 - current;
+        MappedByteBuffer targetBuffer;
+        RandomAccessFile randomAccessFile = new RandomAccessFile(files[target], "rw");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = Math.min(channel.size(), Integer.MAX_VALUE);
+            write(channel, image, 0);
+            // Stale records of an earlier generation must not follow the compacted ones
+            ByteBuffer zeros = ByteBuffer.allocate(8192);
+            for (long position = compactEnd; position < size; position += zeros.capacity()) {
+                zeros.clear();
+                zeros.limit((int) Math.min(zeros.capacity(), size - position));
+                write(channel, zeros, position);
+            }
+            if (size < capacity) {
+                // Grows the file by writing, setLength fails on Windows while an old buffer still maps the file
+                write(channel, ByteBuffer.allocate(1), capacity - 1);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(generation + 1).flip();
+            write(channel, header, 0);
+            targetBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+        } finally {
+            randomAccessFile.close();
+        }
+        buffer = targetBuffer;
+        current = target;
+        generation++;
+        recordOffsets = compactOffsets;
+        end = compactEnd;
+    }
+
+    /**
+     * @return the generation of a valid store file, or -1
+     */
+    private static int readGeneration(File file) throws IOException {
+        if (file.length() < HEADER_SIZE) {
+            return -1;
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            if (randomAccessFile.readInt() != MAGIC || randomAccessFile.readInt() != VERSION) {
+                return -1;
+            }
+            return randomAccessFile.readInt();
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer source, long position) throws IOException {
+        while (source.hasRemaining()) {
+            position += channel.write(source, position);
+        }
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+}
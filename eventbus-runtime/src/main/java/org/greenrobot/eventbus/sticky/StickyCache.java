@@ -0,0 +1,270 @@
+package org.greenrobot.eventbus.sticky;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sticky events by type with an optional maximum age per type and a memory budget shared by all types. Expired
+ * events are dropped when next touched; when the sizes of the retained events add up to more than the budget, the
+ * least recently used types are evicted. Posting and reading a sticky event both count as a use. An event larger
+ * than the whole budget is still kept, as the only one.
+ * <p>
+ * Sizes are whatever the caller passes: the one of a {@link Sizer} given by the app, else usually the size declared
+ * with {@code @Subscribe(stickySizeBytes)} or the encoded size of a persisted event; events of size 0 are not
+ * counted.
+ * <p>
+ * A {@link DropListener} is told about expired and evicted events after the cache's lock is released, so it may take
+ * other locks, e.g. to remove a persisted copy of the event.
+ */
+public final class StickyCache {
+    /** Told about events the cache dropped on its own, expired or evicted; not about removed or replaced ones. */
+    public interface DropListener {
+        void onDropped(Class<?> eventType);
+    }
+
+    /** Measures sticky events at runtime, e.g. a bitmap by its allocation size or a list by its length. */
+    public interface Sizer {
+        /**
+         * @return the retained size of the event in bytes, or 0 if unknown, leaving it to the declared
+         * {@code stickySizeBytes} of its type
+         */
+        long sizeOf(Object event);
+    }
+
+    private final LinkedHashMap<Class<?>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxBytes;
+    private final DropListener dropListener;
+    private long retainedBytes;
+    private long evictionCount;
+    private long expirationCount;
+    /** Types dropped under the lock, handed to the listener after it; null if none. */
+    private List<Class<?>> droppedTypes;
+
+    /**
+     * @param maxBytes budget of all retained events, 0 for no limit
+     */
+    public StickyCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    /**
+     * @param maxBytes budget of all retained events, 0 for no limit
+     * @param dropListener told about expired and evicted events, may be null
+     */
+    public StickyCache(long maxBytes, DropListener dropListener) {
+        this.maxBytes = maxBytes;
+        this.dropListener = dropListener;
+    }
+
+    /**
+     * @param maxAgeMillis time after which the event is dropped, 0 for never
+     * @return the previous event of the type, null if there was none or it had expired
+     */
+    public Object put(Class<?> eventType, Object event, long sizeBytes, long maxAgeMillis) {
+        Object previousEvent;
+        List<Class<?>> dropped;
+        synchronized (this) {
+            previousEvent = putLocked(eventType, event, sizeBytes, maxAgeMillis);
+            dropped = takeDropped();
+        }
+        notifyDropped(dropped);
+        return previousEvent;
+    }
+
+    /**
+     * Like {@link #put(Class, Object, long, long)}, unless the type already has an event.
+     *
+     * @return the retained event of the type
+     */
+    public Object putIfAbsent(Class<?> eventType, Object event, long sizeBytes, long maxAgeMillis) {
+        Object current;
+        List<Class<?>> dropped;
+        synchronized (this) {
+            current = getLocked(eventType);
+            if (current == null) {
+                putLocked(eventType, event, sizeBytes, maxAgeMillis);
+                current = event;
+            }
+            dropped = takeDropped();
+        }
+        notifyDropped(dropped);
+        return current;
+    }
+
+    /**
+     * @return the event of the type, null if there is none or it has expired
+     */
+    public Object get(Class<?> eventType) {
+        Object event;
+        List<Class<?>> dropped;
+        synchronized (this) {
+            event = getLocked(eventType);
+            dropped = takeDropped();
+        }
+        notifyDropped(dropped);
+        return event;
+    }
+
+    /**
+     * @return true if the type has an event, even an expired one not dropped yet; unlike {@link #get(Class)}, this
+     * does not count as a use
+     */
+    public synchronized boolean contains(Class<?> eventType) {
+        // containsKey leaves the access order alone
+        return entries.containsKey(eventType);
+    }
+
+    public synchronized Object remove(Class<?> eventType) {
+        Entry entry = entries.remove(eventType);
+        if (entry == null) {
+            return null;
+        }
+        retainedBytes -= entry.sizeBytes;
+        return entry.isExpired(System.nanoTime()) ? null : entry.event;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        retainedBytes = 0;
+    }
+
+    /**
+     * @return the types and events not expired, without counting as a use; expired ones are dropped
+     */
+    public List<Map.Entry<Class<?>, Object>> snapshot() {
+        List<Map.Entry<Class<?>, Object>> snapshot;
+        List<Class<?>> dropped;
+        synchronized (this) {
+            purgeExpired();
+            snapshot = new ArrayList<>(entries.size());
+            for (Map.Entry<Class<?>, Entry> entry : entries.entrySet()) {
+                snapshot.add(new AbstractMap.SimpleImmutableEntry<Class<?>, Object>(entry.getKey(), entry.getValue().event));
+            }
+            dropped = takeDropped();
+        }
+        notifyDropped(dropped);
+        return snapshot;
+    }
+
+    /** @return the summed sizes of the retained events */
+    public synchronized long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /** @return the number of events evicted to stay within the budget */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /** @return the number of events dropped because they were older than their maximum age */
+    public synchronized long getExpirationCount() {
+        return expirationCount;
+    }
+
+    private Object putLocked(Class<?> eventType, Object event, long sizeBytes, long maxAgeMillis) {
+        Entry previous = entries.put(eventType, new Entry(event, sizeBytes, maxAgeMillis));
+        retainedBytes += sizeBytes;
+        Object previousEvent = null;
+        if (previous != null) {
+            retainedBytes -= previous.sizeBytes;
+            if (!previous.isExpired(System.nanoTime())) {
+                previousEvent = previous.event;
+            }
+        }
+        trim(eventType);
+        return previousEvent;
+    }
+
+    private Object getLocked(Class<?> eventType) {
+        Entry entry = entries.get(eventType);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(eventType);
+            retainedBytes -= entry.sizeBytes;
+            expirationCount++;
+            addDropped(eventType);
+            return null;
+        }
+        return entry.event;
+    }
+
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<Class<?>, Entry>> iterator = entries.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Class<?>, Entry> entry = iterator.next();
+            if (entry.getValue().isExpired(now)) {
+                iterator.remove();
+                retainedBytes -= entry.getValue().sizeBytes;
+                expirationCount++;
+                addDropped(entry.getKey());
+            }
+        }
+    }
+
+    /** Evicts the least recently used types, never the given one, until the budget is met. */
+    private void trim(Class<?> keep) {
+        if (maxBytes <= 0 || retainedBytes <= maxBytes) {
+            return;
+        }
+        purgeExpired();
+        for (Iterator<Map.Entry<Class<?>, Entry>> iterator = entries.entrySet().iterator();
+             iterator.hasNext() && retainedBytes > maxBytes; ) {
+            Map.Entry<Class<?>, Entry> entry = iterator.next();
+            if (entry.getKey() != keep && entry.getValue().sizeBytes > 0) {
+                iterator.remove();
+                retainedBytes -= entry.getValue().sizeBytes;
+                evictionCount++;
+                addDropped(entry.getKey());
+            }
+        }
+    }
+
+    private void addDropped(Class<?> eventType) {
+        if (dropListener != null) {
+            if (droppedTypes == null) {
+                droppedTypes = new ArrayList<>(2);
+            }
+            droppedTypes.add(eventType);
+        }
+    }
+
+    private List<Class<?>> takeDropped() {
+        List<Class<?>> dropped = droppedTypes;
+        droppedTypes = null;
+        return dropped;
+    }
+
+    /** Called without the lock held. */
+    private void notifyDropped(List<Class<?>> dropped) {
+        if (dropped != null) {
+            for (Class<?> eventType : dropped) {
+                dropListener.onDropped(eventType);
+            }
+        }
+    }
+
+    private static final class Entry {
+        final Object event;
+        final long sizeBytes;
+        /** System.nanoTime() deadline; only meaningful if expires. */
+        final long deadline;
+        final boolean expires;
+
+        Entry(Object event, long sizeBytes, long maxAgeMillis) {
+            this.event = event;
+            this.sizeBytes = sizeBytes;
+            this.expires = maxAgeMillis > 0;
+            this.deadline = expires ? System.nanoTime() + maxAgeMillis * 1000000L : 0;
+        }
+
+        boolean isExpired(long now) {
+            return expires && now - deadline >= 0;
+        }
+    }
+}
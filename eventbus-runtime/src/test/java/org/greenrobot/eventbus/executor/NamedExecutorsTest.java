@@ -0,0 +1,119 @@
+package org.greenrobot.eventbus.executor;
+
+import org.greenrobot.eventbus.OverflowPolicy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NamedExecutorsTest {
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final List<String> ran = new ArrayList<>();
+
+    private Runnable blocker() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private Runnable task(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                synchronized (ran) {
+                    ran.add(name);
+                }
+            }
+        };
+    }
+
+    /** Runs a blocker on the single thread, then offers two tasks to the queue of capacity 1. */
+    private List<String> overflow(String executorName, OverflowPolicy overflowPolicy) throws InterruptedException {
+        ExecutorService executor = NamedExecutors.getExecutor(executorName, 1, 1, overflowPolicy);
+        executor.execute(blocker());
+        executor.execute(task("first"));
+        executor.execute(task("second"));
+        gate.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        return ran;
+    }
+
+    @Test
+    public void testPoolsAreSharedByName() {
+        ExecutorService executor = NamedExecutors.getExecutor("test-shared", 2, 0, OverflowPolicy.BLOCK);
+        // A second module's configuration does not make a second pool
+        assertSame(executor, NamedExecutors.getExecutor("test-shared", 4, 16, OverflowPolicy.DROP_NEWEST));
+        assertSame(executor, NamedExecutors.getExecutor("test-shared"));
+    }
+
+    @Test
+    public void testDropNewest() throws InterruptedException {
+        assertEquals(Arrays.asList("first"), overflow("test-drop-newest", OverflowPolicy.DROP_NEWEST));
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        assertEquals(Arrays.asList("second"), overflow("test-drop-oldest", OverflowPolicy.DROP_OLDEST));
+    }
+
+    @Test
+    public void testBlockWaitsForRoom() throws InterruptedException {
+        final ExecutorService executor = NamedExecutors.getExecutor("test-block", 1, 1, OverflowPolicy.BLOCK);
+        executor.execute(blocker());
+        executor.execute(task("first"));
+        Thread poster = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(task("second"));
+            }
+        });
+        poster.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (poster.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(Thread.State.WAITING, poster.getState());
+
+        gate.countDown();
+        poster.join(5000);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("first", "second"), ran);
+    }
+
+    @Test
+    public void testConfigureAfterFirstUseFails() {
+        NamedExecutors.getExecutor("test-in-use", 1, 0, OverflowPolicy.BLOCK);
+        try {
+            NamedExecutors.configure("test-in-use", 2, 0, OverflowPolicy.BLOCK);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testCoalesceIsRejected() {
+        try {
+            NamedExecutors.configure("test-coalesce", 1, 0, OverflowPolicy.COALESCE);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.greenrobot.eventbus.sticky;
+
+import org.greenrobot.eventbus.crossprocess.CodecBuffers;
+import org.greenrobot.eventbus.crossprocess.EventCodec;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PersistentStickyStoreTest {
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 20;
+
+    private static final long POST_TIME = 1000;
+
+    private static final StringCodec CODEC_A = new StringCodec(1);
+    private static final StringCodec CODEC_B = new StringCodec(2);
+    private static final StringCodec CODEC_C = new StringCodec(3);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /** Stands in for a generated codec, storing a String under its type id. */
+    private static class StringCodec implements EventCodec<String> {
+        private final int typeId;
+
+        StringCodec(int typeId) {
+            this.typeId = typeId;
+        }
+
+        @Override
+        public int getTypeId() {
+            return typeId;
+        }
+
+        @Override
+        public Class<String> getEventType() {
+            return String.class;
+        }
+
+        @Override
+        public int sizeOf(String event) {
+            return CodecBuffers.sizeOf(event);
+        }
+
+        @Override
+        public void encode(String event, ByteBuffer buffer) {
+            CodecBuffers.putString(buffer, event);
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer) {
+            return CodecBuffers.getString(buffer);
+        }
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "sticky");
+        PersistentStickyStore store = new PersistentStickyStore(file);
+        store.put(CODEC_A, "a1", POST_TIME);
+        store.put(CODEC_B, "b", POST_TIME);
+        store.put(CODEC_A, "a2", POST_TIME + 1);
+        store.remove(CODEC_B.getTypeId());
+
+        PersistentStickyStore reopened = new PersistentStickyStore(file);
+        assertEquals("a2", reopened.get(CODEC_A));
+        assertEquals(POST_TIME + 1, reopened.getPostTimeMillis(CODEC_A.getTypeId()));
+        assertNull(reopened.get(CODEC_B));
+        assertFalse(reopened.contains(CODEC_B.getTypeId()));
+        assertEquals(-1, reopened.getPostTimeMillis(CODEC_B.getTypeId()));
+    }
+
+    @Test
+    public void testTornRecord() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "sticky");
+        new PersistentStickyStore(file).put(CODEC_A, "a", POST_TIME);
+        int end = HEADER_SIZE + RECORD_HEADER_SIZE + CODEC_A.sizeOf("a");
+
+        // A record of B cut short before its size was written, whose payload happens to look like a record of C
+        // right where the next, shorter record will end
+        String shortEvent = "b";
+        int nextEnd = end + RECORD_HEADER_SIZE + CODEC_B.sizeOf(shortEvent);
+        ByteBuffer torn = ByteBuffer.allocate(64);
+        torn.putInt(0).putInt(CODEC_B.getTypeId()).putInt(torn.capacity() - RECORD_HEADER_SIZE).putLong(1);
+        torn.position(nextEnd - end);
+        torn.putInt(RECORD_HEADER_SIZE + CODEC_C.sizeOf("c")).putInt(CODEC_C.getTypeId()).putInt(CODEC_C.sizeOf("c")).putLong(1);
+        CodecBuffers.putString(torn, "c");
+        writeAt(file, end, torn.array());
+
+        PersistentStickyStore reopened = new PersistentStickyStore(file);
+        assertEquals("a", reopened.get(CODEC_A));
+        assertNull(reopened.get(CODEC_B));
+        reopened.put(CODEC_B, shortEvent, POST_TIME);
+
+        PersistentStickyStore again = new PersistentStickyStore(file);
+        assertEquals("a", again.get(CODEC_A));
+        assertEquals(shortEvent, again.get(CODEC_B));
+        assertNull(again.get(CODEC_C));
+    }
+
+    @Test
+    public void testFailedEncodeLeavesNoRecord() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "sticky");
+        PersistentStickyStore store = new PersistentStickyStore(file);
+        store.put(CODEC_A, "a", POST_TIME);
+
+        // Writes what looks like a record of C right where the next, shorter record will end, then fails
+        final String shortEvent = "b";
+        StringCodec failing = new StringCodec(CODEC_B.getTypeId()) {
+            @Override
+            public int sizeOf(String event) {
+                return 64;
+            }
+
+            @Override
+            public void encode(String event, ByteBuffer buffer) {
+                buffer.position(buffer.position() + CODEC_B.sizeOf(shortEvent));
+                buffer.putInt(RECORD_HEADER_SIZE + CODEC_C.sizeOf("c")).putInt(CODEC_C.getTypeId())
+                        .putInt(CODEC_C.sizeOf("c")).putLong(1);
+                CodecBuffers.putString(buffer, "c");
+                throw new IllegalStateException("Codec failed");
+            }
+        };
+        try {
+            store.put(failing, "anything", POST_TIME);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertNull(store.get(CODEC_B));
+        store.put(CODEC_B, shortEvent, POST_TIME);
+
+        PersistentStickyStore reopened = new PersistentStickyStore(file);
+        assertEquals("a", reopened.get(CODEC_A));
+        assertEquals(shortEvent, reopened.get(CODEC_B));
+        assertNull(reopened.get(CODEC_C));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "sticky");
+        PersistentStickyStore store = new PersistentStickyStore(file);
+        store.put(CODEC_B, "kept", POST_TIME);
+        StringBuilder padding = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            padding.append('x');
+        }
+        // Several times the initial 64 KB, so the store alternates between both files
+        for (int i = 0; i < 3000; i++) {
+            store.put(CODEC_A, padding.toString() + i, POST_TIME);
+        }
+        assertTrue(new File(file.getPath() + ".alt").exists());
+
+        PersistentStickyStore reopened = new PersistentStickyStore(file);
+        assertEquals(padding.toString() + 2999, reopened.get(CODEC_A));
+        assertEquals("kept", reopened.get(CODEC_B));
+    }
+
+    @Test
+    public void testTornCompaction() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "sticky");
+        new PersistentStickyStore(file).put(CODEC_A, "a", POST_TIME);
+
+        // Compaction died before writing the header of the other file
+        ByteBuffer compacted = ByteBuffer.allocate(HEADER_SIZE + RECORD_HEADER_SIZE + CODEC_A.sizeOf("stale"));
+        compacted.position(HEADER_SIZE);
+        compacted.putInt(compacted.capacity() - HEADER_SIZE).putInt(CODEC_A.getTypeId()).putInt(CODEC_A.sizeOf("stale"))
+                .putLong(1);
+        CodecBuffers.putString(compacted, "stale");
+        writeAt(new File(file.getPath() + ".alt"), 0, compacted.array());
+
+        assertEquals("a", new PersistentStickyStore(file).get(CODEC_A));
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "sticky");
+        PersistentStickyStore store = new PersistentStickyStore(file);
+        store.put(CODEC_A, "a", POST_TIME);
+        store.clear();
+        store.put(CODEC_B, "b", POST_TIME);
+
+        PersistentStickyStore reopened = new PersistentStickyStore(file);
+        assertNull(reopened.get(CODEC_A));
+        assertEquals("b", reopened.get(CODEC_B));
+    }
+
+    private static void writeAt(File file, long position, byte[] bytes) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.seek(position);
+            randomAccessFile.write(bytes);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+}
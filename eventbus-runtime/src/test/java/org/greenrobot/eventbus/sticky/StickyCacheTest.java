@@ -0,0 +1,106 @@
+package org.greenrobot.eventbus.sticky;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StickyCacheTest {
+    private static class RecordingListener implements StickyCache.DropListener {
+        final List<Class<?>> dropped = new ArrayList<>();
+        StickyCache cache;
+
+        @Override
+        public void onDropped(Class<?> eventType) {
+            assertFalse("Called under the cache lock", Thread.holdsLock(cache));
+            dropped.add(eventType);
+        }
+    }
+
+    private static StickyCache newCache(long maxBytes, RecordingListener listener) {
+        StickyCache cache = new StickyCache(maxBytes, listener);
+        listener.cache = cache;
+        return cache;
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        RecordingListener listener = new RecordingListener();
+        StickyCache cache = newCache(25, listener);
+        cache.put(String.class, "a", 10, 0);
+        cache.put(Integer.class, 1, 10, 0);
+        // Reading counts as a use, so Integer is now more recent than String
+        assertEquals(1, cache.get(Integer.class));
+        assertEquals("a", cache.get(String.class));
+        cache.put(Long.class, 2L, 10, 0);
+
+        assertNull(cache.get(Integer.class));
+        assertEquals("a", cache.get(String.class));
+        assertEquals(2L, cache.get(Long.class));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(20, cache.getRetainedBytes());
+        assertEquals(Arrays.<Class<?>>asList(Integer.class), listener.dropped);
+    }
+
+    @Test
+    public void testContainsIsNoUse() {
+        RecordingListener listener = new RecordingListener();
+        StickyCache cache = newCache(25, listener);
+        cache.put(String.class, "a", 10, 0);
+        cache.put(Integer.class, 1, 10, 0);
+        assertTrue(cache.contains(String.class));
+        cache.put(Long.class, 2L, 10, 0);
+
+        assertFalse(cache.contains(String.class));
+        assertEquals(Arrays.<Class<?>>asList(String.class), listener.dropped);
+    }
+
+    @Test
+    public void testOversizedEventIsKeptAlone() {
+        RecordingListener listener = new RecordingListener();
+        StickyCache cache = newCache(25, listener);
+        cache.put(String.class, "a", 10, 0);
+        cache.put(Integer.class, 1, 0, 0);
+        cache.put(Long.class, 2L, 100, 0);
+
+        assertNull(cache.get(String.class));
+        assertEquals(2L, cache.get(Long.class));
+        // Events of size 0 are not counted, so never evicted
+        assertEquals(1, cache.get(Integer.class));
+        assertEquals(100, cache.getRetainedBytes());
+        assertEquals(Arrays.<Class<?>>asList(String.class), listener.dropped);
+    }
+
+    @Test
+    public void testReplacingIsNoDrop() {
+        RecordingListener listener = new RecordingListener();
+        StickyCache cache = newCache(25, listener);
+        cache.put(String.class, "a", 10, 0);
+        assertEquals("a", cache.put(String.class, "b", 20, 0));
+        assertEquals("b", cache.remove(String.class));
+
+        assertEquals(0, cache.getRetainedBytes());
+        assertTrue(listener.dropped.isEmpty());
+    }
+
+    @Test
+    public void testExpiry() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+        StickyCache cache = newCache(0, listener);
+        cache.put(String.class, "a", 10, 1);
+        cache.put(Integer.class, 1, 10, 0);
+        Thread.sleep(20);
+
+        assertEquals(1, cache.snapshot().size());
+        assertNull(cache.get(String.class));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(10, cache.getRetainedBytes());
+        assertEquals(Arrays.<Class<?>>asList(String.class), listener.dropped);
+    }
+}